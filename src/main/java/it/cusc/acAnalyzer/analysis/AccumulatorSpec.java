@@ -0,0 +1,70 @@
+package it.cusc.acAnalyzer.analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Definizione immutabile dei canali e dei range di un {@link FusedAccumulator}:
+ * la stessa spec crea tutti gli accumulatori che servono (sessione, stint, ...)
+ */
+public final class AccumulatorSpec<T> {
+    final FloatChannel<T>[] channels;
+    final int[] rangeChannels;
+    final double[] rangeMin;
+    final double[] rangeMax;
+
+    private AccumulatorSpec(Builder<T> builder) {
+        @SuppressWarnings("unchecked")
+        FloatChannel<T>[] channels = builder.channels.toArray(new FloatChannel[0]);
+        this.channels = channels;
+        int ranges = builder.rangeChannels.size();
+        this.rangeChannels = new int[ranges];
+        this.rangeMin = new double[ranges];
+        this.rangeMax = new double[ranges];
+        for (int i = 0; i < ranges; i++) {
+            rangeChannels[i] = builder.rangeChannels.get(i);
+            rangeMin[i] = builder.rangeMin.get(i);
+            rangeMax[i] = builder.rangeMax.get(i);
+        }
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    public FusedAccumulator<T> newAccumulator() {
+        return new FusedAccumulator<>(this);
+    }
+
+    public int channelCount() {
+        return channels.length;
+    }
+
+    public static class Builder<T> {
+        private final List<FloatChannel<T>> channels = new ArrayList<>();
+        private final List<Integer> rangeChannels = new ArrayList<>();
+        private final List<Double> rangeMin = new ArrayList<>();
+        private final List<Double> rangeMax = new ArrayList<>();
+
+        /** Aggiunge un canale e ne restituisce l'indice */
+        public int channel(FloatChannel<T> channel) {
+            channels.add(channel);
+            return channels.size() - 1;
+        }
+
+        /** Conta i campioni con il canale in [min, max]; restituisce l'indice del contatore */
+        public int rangeCount(int channel, double min, double max) {
+            if (channel < 0 || channel >= channels.size()) {
+                throw new IllegalArgumentException("Unknown channel " + channel);
+            }
+            rangeChannels.add(channel);
+            rangeMin.add(min);
+            rangeMax.add(max);
+            return rangeChannels.size() - 1;
+        }
+
+        public AccumulatorSpec<T> build() {
+            return new AccumulatorSpec<>(this);
+        }
+    }
+}
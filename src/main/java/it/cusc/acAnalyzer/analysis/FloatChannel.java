@@ -0,0 +1,9 @@
+package it.cusc.acAnalyzer.analysis;
+
+/**
+ * Estrae un valore float da un campione senza boxing
+ */
+@FunctionalInterface
+public interface FloatChannel<T> {
+    float get(T sample);
+}
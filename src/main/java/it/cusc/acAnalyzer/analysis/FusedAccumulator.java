@@ -0,0 +1,99 @@
+package it.cusc.acAnalyzer.analysis;
+
+import java.util.Arrays;
+
+/**
+ * Statistiche di più canali float aggiornate insieme, un campione alla
+ * volta: media e varianza con l'algoritmo di Welford, minimo, massimo e
+ * conteggi nei range. Lo stato è in array primitivi paralleli, uno slot per
+ * canale, quindi un'unica passata su una sorgente in streaming basta per
+ * tutte le metriche.
+ */
+public final class FusedAccumulator<T> {
+    private final FloatChannel<T>[] channels;
+    private final int[] rangeChannels;
+    private final double[] rangeMin;
+    private final double[] rangeMax;
+
+    private final float[] values;
+    private final double[] mean;
+    private final double[] m2;
+    private final double[] min;
+    private final double[] max;
+    private final long[] inRange;
+    private long count;
+
+    FusedAccumulator(AccumulatorSpec<T> spec) {
+        this.channels = spec.channels;
+        this.rangeChannels = spec.rangeChannels;
+        this.rangeMin = spec.rangeMin;
+        this.rangeMax = spec.rangeMax;
+
+        int size = channels.length;
+        this.values = new float[size];
+        this.mean = new double[size];
+        this.m2 = new double[size];
+        this.min = new double[size];
+        this.max = new double[size];
+        this.inRange = new long[rangeChannels.length];
+        Arrays.fill(min, Double.POSITIVE_INFINITY);
+        Arrays.fill(max, Double.NEGATIVE_INFINITY);
+    }
+
+    public void add(T sample) {
+        count++;
+        for (int i = 0; i < channels.length; i++) {
+            float value = channels[i].get(sample);
+            values[i] = value;
+
+            double delta = value - mean[i];
+            mean[i] += delta / count;
+            m2[i] += delta * (value - mean[i]);
+            if (value < min[i]) min[i] = value;
+            if (value > max[i]) max[i] = value;
+        }
+        for (int r = 0; r < rangeChannels.length; r++) {
+            float value = values[rangeChannels[r]];
+            if (value >= rangeMin[r] && value <= rangeMax[r]) {
+                inRange[r]++;
+            }
+        }
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /** Media del canale, 0 se non ci sono campioni */
+    public double mean(int channel) {
+        return mean[channel];
+    }
+
+    /** Somma del canale, ricavata dalla media */
+    public double sum(int channel) {
+        return mean[channel] * count;
+    }
+
+    /** Varianza di popolazione del canale */
+    public double variance(int channel) {
+        return count > 0 ? m2[channel] / count : 0.0;
+    }
+
+    public double standardDeviation(int channel) {
+        return Math.sqrt(variance(channel));
+    }
+
+    /** Minimo del canale, 0 se non ci sono campioni */
+    public double min(int channel) {
+        return count > 0 ? min[channel] : 0.0;
+    }
+
+    /** Massimo del canale, 0 se non ci sono campioni */
+    public double max(int channel) {
+        return count > 0 ? max[channel] : 0.0;
+    }
+
+    public long inRange(int counter) {
+        return inRange[counter];
+    }
+}
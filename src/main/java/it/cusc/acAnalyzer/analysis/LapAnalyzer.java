@@ -0,0 +1,141 @@
+package it.cusc.acAnalyzer.analysis;
+
+import it.cusc.acAnalyzer.model.projection.LapSample;
+import it.cusc.acAnalyzer.service.LapAnalysisService.BestTimes;
+import it.cusc.acAnalyzer.service.LapAnalysisService.LapData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Analisi incrementale dei giri: i campioni graphics arrivano in ordine di
+ * timestamp e il passaggio del contatore giri chiude il giro precedente.
+ * Miglior giro, migliori settori e consistenza si aggiornano alla chiusura
+ * di ogni giro, quindi leggerli non richiede di ripercorrere la sessione.
+ * Gli stessi totali su più sessioni si ottengono passando i giri già
+ * analizzati ad {@link #addLap}.
+ */
+public class LapAnalyzer {
+    private static final AccumulatorSpec<LapData> LAP_TIMES;
+    private static final int LAP_TIME;
+
+    static {
+        AccumulatorSpec.Builder<LapData> builder = AccumulatorSpec.builder();
+        LAP_TIME = builder.channel(LapData::getLapTimeMs);
+        LAP_TIMES = builder.build();
+    }
+
+    private final List<LapData> laps = new ArrayList<>();
+    private final FusedAccumulator<LapData> validLapTimes = LAP_TIMES.newAccumulator();
+    private final int[] bestSectorsMs = {Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE};
+    private LapData bestLap;
+    private LapSample current;
+
+    public void add(LapSample next) {
+        if (current != null && next.completedLaps() > current.completedLaps()) {
+            String[] sectors = new String[3];
+            int[] sectorTimesMs = new int[3];
+
+            // Recupera i tempi dei settori
+            for (int s = 0; s < 3; s++) {
+                if (s == current.currentSectorIndex() - 1) {
+                    sectorTimesMs[s] = current.lastSectorTime();
+                    sectors[s] = formatTime(sectorTimesMs[s]);
+                }
+            }
+
+            addLap(LapData.builder()
+                    .lapNumber(next.completedLaps())
+                    .lapTime(next.lastTime())
+                    .lapTimeMs(next.lastTimeMs())
+                    .sectors(sectors)
+                    .sectorTimesMs(sectorTimesMs)
+                    .valid(isLapValid(next))
+                    .build());
+        }
+        current = next;
+    }
+
+    /**
+     * Aggiunge un giro già chiuso, ad esempio di un'altra sessione
+     */
+    public void addLap(LapData lap) {
+        laps.add(lap);
+        if (!lap.isValid()) return;
+
+        validLapTimes.add(lap);
+        if (bestLap == null || lap.getLapTimeMs() < bestLap.getLapTimeMs()) {
+            bestLap = lap;
+        }
+        for (int s = 0; s < 3; s++) {
+            bestSectorsMs[s] = Math.min(bestSectorsMs[s], lap.getSectorTimesMs()[s]);
+        }
+    }
+
+    public List<LapData> laps() {
+        return new ArrayList<>(laps);
+    }
+
+    public int validLaps() {
+        return (int) validLapTimes.count();
+    }
+
+    /**
+     * Il miglior giro valido così come è stato aggiunto; null se non ce ne sono
+     */
+    public LapData bestLap() {
+        return bestLap;
+    }
+
+    public BestTimes bestTimes() {
+        // Nessun giro valido
+        if (bestLap == null) {
+            return null;
+        }
+
+        int[] bestSectors = Arrays.copyOf(bestSectorsMs, 3);
+        String[] bestSectorTimes = new String[3];
+        for (int s = 0; s < 3; s++) {
+            bestSectorTimes[s] = formatTime(bestSectors[s]);
+        }
+
+        // Tempo teorico e potenziale miglioramento
+        int theoreticalBestMs = Arrays.stream(bestSectors).sum();
+
+        return BestTimes.builder()
+                .bestLapTime(bestLap.getLapTime())
+                .bestLapTimeMs(bestLap.getLapTimeMs())
+                .bestSectors(bestSectorTimes)
+                .bestSectorsMs(bestSectors)
+                .theoreticalBest(formatTime(theoreticalBestMs))
+                .theoreticalBestMs(theoreticalBestMs)
+                .potentialGain(formatTime(bestLap.getLapTimeMs() - theoreticalBestMs))
+                .build();
+    }
+
+    /**
+     * Percentuale di consistenza dei giri validi (100% = perfettamente consistente)
+     */
+    public double consistency() {
+        if (validLapTimes.count() == 0) {
+            return 0.0;
+        }
+        double mean = validLapTimes.mean(LAP_TIME);
+        return 100.0 * (1.0 - validLapTimes.standardDeviation(LAP_TIME) / mean);
+    }
+
+    public static boolean isLapValid(LapSample lap) {
+        return lap.lastTimeMs() > 0 &&
+                lap.lastTime() != null &&
+                !lap.lastTime().isEmpty();
+    }
+
+    public static String formatTime(int timeMs) {
+        if (timeMs <= 0) return "--:--:---";
+        int minutes = timeMs / (60 * 1000);
+        int seconds = (timeMs % (60 * 1000)) / 1000;
+        int millis = timeMs % 1000;
+        return String.format("%d:%02d.%03d", minutes, seconds, millis);
+    }
+}
@@ -0,0 +1,64 @@
+package it.cusc.acAnalyzer.analysis;
+
+import it.cusc.acAnalyzer.model.StaticInfo;
+import it.cusc.acAnalyzer.model.projection.LapSample;
+import it.cusc.acAnalyzer.model.projection.TyreAggregate;
+import it.cusc.acAnalyzer.model.projection.TyreSample;
+
+import java.util.function.Function;
+
+/**
+ * Analisi della sessione in registrazione, aggiornata frame per frame: le
+ * gomme dallo stage physics, i giri dal listener graphics. Gli analyzer non
+ * sono thread-safe, quindi scritture e letture passano dal rispettivo lock.
+ */
+public class LiveSession {
+    private final String sessionId;
+    private final LapAnalyzer laps = new LapAnalyzer();
+    private final TyreAnalyzer tyres;
+    private volatile StaticInfo staticInfo;
+
+    public LiveSession(String sessionId, TyreAnalyzer tyres) {
+        this.sessionId = sessionId;
+        this.tyres = tyres;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public StaticInfo getStaticInfo() {
+        return staticInfo;
+    }
+
+    public void setStaticInfo(StaticInfo staticInfo) {
+        this.staticInfo = staticInfo;
+    }
+
+    public void addLapSample(LapSample sample) {
+        synchronized (laps) {
+            laps.add(sample);
+        }
+    }
+
+    public void addTyreSample(TyreSample sample) {
+        synchronized (tyres) {
+            tyres.add(sample);
+        }
+    }
+
+    /**
+     * Legge lo stato dei giri senza che un nuovo campione lo modifichi a metà
+     */
+    public <R> R readLaps(Function<LapAnalyzer, R> reader) {
+        synchronized (laps) {
+            return reader.apply(laps);
+        }
+    }
+
+    public TyreAggregate tyreAggregate() {
+        synchronized (tyres) {
+            return tyres.toAggregate();
+        }
+    }
+}
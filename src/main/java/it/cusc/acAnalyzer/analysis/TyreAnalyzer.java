@@ -0,0 +1,176 @@
+package it.cusc.acAnalyzer.analysis;
+
+import it.cusc.acAnalyzer.config.TyreProperties;
+import it.cusc.acAnalyzer.model.projection.TyreAggregate;
+import it.cusc.acAnalyzer.model.projection.TyreSample;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Stessi totali della pipeline di aggregazione gomme, calcolati in una sola
+ * passata nell'ordine dei timestamp: ogni campione aggiorna insieme le
+ * statistiche di sessione e quelle dello stint corrente. Serve sia alle
+ * sessioni a bucket lette da MongoDB sia alla sessione live. Nessun
+ * campione viene trattenuto, così il chiamante può riusarne gli array:
+ * primo campione e inizio stint si copiano, l'ultimo si tiene solo nei
+ * campi che servono.
+ */
+public class TyreAnalyzer {
+    private final TyreChannels channels;
+    private final FusedAccumulator<TyreSample> session;
+
+    private TyreSample first;
+    private int lastPitLimiterOn;
+    private final float[] lastTyreWear = new float[4];
+    private int lastTyresOut;
+    private final List<TyreAggregate.Stint> stints = new ArrayList<>();
+    private StintAccumulator stint;
+
+    public TyreAnalyzer(TyreProperties tyreProperties) {
+        this.channels = new TyreChannels(tyreProperties);
+        this.session = channels.session.newAccumulator();
+    }
+
+    public void add(TyreSample sample) {
+        session.add(sample);
+
+        // Identifica i pit stop basandoti sul pitLimiterOn
+        if (first == null) {
+            first = sample.copy();
+        } else if (sample.pitLimiterOn() == 1 && lastPitLimiterOn == 0) {
+            stints.add(stint.toStint(lastTyreWear, lastTyresOut));
+            stint = null;
+        }
+        if (stint == null) {
+            stint = new StintAccumulator(channels, sample.copy());
+        }
+        stint.add(sample);
+        lastPitLimiterOn = sample.pitLimiterOn();
+        System.arraycopy(sample.tyreWear(), 0, lastTyreWear, 0, 4);
+        lastTyresOut = sample.numberOfTyresOut();
+    }
+
+    public TyreAggregate toAggregate() {
+        List<TyreAggregate.Stint> allStints = new ArrayList<>(stints);
+        if (stint != null) {
+            allStints.add(stint.toStint(lastTyreWear, lastTyresOut));
+        }
+        return new TyreAggregate(session.count(),
+                perWheel(channels.inner, session::mean),
+                perWheel(channels.middle, session::mean),
+                perWheel(channels.outer, session::mean),
+                perWheel(channels.inner, session::max),
+                perWheel(channels.middle, session::max),
+                perWheel(channels.outer, session::max),
+                counts(channels.tempOptimal),
+                perWheel(channels.pressure, session::mean),
+                perWheel(channels.pressure, session::max),
+                perWheel(channels.pressure, session::min),
+                counts(channels.pressureOptimal),
+                first != null ? first.tyreWear() : new float[4],
+                lastTyreWear.clone(),
+                first != null ? first.numberOfTyresOut() : 0,
+                lastTyresOut,
+                allStints);
+    }
+
+    private long[] counts(int[] counters) {
+        long[] result = new long[4];
+        for (int wheel = 0; wheel < 4; wheel++) {
+            result[wheel] = session.inRange(counters[wheel]);
+        }
+        return result;
+    }
+
+    private static double[] perWheel(int[] channels, IntToDoubleFunction statistic) {
+        double[] result = new double[4];
+        for (int wheel = 0; wheel < 4; wheel++) {
+            result[wheel] = statistic.applyAsDouble(channels[wheel]);
+        }
+        return result;
+    }
+
+    // Temperatura media del battistrada (interno, centro, esterno) di una ruota
+    private static float averageTreadTemp(TyreSample sample, int wheel) {
+        return (sample.tyreTempI()[wheel] + sample.tyreTempM()[wheel] + sample.tyreTempO()[wheel]) / 3;
+    }
+
+    /**
+     * Canali float di un campione gomme, uno per ruota, con i range ottimali
+     * letti dalle properties alla creazione dell'analyzer
+     */
+    private static class TyreChannels {
+        final AccumulatorSpec<TyreSample> session;
+        final AccumulatorSpec<TyreSample> stint;
+        final int[] inner = new int[4];
+        final int[] middle = new int[4];
+        final int[] outer = new int[4];
+        final int[] pressure = new int[4];
+        final int[] tempOptimal = new int[4];
+        final int[] pressureOptimal = new int[4];
+        final int[] stintTread = new int[4];
+        final int[] stintPressure = new int[4];
+
+        TyreChannels(TyreProperties tyreProperties) {
+            TyreProperties.Range tempRange = tyreProperties.getTemp().getOptimal();
+            AccumulatorSpec.Builder<TyreSample> sessionBuilder = AccumulatorSpec.builder();
+            AccumulatorSpec.Builder<TyreSample> stintBuilder = AccumulatorSpec.builder();
+
+            for (int i = 0; i < 4; i++) {
+                final int wheel = i;
+                TyreProperties.Range pressureRange = tyreProperties
+                        .getTyrePressureByPosition(TyreProperties.TyrePosition.values()[wheel]).getOptimal();
+
+                inner[wheel] = sessionBuilder.channel(sample -> sample.tyreTempI()[wheel]);
+                middle[wheel] = sessionBuilder.channel(sample -> sample.tyreTempM()[wheel]);
+                outer[wheel] = sessionBuilder.channel(sample -> sample.tyreTempO()[wheel]);
+                int tread = sessionBuilder.channel(sample -> averageTreadTemp(sample, wheel));
+                pressure[wheel] = sessionBuilder.channel(sample -> sample.wheelsPressure()[wheel]);
+                tempOptimal[wheel] = sessionBuilder.rangeCount(tread, tempRange.getMin(), tempRange.getMax());
+                pressureOptimal[wheel] = sessionBuilder.rangeCount(
+                        pressure[wheel], pressureRange.getMin(), pressureRange.getMax());
+
+                stintTread[wheel] = stintBuilder.channel(sample -> averageTreadTemp(sample, wheel));
+                stintPressure[wheel] = stintBuilder.channel(sample -> sample.wheelsPressure()[wheel]);
+            }
+            this.session = sessionBuilder.build();
+            this.stint = stintBuilder.build();
+        }
+    }
+
+    /**
+     * Totali dei campioni di uno stint
+     */
+    private static class StintAccumulator {
+        private final TyreChannels channels;
+        private final FusedAccumulator<TyreSample> totals;
+        private final TyreSample start;
+
+        StintAccumulator(TyreChannels channels, TyreSample start) {
+            this.channels = channels;
+            this.totals = channels.stint.newAccumulator();
+            this.start = start;
+        }
+
+        void add(TyreSample sample) {
+            totals.add(sample);
+        }
+
+        // La fine dello stint è l'ultimo campione visto dall'analyzer
+        TyreAggregate.Stint toStint(float[] endTyreWear, int endTyresOut) {
+            double[] firstTemps = new double[4];
+            double[] firstPressures = new double[4];
+            for (int wheel = 0; wheel < 4; wheel++) {
+                firstTemps[wheel] = averageTreadTemp(start, wheel);
+                firstPressures[wheel] = start.wheelsPressure()[wheel];
+            }
+            return new TyreAggregate.Stint(totals.count(),
+                    perWheel(channels.stintTread, totals::sum),
+                    perWheel(channels.stintPressure, totals::sum),
+                    firstTemps, firstPressures,
+                    start.tyreWear(), endTyreWear.clone(), start.numberOfTyresOut(), endTyresOut);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package it.cusc.acAnalyzer.config;
+
+import it.cusc.acAnalyzer.model.enums.CacheEviction;
+import it.cusc.acAnalyzer.model.enums.ChannelEncoding;
+import it.cusc.acAnalyzer.model.enums.OverflowPolicy;
+import it.cusc.acAnalyzer.model.enums.PollStrategy;
+import it.cusc.acAnalyzer.model.enums.StorageMode;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "telemetry")
+@Data
+public class TelemetryProperties {
+    private Poller poller = new Poller();
+    private Reader reader = new Reader();
+    private Pipeline pipeline = new Pipeline();
+    private Batch batch = new Batch();
+    private Storage storage = new Storage();
+    private Journal journal = new Journal();
+    private Rollup rollup = new Rollup();
+    private DerivedWrites derivedWrites = new DerivedWrites();
+    private AnalysisCache analysisCache = new AnalysisCache();
+    private Comparison comparison = new Comparison();
+    private Live live = new Live();
+    private WebSocket websocket = new WebSocket();
+
+    @Data
+    public static class Poller {
+        private PollStrategy strategy = PollStrategy.ADAPTIVE_BACKOFF;
+        private long periodMicros = 10_000;
+        // Soglie dell'adaptive backoff (in poll consecutivi senza nuovi frame)
+        private int spinPolls = 10;
+        private int yieldPolls = 100;
+        private long maxBackoffMicros = 100_000;
+        // Finestra prima della scadenza coperta da spin/yield (ADAPTIVE_BACKOFF); il resto è park
+        private long spinWindowMicros = 500;
+        // La pagina graphics è controllata a ogni ciclo del poller ed emessa solo se cambia
+        // un campo chiave; l'heartbeat la ripubblica comunque (0 = disattivato)
+        private long graphicsHeartbeatMillis = 1000;
+    }
+
+    @Data
+    public static class Reader {
+        // Tentativi di rilettura quando il packetId cambia durante la decodifica
+        private int maxRetries = 3;
+    }
+
+    @Data
+    public static class Pipeline {
+        private Stage enrich = new Stage(4096, OverflowPolicy.DROP_OLDEST);
+        private Stage persist = new Stage(8192, OverflowPolicy.BLOCK);
+        // Indice dei giri: servono tutti i frame per gli estremi di ogni giro
+        private Stage laps = new Stage(4096, OverflowPolicy.BLOCK);
+        // BLOCK: un frame perso renderebbe i rollup della sessione inesatti
+        private Stage rollup = new Stage(4096, OverflowPolicy.BLOCK);
+        private Stage publish = new Stage(1024, OverflowPolicy.SAMPLE);
+        // Frame graphics emessi dal poller: pubblicazione e salvataggio fuori dal ciclo veloce
+        private Stage graphics = new Stage(1024, OverflowPolicy.DROP_OLDEST);
+    }
+
+    @Data
+    public static class Stage {
+        private int capacity = 4096;
+        private OverflowPolicy policy = OverflowPolicy.DROP_OLDEST;
+        private int sampleRate = 2;
+
+        public Stage() {
+        }
+
+        public Stage(int capacity, OverflowPolicy policy) {
+            this.capacity = capacity;
+            this.policy = policy;
+        }
+    }
+
+    @Data
+    public static class Batch {
+        private int size = 500;
+        private long maxDelayMillis = 250;
+    }
+
+    @Data
+    public static class Storage {
+        private StorageMode mode = StorageMode.DOCUMENT;
+        // Ampiezza della finestra temporale di un bucket (modalità BUCKET)
+        private long bucketMillis = 1000;
+        private ChannelEncoding encoding = ChannelEncoding.GORILLA;
+    }
+
+    @Data
+    public static class Journal {
+        // Se attivo lo stage persist scrive solo sul journal locale, il drainer replica su MongoDB
+        private boolean enabled = true;
+        private String directory = "journal";
+        private int segmentSizeMb = 64;
+        private long retryDelayMillis = 1000;
+        // Attesa massima allo stop per svuotare il journal prima di lasciarlo al recovery
+        private long drainTimeoutMillis = 10_000;
+    }
+
+    @Data
+    public static class Rollup {
+        private boolean enabled = true;
+        // Campi physics riassunti nei rollup (gli array diventano un canale per elemento)
+        private List<String> channels = new ArrayList<>(List.of(
+                "speedKmh", "rpms", "gas", "brake", "fuel",
+                "tyreWear", "tyreCoreTemperature", "wheelsPressure"));
+    }
+
+    @Data
+    public static class DerivedWrites {
+        // Scritture dei dati derivati (indice giri, rollup) fuori dalla pipeline: oltre la capacità si scarta il più vecchio
+        private int capacity = 8192;
+        private long retryDelayMillis = 1000;
+        private long maxRetryDelayMillis = 30_000;
+        private long drainTimeoutMillis = 5000;
+    }
+
+    @Data
+    public static class AnalysisCache {
+        private boolean enabled = true;
+        // Numero massimo di risultati tenuti in memoria
+        private int maxEntries = 256;
+        private CacheEviction eviction = CacheEviction.LRU;
+        // Salva i risultati anche su MongoDB, così sopravvivono al riavvio
+        private boolean persistent = false;
+    }
+
+    @Data
+    public static class Comparison {
+        // Thread che analizzano in parallelo le sessioni di una combinazione pista/auto
+        private int parallelism = 4;
+        // Analisi contemporanee verso MongoDB, condivise tra tutte le richieste
+        private int maxConcurrentQueries = 4;
+        // Durata massima di uno stream SSE di risultati parziali
+        private long streamTimeoutMillis = 300_000;
+    }
+
+    @Data
+    public static class Live {
+        // Frequenze (Hz) delle destinazioni /topic/physics/{hz}, con conflation sull'ultimo frame
+        private List<Integer> ratesHz = new ArrayList<>(List.of(10, 30, 60));
+        // Gruppi di canali per .../group/{gruppo}; le liste libere usano .../fields/{a,b,c}
+        private Map<String, List<String>> groups = new LinkedHashMap<>(Map.of(
+                "inputs", List.of("gas", "brake", "clutch", "steerAngle", "speedKmh", "gear", "rpms"),
+                "tyres", List.of("tyreCoreTemperature", "tyreTempI", "tyreTempM", "tyreTempO",
+                        "wheelsPressure", "tyreWear", "tyreDirtyLevel", "wheelSlip"),
+                "dynamics", List.of("velocity", "localVelocity", "accG", "heading", "pitch", "roll",
+                        "localAngularVelocity", "wheelLoad", "suspensionTravel", "rideHeight"),
+                "damage", List.of("carDamage", "numberOfTyresOut")));
+        // Stream delta (.../delta): soglia di cambiamento dei float, con eccezioni per canale
+        private float deltaEpsilon = 0.001f;
+        private Map<String, Float> deltaEpsilons = new LinkedHashMap<>();
+        // Keyframe completi periodici per il riallineamento dei client (0 = solo su nuovi client)
+        private long keyframeIntervalMillis = 1000;
+    }
+
+    @Data
+    public static class WebSocket {
+        // Limiti di trasporto per sessione: oltre, Spring chiude la connessione
+        private int sendTimeLimitMillis = 10_000;
+        private int sendBufferSizeLimitBytes = 512 * 1024;
+        // Executor del canale outbound, con coda limitata
+        private int outboundPoolSize = 4;
+        private int outboundQueueCapacity = 10_000;
+        // Messaggi in coda oltre i quali un client è degradato a un messaggio per topic alla volta
+        private int degradeInFlight = 64;
+        // Client senza progressi da più di così vengono disconnessi (0 = mai)
+        private long disconnectLagMillis = 5_000;
+    }
+}
@@ -1,12 +1,18 @@
 package it.cusc.acAnalyzer.config;
 
+import it.cusc.acAnalyzer.live.SlowConsumerGuard;
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.*;
 
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+    private final TelemetryProperties telemetryProperties;
+    private final SlowConsumerGuard slowConsumerGuard;
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
@@ -19,5 +25,23 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.addEndpoint("/ws")
                 .setAllowedOrigins("*");
     }
-}
 
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        TelemetryProperties.WebSocket config = telemetryProperties.getWebsocket();
+        registration.setSendTimeLimit(config.getSendTimeLimitMillis())
+                .setSendBufferSizeLimit(config.getSendBufferSizeLimitBytes())
+                .addDecoratorFactory(slowConsumerGuard.decoratorFactory());
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // Coda limitata: un client fermo non può accumulare messaggi nello heap
+        TelemetryProperties.WebSocket config = telemetryProperties.getWebsocket();
+        registration.taskExecutor()
+                .corePoolSize(config.getOutboundPoolSize())
+                .maxPoolSize(config.getOutboundPoolSize())
+                .queueCapacity(config.getOutboundQueueCapacity());
+        registration.interceptors(slowConsumerGuard);
+    }
+}
@@ -24,6 +24,21 @@ public class AnalysisController {
         return ResponseEntity.ok(analysisService.getLapData(sessionId, lapStart, lapEnd));
     }
 
+    @GetMapping("/session/{sessionId}/lap-index")
+    public ResponseEntity<List<LapIndex>> getLapIndex(
+            @PathVariable String sessionId) {
+        return ResponseEntity.ok(analysisService.getLapIndex(sessionId));
+    }
+
+    @GetMapping("/session/{sessionId}/lap/{lap}")
+    public ResponseEntity<List<Physics>> getLap(
+            @PathVariable String sessionId,
+            @PathVariable int lap) {
+        return analysisService.getLap(sessionId, lap)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @GetMapping("/session/{sessionId}/highspeed")
     public ResponseEntity<List<Physics>> getHighSpeedMoments(
             @PathVariable String sessionId,
@@ -1,11 +1,16 @@
 package it.cusc.acAnalyzer.controller;
 
+import it.cusc.acAnalyzer.config.TelemetryProperties;
 import it.cusc.acAnalyzer.service.LapAnalysisService;
 import it.cusc.acAnalyzer.service.LapAnalysisService.LapAnalysisResult;
 import it.cusc.acAnalyzer.service.LapAnalysisService.SessionInfo;
+import it.cusc.acAnalyzer.service.SessionComparisonService;
+import it.cusc.acAnalyzer.service.SessionComparisonService.LapComparison;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -15,6 +20,8 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class LapAnalysisController {
     private final LapAnalysisService lapAnalysisService;
+    private final SessionComparisonService sessionComparisonService;
+    private final TelemetryProperties telemetryProperties;
 
     @GetMapping("/sessions")
     public ResponseEntity<List<SessionInfo>> getSessions(
@@ -28,4 +35,29 @@ public class LapAnalysisController {
             @PathVariable String sessionId) {
         return ResponseEntity.ok(lapAnalysisService.analyzeSession(sessionId));
     }
-}
\ No newline at end of file
+
+    @GetMapping("/track/{track}/car/{carModel}")
+    public ResponseEntity<List<LapAnalysisResult>> analyzeTrackCarCombination(
+            @PathVariable String track,
+            @PathVariable String carModel) {
+        return ResponseEntity.ok(sessionComparisonService.analyzeLaps(track, carModel));
+    }
+
+    /**
+     * Un evento SSE per sessione, appena la sua analisi è pronta
+     */
+    @GetMapping(path = "/track/{track}/car/{carModel}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTrackCarCombination(
+            @PathVariable String track,
+            @PathVariable String carModel) {
+        return SessionEventStream.open(telemetryProperties.getComparison().getStreamTimeoutMillis(),
+                onResult -> sessionComparisonService.streamLaps(track, carModel, onResult));
+    }
+
+    @GetMapping("/track/{track}/car/{carModel}/summary")
+    public ResponseEntity<LapComparison> compareTrackCarCombination(
+            @PathVariable String track,
+            @PathVariable String carModel) {
+        return ResponseEntity.ok(sessionComparisonService.compareLaps(track, carModel));
+    }
+}
@@ -0,0 +1,39 @@
+package it.cusc.acAnalyzer.controller;
+
+import it.cusc.acAnalyzer.live.LivePublisher;
+import it.cusc.acAnalyzer.model.LiveSchema;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.stereotype.Controller;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Handshake STOMP dello stream live: la sottoscrizione a
+ * /app/live/schema/{physics,graphics} riceve una sola risposta con lo schema
+ * dei frame binari, quella a /app/live/groups/physics i gruppi di canali
+ */
+@Controller
+@RequiredArgsConstructor
+public class LiveController {
+    private final LivePublisher livePublisher;
+
+    @SubscribeMapping("/live/schema/physics")
+    public LiveSchema physicsSchema() {
+        return livePublisher.getPhysicsSchema();
+    }
+
+    @SubscribeMapping("/live/schema/graphics")
+    public LiveSchema graphicsSchema() {
+        return livePublisher.getGraphicsSchema();
+    }
+
+    /**
+     * Gruppi di canali disponibili per .../group/{gruppo}
+     */
+    @SubscribeMapping("/live/groups/physics")
+    public Map<String, List<String>> physicsGroups() {
+        return livePublisher.getGroups();
+    }
+}
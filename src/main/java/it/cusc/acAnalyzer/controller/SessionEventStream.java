@@ -0,0 +1,51 @@
+package it.cusc.acAnalyzer.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Stream SSE delle analisi per sessione: un evento "session" per ogni
+ * risultato appena pronto, chiuso quando tutte le analisi sono finite
+ */
+@Slf4j
+final class SessionEventStream {
+
+    private SessionEventStream() {
+    }
+
+    static SseEmitter open(long timeoutMillis, Function<Consumer<Object>, CompletableFuture<Void>> analyses) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        analyses.apply(result -> send(emitter, result))
+                .whenComplete((ignored, error) -> complete(emitter, error));
+        return emitter;
+    }
+
+    /**
+     * Invii serializzati: i risultati arrivano da più thread del pool
+     */
+    private static void send(SseEmitter emitter, Object result) {
+        synchronized (emitter) {
+            try {
+                emitter.send(SseEmitter.event().name("session").data(result));
+            } catch (IOException | IllegalStateException e) {
+                // Client disconnesso o emitter già chiuso: le analisi restanti finiscono comunque in cache
+                log.debug("Dropping partial result: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static void complete(SseEmitter emitter, Throwable error) {
+        synchronized (emitter) {
+            if (error != null) {
+                emitter.completeWithError(error);
+            } else {
+                emitter.complete();
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package it.cusc.acAnalyzer.controller;
 
+import it.cusc.acAnalyzer.model.TelemetryStats;
 import it.cusc.acAnalyzer.model.TelemetryStatus;
 import it.cusc.acAnalyzer.service.TelemetryService;
 import lombok.RequiredArgsConstructor;
@@ -33,6 +34,11 @@ public class TelemetryController {
                 .build();
         return ResponseEntity.ok(status);
     }
+
+    @GetMapping("/stats")
+    public ResponseEntity<TelemetryStats> getTelemetryStats() {
+        return ResponseEntity.ok(telemetryService.getStats());
+    }
 }
 
 
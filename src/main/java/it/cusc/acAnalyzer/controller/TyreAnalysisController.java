@@ -1,13 +1,18 @@
 package it.cusc.acAnalyzer.controller;
 
+import it.cusc.acAnalyzer.config.TelemetryProperties;
 import it.cusc.acAnalyzer.model.TyreSummary;
+import it.cusc.acAnalyzer.service.SessionComparisonService;
+import it.cusc.acAnalyzer.service.SessionComparisonService.TyreComparison;
 import it.cusc.acAnalyzer.service.TyreAnalysisService;
 import it.cusc.acAnalyzer.service.TyreAnalysisService.TyreAnalysisResult;
 import lombok.Builder;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -17,6 +22,8 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class TyreAnalysisController {
     private final TyreAnalysisService tyreAnalysisService;
+    private final SessionComparisonService sessionComparisonService;
+    private final TelemetryProperties telemetryProperties;
 
     @GetMapping("/tracks")
     public ResponseEntity<List<String>> getAvailableTracks() {
@@ -32,7 +39,25 @@ public class TyreAnalysisController {
     public ResponseEntity<List<TyreAnalysisResult>> analyzeTrackCarCombination(
             @PathVariable String track,
             @PathVariable String carModel) {
-        return ResponseEntity.ok(tyreAnalysisService.analyzeTrackCarCombination(track, carModel));
+        return ResponseEntity.ok(sessionComparisonService.analyzeTyres(track, carModel));
+    }
+
+    /**
+     * Un evento SSE per sessione, appena la sua analisi è pronta
+     */
+    @GetMapping(path = "/track/{track}/car/{carModel}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTrackCarCombination(
+            @PathVariable String track,
+            @PathVariable String carModel) {
+        return SessionEventStream.open(telemetryProperties.getComparison().getStreamTimeoutMillis(),
+                onResult -> sessionComparisonService.streamTyres(track, carModel, onResult));
+    }
+
+    @GetMapping("/track/{track}/car/{carModel}/summary")
+    public ResponseEntity<TyreComparison> compareTrackCarCombination(
+            @PathVariable String track,
+            @PathVariable String carModel) {
+        return ResponseEntity.ok(sessionComparisonService.compareTyres(track, carModel));
     }
 
     @GetMapping("/session/{sessionId}")
@@ -75,4 +100,3 @@ public class TyreAnalysisController {
         return analysis.getPressures().getAvgPressure();
     }
 }
-
@@ -1,19 +1,25 @@
 package it.cusc.acAnalyzer.core;
 
+import it.cusc.acAnalyzer.config.TelemetryProperties;
+import it.cusc.acAnalyzer.core.layout.PageLayouts;
 import it.cusc.acAnalyzer.exception.AssettoCorsaNotStartedException;
 import it.cusc.acAnalyzer.model.Graphics;
 import it.cusc.acAnalyzer.model.Physics;
+import it.cusc.acAnalyzer.model.PollerStats;
+import it.cusc.acAnalyzer.model.ReadStats;
 import it.cusc.acAnalyzer.model.StaticInfo;
 import it.cusc.acAnalyzer.model.enums.ACStatus;
 import it.cusc.acAnalyzer.model.enums.MemoryStatus;
 import lombok.extern.slf4j.Slf4j;
 import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.zip.CRC32;
 
 @Slf4j
 public class AssettoCorsa {
@@ -24,12 +30,19 @@ public class AssettoCorsa {
     private MappedByteBuffer physicsBuffer;
     private MappedByteBuffer graphicsBuffer;
     private MappedByteBuffer staticInfoBuffer;
+    private PhysicsView physicsView;
+    private ConsistentPageReader<Physics> physicsReader;
+    private ConsistentPageReader<Graphics> graphicsReader;
 
-    private Timer physicsTimer;
-    private Timer graphicsTimer;
+    private final TelemetryProperties properties;
+    private PhysicsPoller physicsPoller;
+    private PollerStats lastPollerStats;
     private Timer staticInfoTimer;
+    private final CRC32 staticInfoCrc = new CRC32();
+    private long lastStaticInfoCrc = -1;
 
     private final List<PhysicsListener> physicsListeners = new ArrayList<>();
+    private final List<PhysicsViewListener> physicsViewListeners = new ArrayList<>();
     private final List<GraphicsListener> graphicsListeners = new ArrayList<>();
     private final List<StaticInfoListener> staticInfoListeners = new ArrayList<>();
 
@@ -38,9 +51,12 @@ public class AssettoCorsa {
     private static final String STATIC_MAP_NAME = "Local\\acpmf_static";
 
     public AssettoCorsa() {
+        this(new TelemetryProperties());
+    }
+
+    public AssettoCorsa(TelemetryProperties properties) {
+        this.properties = properties;
         sharedMemoryRetryTimer = new Timer("AC-Retry");
-        physicsTimer = new Timer("AC-Physics");
-        graphicsTimer = new Timer("AC-Graphics");
         staticInfoTimer = new Timer("AC-Static");
         stop();
     }
@@ -61,12 +77,20 @@ public class AssettoCorsa {
             // Windows shared memory files
             RandomAccessFile physicsFile = new RandomAccessFile("\\\\.\\Global\\" + PHYSICS_MAP_NAME, "rw");
             physicsBuffer = physicsFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, Physics.BUFFER_SIZE);
+            physicsBuffer.order(ByteOrder.LITTLE_ENDIAN);
+            physicsView = new PhysicsView(physicsBuffer);
+            physicsReader = new ConsistentPageReader<>(physicsBuffer, PageLayouts.PHYSICS.decoder(),
+                    properties.getReader().getMaxRetries());
 
             RandomAccessFile graphicsFile = new RandomAccessFile("\\\\.\\Global\\" + GRAPHICS_MAP_NAME, "rw");
             graphicsBuffer = graphicsFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, Graphics.BUFFER_SIZE);
+            graphicsBuffer.order(ByteOrder.LITTLE_ENDIAN);
+            graphicsReader = new ConsistentPageReader<>(graphicsBuffer, PageLayouts.GRAPHICS.decoder(),
+                    properties.getReader().getMaxRetries());
 
             RandomAccessFile staticFile = new RandomAccessFile("\\\\.\\Global\\" + STATIC_MAP_NAME, "rw");
             staticInfoBuffer = staticFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, StaticInfo.BUFFER_SIZE);
+            staticInfoBuffer.order(ByteOrder.LITTLE_ENDIAN);
 
             startTimers();
 
@@ -82,23 +106,16 @@ public class AssettoCorsa {
     }
 
     private void startTimers() {
-        // Physics updates (10ms)
-        physicsTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                processPhysics();
-            }
-        }, 0, 10);
-
-        // Graphics updates (1000ms)
-        graphicsTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                processGraphics();
-            }
-        }, 0, 1000);
-
-        // Static info updates (1000ms)
+        // Physics updates: poller guidato dal packetId; sullo stesso ciclo il
+        // controllo della pagina graphics, emessa solo quando cambia
+        GraphicsWatcher graphicsWatcher = new GraphicsWatcher(graphicsBuffer, graphicsReader,
+                properties.getPoller().getGraphicsHeartbeatMillis(), this::processGraphics);
+        physicsPoller = new PhysicsPoller(physicsBuffer, properties.getPoller(), packetId -> processPhysics(),
+                graphicsWatcher);
+        physicsPoller.start();
+
+        // Static info: controllata ogni secondo, decodificata solo quando cambia
+        lastStaticInfoCrc = -1;
         staticInfoTimer.scheduleAtFixedRate(new TimerTask() {
             @Override
             public void run() {
@@ -108,13 +125,14 @@ public class AssettoCorsa {
     }
 
     private void stopTimers() {
-        physicsTimer.cancel();
-        graphicsTimer.cancel();
+        if (physicsPoller != null) {
+            physicsPoller.stop();
+            lastPollerStats = physicsPoller.getStats();
+            physicsPoller = null;
+        }
         staticInfoTimer.cancel();
 
         // Ricrea i timer
-        physicsTimer = new Timer("AC-Physics");
-        graphicsTimer = new Timer("AC-Graphics");
         staticInfoTimer = new Timer("AC-Static");
     }
 
@@ -127,6 +145,7 @@ public class AssettoCorsa {
         stopTimers();
 
         physicsBuffer = null;
+        physicsView = null;
         graphicsBuffer = null;
         staticInfoBuffer = null;
     }
@@ -135,8 +154,19 @@ public class AssettoCorsa {
         if (memoryStatus == MemoryStatus.DISCONNECTED) return;
 
         try {
-            Physics physics = readPhysics();
-            notifyPhysicsListeners(physics);
+            PhysicsView view = physicsView;
+            if (view == null) {
+                throw new AssettoCorsaNotStartedException();
+            }
+            notifyPhysicsViewListeners(view);
+
+            // La copia (unica allocazione del ciclo) serve solo a chi conserva i dati
+            if (!physicsListeners.isEmpty()) {
+                Physics physics = readPhysics();
+                if (physics != null) {
+                    notifyPhysicsListeners(physics);
+                }
+            }
         } catch (AssettoCorsaNotStartedException e) {
             log.warn("AC not running during physics update");
         } catch (Exception e) {
@@ -144,19 +174,16 @@ public class AssettoCorsa {
         }
     }
 
-    private void processGraphics() {
+    private void processGraphics(Graphics graphics) {
         if (memoryStatus == MemoryStatus.DISCONNECTED) return;
 
         try {
-            Graphics graphics = readGraphics();
             notifyGraphicsListeners(graphics);
 
             if (gameStatus != graphics.getStatus()) {
                 gameStatus = graphics.getStatus();
                 // Qui potresti aggiungere un notificatore per il cambio di stato del gioco
             }
-        } catch (AssettoCorsaNotStartedException e) {
-            log.warn("AC not running during graphics update");
         } catch (Exception e) {
             log.error("Error processing graphics update", e);
         }
@@ -166,6 +193,7 @@ public class AssettoCorsa {
         if (memoryStatus == MemoryStatus.DISCONNECTED) return;
 
         try {
+            if (!staticInfoChanged()) return;
             StaticInfo staticInfo = readStaticInfo();
             notifyStaticInfoListeners(staticInfo);
         } catch (AssettoCorsaNotStartedException e) {
@@ -175,24 +203,46 @@ public class AssettoCorsa {
         }
     }
 
+    /**
+     * CRC32 della pagina direttamente sul buffer mappato: nessuna decodifica
+     * né allocazione quando la pagina è identica a quella già emessa
+     */
+    private boolean staticInfoChanged() throws AssettoCorsaNotStartedException {
+        MappedByteBuffer buffer = staticInfoBuffer;
+        if (buffer == null) {
+            throw new AssettoCorsaNotStartedException();
+        }
+
+        staticInfoCrc.reset();
+        staticInfoCrc.update(buffer.duplicate().position(0).limit(StaticInfo.BUFFER_SIZE));
+        long crc = staticInfoCrc.getValue();
+        if (crc == lastStaticInfoCrc) {
+            return false;
+        }
+        lastStaticInfoCrc = crc;
+        return true;
+    }
+
+    /**
+     * Legge un frame physics consistente; null se il frame resta spezzato
+     * anche dopo i retry
+     */
     public Physics readPhysics() throws AssettoCorsaNotStartedException {
-        if (memoryStatus == MemoryStatus.DISCONNECTED || physicsBuffer == null) {
+        ConsistentPageReader<Physics> reader = physicsReader;
+        if (memoryStatus == MemoryStatus.DISCONNECTED || reader == null) {
             throw new AssettoCorsaNotStartedException();
         }
 
-        Physics physics = new Physics();
-        physics.readFromBuffer(physicsBuffer);
-        return physics;
+        return reader.read(new Physics());
     }
 
     public Graphics readGraphics() throws AssettoCorsaNotStartedException {
-        if (memoryStatus == MemoryStatus.DISCONNECTED || graphicsBuffer == null) {
+        ConsistentPageReader<Graphics> reader = graphicsReader;
+        if (memoryStatus == MemoryStatus.DISCONNECTED || reader == null) {
             throw new AssettoCorsaNotStartedException();
         }
 
-        Graphics graphics = new Graphics();
-        graphics.readFromBuffer(graphicsBuffer);
-        return graphics;
+        return reader.read(new Graphics());
     }
 
     public StaticInfo readStaticInfo() throws AssettoCorsaNotStartedException {
@@ -210,6 +260,10 @@ public class AssettoCorsa {
         physicsListeners.add(listener);
     }
 
+    public void addPhysicsViewListener(PhysicsViewListener listener) {
+        physicsViewListeners.add(listener);
+    }
+
     public void addGraphicsListener(GraphicsListener listener) {
         graphicsListeners.add(listener);
     }
@@ -224,6 +278,12 @@ public class AssettoCorsa {
         }
     }
 
+    private void notifyPhysicsViewListeners(PhysicsView view) {
+        for (int i = 0; i < physicsViewListeners.size(); i++) {
+            physicsViewListeners.get(i).onPhysicsFrame(view);
+        }
+    }
+
     private void notifyGraphicsListeners(Graphics graphics) {
         for (GraphicsListener listener : graphicsListeners) {
             listener.onGraphicsUpdate(graphics);
@@ -236,6 +296,21 @@ public class AssettoCorsa {
         }
     }
 
+    public PollerStats getPollerStats() {
+        PhysicsPoller poller = physicsPoller;
+        return poller != null ? poller.getStats() : lastPollerStats;
+    }
+
+    public ReadStats getPhysicsReadStats() {
+        ConsistentPageReader<Physics> reader = physicsReader;
+        return reader != null ? reader.getStats() : null;
+    }
+
+    public ReadStats getGraphicsReadStats() {
+        ConsistentPageReader<Graphics> reader = graphicsReader;
+        return reader != null ? reader.getStats() : null;
+    }
+
     public boolean isRunning() {
         return memoryStatus == MemoryStatus.CONNECTED;
     }
@@ -0,0 +1,65 @@
+package it.cusc.acAnalyzer.core;
+
+import it.cusc.acAnalyzer.core.layout.PageDecoder;
+import it.cusc.acAnalyzer.model.ReadStats;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lettura in stile seqlock di una pagina con packetId all'offset 0: il
+ * packetId viene riletto dopo la decodifica e, se il gioco ha scritto un
+ * nuovo frame nel frattempo, la lettura viene ripetuta fino a maxRetries
+ * volte. Il controllo costa una sola getInt in più per frame.
+ */
+public class ConsistentPageReader<T> {
+    private static final int PACKET_ID_OFFSET = 0;
+
+    private final ByteBuffer buffer;
+    private final FloatBuffer floats;
+    private final PageDecoder<T> decoder;
+    private final int maxRetries;
+
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong retriedReads = new AtomicLong();
+    private final AtomicLong tornReads = new AtomicLong();
+    private final AtomicLong droppedFrames = new AtomicLong();
+
+    public ConsistentPageReader(ByteBuffer buffer, PageDecoder<T> decoder, int maxRetries) {
+        this.buffer = buffer;
+        this.floats = PageDecoder.floatsOf(buffer);
+        this.decoder = decoder;
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * Decodifica la pagina in target; ritorna null se dopo tutti i tentativi
+     * la lettura risulta ancora spezzata tra due frame
+     */
+    public T read(T target) {
+        reads.incrementAndGet();
+        for (int attempt = 0; attempt <= maxRetries; attempt++) {
+            int before = buffer.getInt(PACKET_ID_OFFSET);
+            decoder.decode(buffer, floats, target);
+            if (buffer.getInt(PACKET_ID_OFFSET) == before) {
+                if (attempt > 0) {
+                    retriedReads.incrementAndGet();
+                }
+                return target;
+            }
+            tornReads.incrementAndGet();
+        }
+        droppedFrames.incrementAndGet();
+        return null;
+    }
+
+    public ReadStats getStats() {
+        return ReadStats.builder()
+                .reads(reads.get())
+                .retriedReads(retriedReads.get())
+                .tornReads(tornReads.get())
+                .droppedFrames(droppedFrames.get())
+                .build();
+    }
+}
@@ -0,0 +1,98 @@
+package it.cusc.acAnalyzer.core;
+
+import it.cusc.acAnalyzer.core.layout.PageLayouts;
+import it.cusc.acAnalyzer.model.Graphics;
+import it.cusc.acAnalyzer.model.enums.GraphicsEvent;
+
+import java.nio.ByteBuffer;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Controllo della pagina graphics sul ciclo veloce del poller physics:
+ * legge il packetId e, se è cambiato, confronta direttamente nel buffer i
+ * campi chiave (giro, settore, stato, box...). La pagina viene decodificata
+ * ed emessa solo quando uno di questi cambia, oppure allo scadere
+ * dell'heartbeat per chi mostra i tempi correnti.
+ */
+public class GraphicsWatcher implements Runnable {
+    private static final int PACKET_ID_OFFSET = 0;
+
+    private static final String[] KEY_FIELDS = {
+            "completedLaps", "currentSectorIndex", "lastSectorTime", "status", "session",
+            "isInPit", "isInPitLane", "position", "flag"};
+    private static final GraphicsEvent[] KEY_EVENTS = {
+            GraphicsEvent.LAP, GraphicsEvent.SECTOR, GraphicsEvent.SECTOR, GraphicsEvent.STATUS,
+            GraphicsEvent.SESSION, GraphicsEvent.PIT, GraphicsEvent.PIT, GraphicsEvent.POSITION,
+            GraphicsEvent.FLAG};
+    private static final int[] KEY_OFFSETS = new int[KEY_FIELDS.length];
+
+    static {
+        for (int i = 0; i < KEY_FIELDS.length; i++) {
+            KEY_OFFSETS[i] = PageLayouts.GRAPHICS.offsetOf(KEY_FIELDS[i]);
+        }
+    }
+
+    private final ByteBuffer buffer;
+    private final ConsistentPageReader<Graphics> reader;
+    private final Consumer<Graphics> handler;
+    private final long heartbeatNanos;
+
+    // Valori chiave dell'ultimo frame emesso
+    private final int[] keys = new int[KEY_FIELDS.length];
+    private final int[] current = new int[KEY_FIELDS.length];
+    private boolean first = true;
+    private int lastPacketId;
+    private long lastEmitAt;
+
+    public GraphicsWatcher(ByteBuffer buffer, ConsistentPageReader<Graphics> reader,
+                           long heartbeatMillis, Consumer<Graphics> handler) {
+        this.buffer = buffer;
+        this.reader = reader;
+        this.handler = handler;
+        this.heartbeatNanos = heartbeatMillis * 1_000_000L;
+    }
+
+    @Override
+    public void run() {
+        int packetId = buffer.getInt(PACKET_ID_OFFSET);
+        if (!first && packetId == lastPacketId) return;
+
+        // Un bit per campo chiave cambiato: nessuna allocazione finché non si emette
+        int changed = 0;
+        for (int i = 0; i < KEY_OFFSETS.length; i++) {
+            current[i] = buffer.getInt(KEY_OFFSETS[i]);
+            if (first || current[i] != keys[i]) {
+                changed |= 1 << i;
+            }
+        }
+        long now = System.nanoTime();
+        if (changed == 0 && (heartbeatNanos <= 0 || now - lastEmitAt < heartbeatNanos)) {
+            lastPacketId = packetId;
+            return;
+        }
+
+        // Frame spezzato anche dopo i retry: si riprova al prossimo ciclo
+        Graphics graphics = reader.read(new Graphics());
+        if (graphics == null) return;
+
+        // Una lettura grezza spezzata al massimo anticipa un'emissione al ciclo successivo
+        System.arraycopy(current, 0, keys, 0, keys.length);
+        first = false;
+        lastPacketId = graphics.getPacketId();
+        lastEmitAt = now;
+
+        Set<GraphicsEvent> events = EnumSet.noneOf(GraphicsEvent.class);
+        for (int i = 0; i < KEY_EVENTS.length; i++) {
+            if ((changed & (1 << i)) != 0) {
+                events.add(KEY_EVENTS[i]);
+            }
+        }
+        if (events.isEmpty()) {
+            events.add(GraphicsEvent.HEARTBEAT);
+        }
+        graphics.setEvents(events);
+        handler.accept(graphics);
+    }
+}
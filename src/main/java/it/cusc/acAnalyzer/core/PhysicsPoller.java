@@ -0,0 +1,200 @@
+package it.cusc.acAnalyzer.core;
+
+import it.cusc.acAnalyzer.config.TelemetryProperties;
+import it.cusc.acAnalyzer.model.PollerStats;
+import it.cusc.acAnalyzer.model.enums.PollStrategy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntConsumer;
+
+/**
+ * Poller dedicato della pagina physics: legge il packetId all'offset 0 e
+ * inoltra il frame solo quando cambia. Le scadenze sono calcolate a partire
+ * dalla precedente (non da "adesso"), quindi il periodo non accumula drift.
+ */
+@Slf4j
+public class PhysicsPoller implements Runnable {
+    private static final int PACKET_ID_OFFSET = 0;
+
+    private final ByteBuffer buffer;
+    private final IntConsumer frameHandler;
+    private final Runnable companion;
+    private final PollStrategy strategy;
+    private final long periodNanos;
+    private final int spinPolls;
+    private final int yieldPolls;
+    private final long maxBackoffNanos;
+    private final long spinWindowNanos;
+
+    private final AtomicLong polls = new AtomicLong();
+    private final AtomicLong framesSeen = new AtomicLong();
+    private final AtomicLong framesDuplicated = new AtomicLong();
+    private final AtomicLong framesSkipped = new AtomicLong();
+    private final AtomicLong overruns = new AtomicLong();
+    private volatile int lastPacketId;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public PhysicsPoller(ByteBuffer buffer, TelemetryProperties.Poller config, IntConsumer frameHandler) {
+        this(buffer, config, frameHandler, null);
+    }
+
+    /**
+     * @param companion controllo eseguito a ogni ciclo, anche senza nuovi frame
+     *                  physics (es. la pagina graphics); deve essere economico
+     */
+    public PhysicsPoller(ByteBuffer buffer, TelemetryProperties.Poller config, IntConsumer frameHandler,
+                         Runnable companion) {
+        this.buffer = buffer;
+        this.frameHandler = frameHandler;
+        this.companion = companion;
+        this.strategy = config.getStrategy();
+        this.periodNanos = TimeUnit.MICROSECONDS.toNanos(config.getPeriodMicros());
+        this.spinPolls = config.getSpinPolls();
+        this.yieldPolls = config.getYieldPolls();
+        this.maxBackoffNanos = TimeUnit.MICROSECONDS.toNanos(config.getMaxBackoffMicros());
+        this.spinWindowNanos = TimeUnit.MICROSECONDS.toNanos(config.getSpinWindowMicros());
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        thread = new Thread(this, "AC-Physics");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            if (thread != Thread.currentThread()) {
+                try {
+                    thread.join(TimeUnit.NANOSECONDS.toMillis(maxBackoffNanos) + 1000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            thread = null;
+        }
+    }
+
+    @Override
+    public void run() {
+        boolean first = true;
+        int previousPacketId = 0;
+        int idlePolls = 0;
+        long deadline = System.nanoTime();
+
+        while (running) {
+            polls.incrementAndGet();
+            int packetId = buffer.getInt(PACKET_ID_OFFSET);
+
+            if (first || packetId != previousPacketId) {
+                if (!first) {
+                    int gap = packetId - previousPacketId - 1;
+                    if (gap > 0) {
+                        framesSkipped.addAndGet(gap);
+                    }
+                }
+                first = false;
+                previousPacketId = packetId;
+                lastPacketId = packetId;
+                idlePolls = 0;
+                framesSeen.incrementAndGet();
+                dispatch(packetId);
+            } else {
+                framesDuplicated.incrementAndGet();
+                idlePolls++;
+            }
+            runCompanion();
+
+            deadline += nextPeriod(idlePolls);
+            long now = System.nanoTime();
+            if (now - deadline > periodNanos) {
+                // In ritardo di più di un periodo: riallinea invece di recuperare a raffica
+                overruns.incrementAndGet();
+                deadline = now;
+            }
+            waitUntil(deadline, idlePolls);
+        }
+    }
+
+    private void dispatch(int packetId) {
+        try {
+            frameHandler.accept(packetId);
+        } catch (Exception e) {
+            log.error("Error dispatching physics frame {}", packetId, e);
+        }
+    }
+
+    private void runCompanion() {
+        if (companion == null) return;
+        try {
+            companion.run();
+        } catch (Exception e) {
+            log.error("Error in poller companion check", e);
+        }
+    }
+
+    private long nextPeriod(int idlePolls) {
+        if (strategy != PollStrategy.ADAPTIVE_BACKOFF || idlePolls <= yieldPolls) {
+            return periodNanos;
+        }
+        // Simulatore fermo o in pausa: raddoppia il periodo fino al massimo consentito
+        int shift = Math.min(idlePolls - yieldPolls, 16);
+        return Math.max(periodNanos, Math.min(periodNanos << shift, maxBackoffNanos));
+    }
+
+    private void waitUntil(long deadline, int idlePolls) {
+        switch (strategy) {
+            case BUSY_SPIN -> spinUntil(deadline);
+            case PARK_NANOS -> parkUntil(deadline);
+            case ADAPTIVE_BACKOFF -> {
+                // Si attende parcheggiati per gran parte del periodo: spin e yield
+                // coprono solo la finestra finale, dove il risveglio deve essere preciso
+                if (idlePolls < spinPolls) {
+                    parkUntil(deadline - spinWindowNanos);
+                    spinUntil(deadline);
+                } else if (idlePolls < yieldPolls) {
+                    parkUntil(deadline - spinWindowNanos);
+                    while (running && System.nanoTime() < deadline) {
+                        Thread.yield();
+                    }
+                } else {
+                    parkUntil(deadline);
+                }
+            }
+        }
+    }
+
+    private void spinUntil(long deadline) {
+        while (running && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private void parkUntil(long deadline) {
+        long remaining;
+        while (running && (remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+        }
+    }
+
+    public PollerStats getStats() {
+        return PollerStats.builder()
+                .strategy(strategy)
+                .polls(polls.get())
+                .framesSeen(framesSeen.get())
+                .framesDuplicated(framesDuplicated.get())
+                .framesSkipped(framesSkipped.get())
+                .overruns(overruns.get())
+                .lastPacketId(lastPacketId)
+                .build();
+    }
+}
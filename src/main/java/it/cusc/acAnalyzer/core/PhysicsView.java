@@ -0,0 +1,421 @@
+package it.cusc.acAnalyzer.core;
+
+import it.cusc.acAnalyzer.core.layout.PageLayouts;
+import it.cusc.acAnalyzer.model.Coordinates;
+import it.cusc.acAnalyzer.model.Physics;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Vista flyweight sulla pagina physics: ogni accessor legge il campo
+ * all'offset assoluto direttamente dal buffer mappato, senza allocare.
+ * Chi deve conservare i dati oltre il frame corrente usa {@link #copyTo}
+ * o {@link #snapshot()}.
+ */
+public class PhysicsView {
+    private static final int PACKET_ID = PageLayouts.PHYSICS.offsetOf("packetId");
+    private static final int GAS = PageLayouts.PHYSICS.offsetOf("gas");
+    private static final int BRAKE = PageLayouts.PHYSICS.offsetOf("brake");
+    private static final int FUEL = PageLayouts.PHYSICS.offsetOf("fuel");
+    private static final int GEAR = PageLayouts.PHYSICS.offsetOf("gear");
+    private static final int RPMS = PageLayouts.PHYSICS.offsetOf("rpms");
+    private static final int STEER_ANGLE = PageLayouts.PHYSICS.offsetOf("steerAngle");
+    private static final int SPEED_KMH = PageLayouts.PHYSICS.offsetOf("speedKmh");
+    private static final int VELOCITY = PageLayouts.PHYSICS.offsetOf("velocity");
+    private static final int ACC_G = PageLayouts.PHYSICS.offsetOf("accG");
+    private static final int WHEEL_SLIP = PageLayouts.PHYSICS.offsetOf("wheelSlip");
+    private static final int WHEEL_LOAD = PageLayouts.PHYSICS.offsetOf("wheelLoad");
+    private static final int WHEELS_PRESSURE = PageLayouts.PHYSICS.offsetOf("wheelsPressure");
+    private static final int WHEEL_ANGULAR_SPEED = PageLayouts.PHYSICS.offsetOf("wheelAngularSpeed");
+    private static final int TYRE_WEAR = PageLayouts.PHYSICS.offsetOf("tyreWear");
+    private static final int TYRE_DIRTY_LEVEL = PageLayouts.PHYSICS.offsetOf("tyreDirtyLevel");
+    private static final int TYRE_CORE_TEMPERATURE = PageLayouts.PHYSICS.offsetOf("tyreCoreTemperature");
+    private static final int CAMBER_RAD = PageLayouts.PHYSICS.offsetOf("camberRad");
+    private static final int SUSPENSION_TRAVEL = PageLayouts.PHYSICS.offsetOf("suspensionTravel");
+    private static final int DRS = PageLayouts.PHYSICS.offsetOf("drs");
+    private static final int TC = PageLayouts.PHYSICS.offsetOf("tc");
+    private static final int HEADING = PageLayouts.PHYSICS.offsetOf("heading");
+    private static final int PITCH = PageLayouts.PHYSICS.offsetOf("pitch");
+    private static final int ROLL = PageLayouts.PHYSICS.offsetOf("roll");
+    private static final int CG_HEIGHT = PageLayouts.PHYSICS.offsetOf("cgHeight");
+    private static final int CAR_DAMAGE = PageLayouts.PHYSICS.offsetOf("carDamage");
+    private static final int NUMBER_OF_TYRES_OUT = PageLayouts.PHYSICS.offsetOf("numberOfTyresOut");
+    private static final int PIT_LIMITER_ON = PageLayouts.PHYSICS.offsetOf("pitLimiterOn");
+    private static final int ABS = PageLayouts.PHYSICS.offsetOf("abs");
+    private static final int KERS_CHARGE = PageLayouts.PHYSICS.offsetOf("kersCharge");
+    private static final int KERS_INPUT = PageLayouts.PHYSICS.offsetOf("kersInput");
+    private static final int AUTO_SHIFTER_ON = PageLayouts.PHYSICS.offsetOf("autoShifterOn");
+    private static final int RIDE_HEIGHT = PageLayouts.PHYSICS.offsetOf("rideHeight");
+    private static final int TURBO_BOOST = PageLayouts.PHYSICS.offsetOf("turboBoost");
+    private static final int BALLAST = PageLayouts.PHYSICS.offsetOf("ballast");
+    private static final int AIR_DENSITY = PageLayouts.PHYSICS.offsetOf("airDensity");
+    private static final int AIR_TEMP = PageLayouts.PHYSICS.offsetOf("airTemp");
+    private static final int ROAD_TEMP = PageLayouts.PHYSICS.offsetOf("roadTemp");
+    private static final int LOCAL_ANGULAR_VELOCITY = PageLayouts.PHYSICS.offsetOf("localAngularVelocity");
+    private static final int FINAL_FF = PageLayouts.PHYSICS.offsetOf("finalFF");
+    private static final int PERFORMANCE_METER = PageLayouts.PHYSICS.offsetOf("performanceMeter");
+    private static final int ENGINE_BRAKE = PageLayouts.PHYSICS.offsetOf("engineBrake");
+    private static final int ERS_RECOVERY_LEVEL = PageLayouts.PHYSICS.offsetOf("ersRecoveryLevel");
+    private static final int ERS_POWER_LEVEL = PageLayouts.PHYSICS.offsetOf("ersPowerLevel");
+    private static final int ERS_HEAT_CHARGING = PageLayouts.PHYSICS.offsetOf("ersHeatCharging");
+    private static final int ERS_IS_CHARGING = PageLayouts.PHYSICS.offsetOf("ersIsCharging");
+    private static final int KERS_CURRENT_KJ = PageLayouts.PHYSICS.offsetOf("kersCurrentKJ");
+    private static final int DRS_AVAILABLE = PageLayouts.PHYSICS.offsetOf("drsAvailable");
+    private static final int DRS_ENABLED = PageLayouts.PHYSICS.offsetOf("drsEnabled");
+    private static final int BRAKE_TEMP = PageLayouts.PHYSICS.offsetOf("brakeTemp");
+    private static final int CLUTCH = PageLayouts.PHYSICS.offsetOf("clutch");
+    private static final int TYRE_TEMP_I = PageLayouts.PHYSICS.offsetOf("tyreTempI");
+    private static final int TYRE_TEMP_M = PageLayouts.PHYSICS.offsetOf("tyreTempM");
+    private static final int TYRE_TEMP_O = PageLayouts.PHYSICS.offsetOf("tyreTempO");
+    private static final int IS_AI_CONTROLLED = PageLayouts.PHYSICS.offsetOf("isAIControlled");
+    private static final int TYRE_CONTACT_POINT = PageLayouts.PHYSICS.offsetOf("tyreContactPoint");
+    private static final int TYRE_CONTACT_NORMAL = PageLayouts.PHYSICS.offsetOf("tyreContactNormal");
+    private static final int TYRE_CONTACT_HEADING = PageLayouts.PHYSICS.offsetOf("tyreContactHeading");
+    private static final int BRAKE_BIAS = PageLayouts.PHYSICS.offsetOf("brakeBias");
+    private static final int LOCAL_VELOCITY = PageLayouts.PHYSICS.offsetOf("localVelocity");
+    public static final int SIZE = PageLayouts.PHYSICS.size();
+
+    private final ByteBuffer buffer;
+
+    public PhysicsView(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    public int packetId() {
+        return buffer.getInt(PACKET_ID);
+    }
+
+    public float gas() {
+        return buffer.getFloat(GAS);
+    }
+
+    public float brake() {
+        return buffer.getFloat(BRAKE);
+    }
+
+    public float fuel() {
+        return buffer.getFloat(FUEL);
+    }
+
+    public int gear() {
+        return buffer.getInt(GEAR);
+    }
+
+    public int rpms() {
+        return buffer.getInt(RPMS);
+    }
+
+    public float steerAngle() {
+        return buffer.getFloat(STEER_ANGLE);
+    }
+
+    public float speedKmh() {
+        return buffer.getFloat(SPEED_KMH);
+    }
+
+    public float velocity(int index) {
+        return buffer.getFloat(VELOCITY + index * 4);
+    }
+
+    public float accG(int index) {
+        return buffer.getFloat(ACC_G + index * 4);
+    }
+
+    public float wheelSlip(int index) {
+        return buffer.getFloat(WHEEL_SLIP + index * 4);
+    }
+
+    public float wheelLoad(int index) {
+        return buffer.getFloat(WHEEL_LOAD + index * 4);
+    }
+
+    public float wheelsPressure(int index) {
+        return buffer.getFloat(WHEELS_PRESSURE + index * 4);
+    }
+
+    public float wheelAngularSpeed(int index) {
+        return buffer.getFloat(WHEEL_ANGULAR_SPEED + index * 4);
+    }
+
+    public float tyreWear(int index) {
+        return buffer.getFloat(TYRE_WEAR + index * 4);
+    }
+
+    public float tyreDirtyLevel(int index) {
+        return buffer.getFloat(TYRE_DIRTY_LEVEL + index * 4);
+    }
+
+    public float tyreCoreTemperature(int index) {
+        return buffer.getFloat(TYRE_CORE_TEMPERATURE + index * 4);
+    }
+
+    public float camberRad(int index) {
+        return buffer.getFloat(CAMBER_RAD + index * 4);
+    }
+
+    public float suspensionTravel(int index) {
+        return buffer.getFloat(SUSPENSION_TRAVEL + index * 4);
+    }
+
+    public float drs() {
+        return buffer.getFloat(DRS);
+    }
+
+    public float tc() {
+        return buffer.getFloat(TC);
+    }
+
+    public float heading() {
+        return buffer.getFloat(HEADING);
+    }
+
+    public float pitch() {
+        return buffer.getFloat(PITCH);
+    }
+
+    public float roll() {
+        return buffer.getFloat(ROLL);
+    }
+
+    public float cgHeight() {
+        return buffer.getFloat(CG_HEIGHT);
+    }
+
+    public float carDamage(int index) {
+        return buffer.getFloat(CAR_DAMAGE + index * 4);
+    }
+
+    public int numberOfTyresOut() {
+        return buffer.getInt(NUMBER_OF_TYRES_OUT);
+    }
+
+    public int pitLimiterOn() {
+        return buffer.getInt(PIT_LIMITER_ON);
+    }
+
+    public float abs() {
+        return buffer.getFloat(ABS);
+    }
+
+    public float kersCharge() {
+        return buffer.getFloat(KERS_CHARGE);
+    }
+
+    public float kersInput() {
+        return buffer.getFloat(KERS_INPUT);
+    }
+
+    public int autoShifterOn() {
+        return buffer.getInt(AUTO_SHIFTER_ON);
+    }
+
+    public float rideHeight(int index) {
+        return buffer.getFloat(RIDE_HEIGHT + index * 4);
+    }
+
+    public float turboBoost() {
+        return buffer.getFloat(TURBO_BOOST);
+    }
+
+    public float ballast() {
+        return buffer.getFloat(BALLAST);
+    }
+
+    public float airDensity() {
+        return buffer.getFloat(AIR_DENSITY);
+    }
+
+    public float airTemp() {
+        return buffer.getFloat(AIR_TEMP);
+    }
+
+    public float roadTemp() {
+        return buffer.getFloat(ROAD_TEMP);
+    }
+
+    public float localAngularVelocity(int index) {
+        return buffer.getFloat(LOCAL_ANGULAR_VELOCITY + index * 4);
+    }
+
+    public float finalFF() {
+        return buffer.getFloat(FINAL_FF);
+    }
+
+    public float performanceMeter() {
+        return buffer.getFloat(PERFORMANCE_METER);
+    }
+
+    public int engineBrake() {
+        return buffer.getInt(ENGINE_BRAKE);
+    }
+
+    public int ersRecoveryLevel() {
+        return buffer.getInt(ERS_RECOVERY_LEVEL);
+    }
+
+    public int ersPowerLevel() {
+        return buffer.getInt(ERS_POWER_LEVEL);
+    }
+
+    public int ersHeatCharging() {
+        return buffer.getInt(ERS_HEAT_CHARGING);
+    }
+
+    public int ersIsCharging() {
+        return buffer.getInt(ERS_IS_CHARGING);
+    }
+
+    public float kersCurrentKJ() {
+        return buffer.getFloat(KERS_CURRENT_KJ);
+    }
+
+    public int drsAvailable() {
+        return buffer.getInt(DRS_AVAILABLE);
+    }
+
+    public int drsEnabled() {
+        return buffer.getInt(DRS_ENABLED);
+    }
+
+    public float brakeTemp(int index) {
+        return buffer.getFloat(BRAKE_TEMP + index * 4);
+    }
+
+    public float clutch() {
+        return buffer.getFloat(CLUTCH);
+    }
+
+    public float tyreTempI(int index) {
+        return buffer.getFloat(TYRE_TEMP_I + index * 4);
+    }
+
+    public float tyreTempM(int index) {
+        return buffer.getFloat(TYRE_TEMP_M + index * 4);
+    }
+
+    public float tyreTempO(int index) {
+        return buffer.getFloat(TYRE_TEMP_O + index * 4);
+    }
+
+    public int isAIControlled() {
+        return buffer.getInt(IS_AI_CONTROLLED);
+    }
+
+    public float tyreContactPoint(int wheel, int axis) {
+        return buffer.getFloat(TYRE_CONTACT_POINT + (wheel * 3 + axis) * 4);
+    }
+
+    public float tyreContactNormal(int wheel, int axis) {
+        return buffer.getFloat(TYRE_CONTACT_NORMAL + (wheel * 3 + axis) * 4);
+    }
+
+    public float tyreContactHeading(int wheel, int axis) {
+        return buffer.getFloat(TYRE_CONTACT_HEADING + (wheel * 3 + axis) * 4);
+    }
+
+    public float brakeBias() {
+        return buffer.getFloat(BRAKE_BIAS);
+    }
+
+    public float localVelocity(int index) {
+        return buffer.getFloat(LOCAL_VELOCITY + index * 4);
+    }
+
+    /**
+     * Copia il frame corrente in un oggetto esistente, riusando array e
+     * Coordinates già presenti nel target
+     */
+    public Physics copyTo(Physics target) {
+        target.setPacketId(packetId());
+        target.setGas(gas());
+        target.setBrake(brake());
+        target.setFuel(fuel());
+        target.setGear(gear());
+        target.setRpms(rpms());
+        target.setSteerAngle(steerAngle());
+        target.setSpeedKmh(speedKmh());
+        target.setVelocity(copyFloats(VELOCITY, target.getVelocity(), 3));
+        target.setAccG(copyFloats(ACC_G, target.getAccG(), 3));
+        target.setWheelSlip(copyFloats(WHEEL_SLIP, target.getWheelSlip(), 4));
+        target.setWheelLoad(copyFloats(WHEEL_LOAD, target.getWheelLoad(), 4));
+        target.setWheelsPressure(copyFloats(WHEELS_PRESSURE, target.getWheelsPressure(), 4));
+        target.setWheelAngularSpeed(copyFloats(WHEEL_ANGULAR_SPEED, target.getWheelAngularSpeed(), 4));
+        target.setTyreWear(copyFloats(TYRE_WEAR, target.getTyreWear(), 4));
+        target.setTyreDirtyLevel(copyFloats(TYRE_DIRTY_LEVEL, target.getTyreDirtyLevel(), 4));
+        target.setTyreCoreTemperature(copyFloats(TYRE_CORE_TEMPERATURE, target.getTyreCoreTemperature(), 4));
+        target.setCamberRad(copyFloats(CAMBER_RAD, target.getCamberRad(), 4));
+        target.setSuspensionTravel(copyFloats(SUSPENSION_TRAVEL, target.getSuspensionTravel(), 4));
+        target.setDrs(drs());
+        target.setTc(tc());
+        target.setHeading(heading());
+        target.setPitch(pitch());
+        target.setRoll(roll());
+        target.setCgHeight(cgHeight());
+        target.setCarDamage(copyFloats(CAR_DAMAGE, target.getCarDamage(), 5));
+        target.setNumberOfTyresOut(numberOfTyresOut());
+        target.setPitLimiterOn(pitLimiterOn());
+        target.setAbs(abs());
+        target.setKersCharge(kersCharge());
+        target.setKersInput(kersInput());
+        target.setAutoShifterOn(autoShifterOn());
+        target.setRideHeight(copyFloats(RIDE_HEIGHT, target.getRideHeight(), 2));
+        target.setTurboBoost(turboBoost());
+        target.setBallast(ballast());
+        target.setAirDensity(airDensity());
+        target.setAirTemp(airTemp());
+        target.setRoadTemp(roadTemp());
+        target.setLocalAngularVelocity(copyFloats(LOCAL_ANGULAR_VELOCITY, target.getLocalAngularVelocity(), 3));
+        target.setFinalFF(finalFF());
+        target.setPerformanceMeter(performanceMeter());
+        target.setEngineBrake(engineBrake());
+        target.setErsRecoveryLevel(ersRecoveryLevel());
+        target.setErsPowerLevel(ersPowerLevel());
+        target.setErsHeatCharging(ersHeatCharging());
+        target.setErsIsCharging(ersIsCharging());
+        target.setKersCurrentKJ(kersCurrentKJ());
+        target.setDrsAvailable(drsAvailable());
+        target.setDrsEnabled(drsEnabled());
+        target.setBrakeTemp(copyFloats(BRAKE_TEMP, target.getBrakeTemp(), 4));
+        target.setClutch(clutch());
+        target.setTyreTempI(copyFloats(TYRE_TEMP_I, target.getTyreTempI(), 4));
+        target.setTyreTempM(copyFloats(TYRE_TEMP_M, target.getTyreTempM(), 4));
+        target.setTyreTempO(copyFloats(TYRE_TEMP_O, target.getTyreTempO(), 4));
+        target.setIsAIControlled(isAIControlled());
+        target.setTyreContactPoint(copyCoordinates(TYRE_CONTACT_POINT, target.getTyreContactPoint()));
+        target.setTyreContactNormal(copyCoordinates(TYRE_CONTACT_NORMAL, target.getTyreContactNormal()));
+        target.setTyreContactHeading(copyCoordinates(TYRE_CONTACT_HEADING, target.getTyreContactHeading()));
+        target.setBrakeBias(brakeBias());
+        target.setLocalVelocity(copyFloats(LOCAL_VELOCITY, target.getLocalVelocity(), 3));
+        return target;
+    }
+
+    public Physics snapshot() {
+        return copyTo(new Physics());
+    }
+
+    private float[] copyFloats(int offset, float[] target, int length) {
+        if (target == null || target.length != length) {
+            target = new float[length];
+        }
+        for (int i = 0; i < length; i++) {
+            target[i] = buffer.getFloat(offset + i * 4);
+        }
+        return target;
+    }
+
+    private Coordinates[] copyCoordinates(int offset, Coordinates[] target) {
+        if (target == null || target.length != 4) {
+            target = new Coordinates[4];
+        }
+        for (int i = 0; i < target.length; i++) {
+            if (target[i] == null) {
+                target[i] = new Coordinates();
+            }
+            int base = offset + i * 12;
+            target[i].setX(buffer.getFloat(base));
+            target[i].setY(buffer.getFloat(base + 4));
+            target[i].setZ(buffer.getFloat(base + 8));
+        }
+        return target;
+    }
+}
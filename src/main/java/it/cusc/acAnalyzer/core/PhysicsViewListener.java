@@ -0,0 +1,11 @@
+package it.cusc.acAnalyzer.core;
+
+/**
+ * Listener che riceve la vista flyweight del frame corrente. La vista è
+ * valida solo durante la chiamata: per conservare i dati usare copyTo/snapshot.
+ * La pagina non viene riletta per verificarne il packetId, quindi il frame
+ * può essere spezzato: chi ha bisogno di dati consistenti usa PhysicsListener.
+ */
+public interface PhysicsViewListener {
+    void onPhysicsFrame(PhysicsView view);
+}
@@ -0,0 +1,28 @@
+package it.cusc.acAnalyzer.core.codec;
+
+/**
+ * Lettura di sequenze di bit scritte da {@link BitWriter}
+ */
+public class BitReader {
+    private final byte[] bytes;
+    private long position;
+
+    public BitReader(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    public boolean readBit() {
+        int index = (int) (position >>> 3);
+        boolean bit = (bytes[index] & (0x80 >>> (position & 7))) != 0;
+        position++;
+        return bit;
+    }
+
+    public long readBits(int count) {
+        long value = 0;
+        for (int i = 0; i < count; i++) {
+            value = (value << 1) | (readBit() ? 1L : 0L);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,48 @@
+package it.cusc.acAnalyzer.core.codec;
+
+import java.util.Arrays;
+
+/**
+ * Scrittura di sequenze di bit, MSB first
+ */
+public class BitWriter {
+    private byte[] bytes;
+    private long bitCount;
+
+    public BitWriter(int initialBytes) {
+        this.bytes = new byte[Math.max(8, initialBytes)];
+    }
+
+    public void writeBit(boolean bit) {
+        writeBits(bit ? 1 : 0, 1);
+    }
+
+    /**
+     * Scrive i count bit meno significativi di value (count da 0 a 64)
+     */
+    public void writeBits(long value, int count) {
+        ensureCapacity(bitCount + count);
+        for (int i = count - 1; i >= 0; i--) {
+            if (((value >>> i) & 1L) != 0) {
+                int index = (int) (bitCount >>> 3);
+                bytes[index] |= (byte) (0x80 >>> (bitCount & 7));
+            }
+            bitCount++;
+        }
+    }
+
+    private void ensureCapacity(long bits) {
+        int needed = (int) ((bits + 7) >>> 3);
+        if (needed > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(needed, bytes.length * 2));
+        }
+    }
+
+    public long bitCount() {
+        return bitCount;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, (int) ((bitCount + 7) >>> 3));
+    }
+}
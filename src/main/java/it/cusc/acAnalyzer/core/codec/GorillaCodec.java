@@ -0,0 +1,217 @@
+package it.cusc.acAnalyzer.core.codec;
+
+import java.util.Arrays;
+
+/**
+ * Compressione in stile Gorilla per canali di telemetria:
+ * delta-of-delta per timestamp e interi, XOR per i float.
+ * Lo stride permette di codificare un canale array (es. 4 ruote) in ordine
+ * di riga: ogni elemento dell'array mantiene il proprio stato, così lo XOR
+ * avviene sempre tra valori successivi della stessa ruota.
+ */
+public final class GorillaCodec {
+
+    private GorillaCodec() {
+    }
+
+    /**
+     * Delta-of-delta con codifica a prefisso dei valori zigzag:
+     * '0' | '10'+7 bit | '110'+9 bit | '1110'+12 bit | '1111'+64 bit
+     */
+    public static class LongEncoder {
+        private final BitWriter out;
+        private final int stride;
+        private final long[] previous;
+        private final long[] previousDelta;
+        private int index;
+        private long written;
+
+        public LongEncoder(int stride, int expectedValues) {
+            this.out = new BitWriter(expectedValues);
+            this.stride = stride;
+            this.previous = new long[stride];
+            this.previousDelta = new long[stride];
+        }
+
+        public void write(long value) {
+            int slot = index;
+            if (written < stride) {
+                out.writeBits(value, 64);
+            } else {
+                long delta = value - previous[slot];
+                long deltaOfDelta = delta - previousDelta[slot];
+                long zigzag = (deltaOfDelta << 1) ^ (deltaOfDelta >> 63);
+                if (zigzag == 0) {
+                    out.writeBit(false);
+                } else if (zigzag >>> 7 == 0) {
+                    out.writeBits(0b10, 2);
+                    out.writeBits(zigzag, 7);
+                } else if (zigzag >>> 9 == 0) {
+                    out.writeBits(0b110, 3);
+                    out.writeBits(zigzag, 9);
+                } else if (zigzag >>> 12 == 0) {
+                    out.writeBits(0b1110, 4);
+                    out.writeBits(zigzag, 12);
+                } else {
+                    out.writeBits(0b1111, 4);
+                    out.writeBits(zigzag, 64);
+                }
+                previousDelta[slot] = delta;
+            }
+            previous[slot] = value;
+            written++;
+            index = (index + 1) % stride;
+        }
+
+        public byte[] toByteArray() {
+            return out.toByteArray();
+        }
+    }
+
+    public static class LongDecoder {
+        private final BitReader in;
+        private final int stride;
+        private final long[] previous;
+        private final long[] previousDelta;
+        private int index;
+        private long read;
+
+        public LongDecoder(byte[] bytes, int stride) {
+            this.in = new BitReader(bytes);
+            this.stride = stride;
+            this.previous = new long[stride];
+            this.previousDelta = new long[stride];
+        }
+
+        public long next() {
+            int slot = index;
+            long value;
+            if (read < stride) {
+                value = in.readBits(64);
+            } else {
+                long zigzag;
+                if (!in.readBit()) {
+                    zigzag = 0;
+                } else if (!in.readBit()) {
+                    zigzag = in.readBits(7);
+                } else if (!in.readBit()) {
+                    zigzag = in.readBits(9);
+                } else if (!in.readBit()) {
+                    zigzag = in.readBits(12);
+                } else {
+                    zigzag = in.readBits(64);
+                }
+                long deltaOfDelta = (zigzag >>> 1) ^ -(zigzag & 1);
+                long delta = previousDelta[slot] + deltaOfDelta;
+                value = previous[slot] + delta;
+                previousDelta[slot] = delta;
+            }
+            previous[slot] = value;
+            read++;
+            index = (index + 1) % stride;
+            return value;
+        }
+    }
+
+    /**
+     * XOR con il valore precedente: '0' se uguale, altrimenti '10' + bit
+     * significativi nella finestra precedente, o '11' + 5 bit di zeri iniziali
+     * + 5 bit di lunghezza - 1 + bit significativi
+     */
+    public static class FloatEncoder {
+        private final BitWriter out;
+        private final int stride;
+        private final int[] previous;
+        private final int[] previousLeading;
+        private final int[] previousTrailing;
+        private int index;
+        private long written;
+
+        public FloatEncoder(int stride, int expectedValues) {
+            this.out = new BitWriter(expectedValues);
+            this.stride = stride;
+            this.previous = new int[stride];
+            this.previousLeading = new int[stride];
+            this.previousTrailing = new int[stride];
+            Arrays.fill(previousLeading, -1);
+        }
+
+        public void write(float value) {
+            int slot = index;
+            int bits = Float.floatToRawIntBits(value);
+            if (written < stride) {
+                out.writeBits(bits, 32);
+            } else {
+                int xor = bits ^ previous[slot];
+                if (xor == 0) {
+                    out.writeBit(false);
+                } else {
+                    int leading = Math.min(Integer.numberOfLeadingZeros(xor), 31);
+                    int trailing = Integer.numberOfTrailingZeros(xor);
+                    if (previousLeading[slot] >= 0
+                            && leading >= previousLeading[slot] && trailing >= previousTrailing[slot]) {
+                        int significant = 32 - previousLeading[slot] - previousTrailing[slot];
+                        out.writeBits(0b10, 2);
+                        out.writeBits(xor >>> previousTrailing[slot], significant);
+                    } else {
+                        int significant = 32 - leading - trailing;
+                        out.writeBits(0b11, 2);
+                        out.writeBits(leading, 5);
+                        out.writeBits(significant - 1, 5);
+                        out.writeBits(xor >>> trailing, significant);
+                        previousLeading[slot] = leading;
+                        previousTrailing[slot] = trailing;
+                    }
+                }
+            }
+            previous[slot] = bits;
+            written++;
+            index = (index + 1) % stride;
+        }
+
+        public byte[] toByteArray() {
+            return out.toByteArray();
+        }
+    }
+
+    public static class FloatDecoder {
+        private final BitReader in;
+        private final int stride;
+        private final int[] previous;
+        private final int[] previousLeading;
+        private final int[] previousTrailing;
+        private int index;
+        private long read;
+
+        public FloatDecoder(byte[] bytes, int stride) {
+            this.in = new BitReader(bytes);
+            this.stride = stride;
+            this.previous = new int[stride];
+            this.previousLeading = new int[stride];
+            this.previousTrailing = new int[stride];
+        }
+
+        public float next() {
+            int slot = index;
+            int bits;
+            if (read < stride) {
+                bits = (int) in.readBits(32);
+            } else if (!in.readBit()) {
+                bits = previous[slot];
+            } else {
+                if (in.readBit()) {
+                    previousLeading[slot] = (int) in.readBits(5);
+                    int significant = (int) in.readBits(5) + 1;
+                    previousTrailing[slot] = 32 - previousLeading[slot] - significant;
+                }
+                int significant = 32 - previousLeading[slot] - previousTrailing[slot];
+                int xor = (int) in.readBits(significant) << previousTrailing[slot];
+                bits = previous[slot] ^ xor;
+            }
+            previous[slot] = bits;
+            read++;
+            index = (index + 1) % stride;
+            return Float.intBitsToFloat(bits);
+        }
+    }
+}
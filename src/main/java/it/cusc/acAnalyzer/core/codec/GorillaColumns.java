@@ -0,0 +1,142 @@
+package it.cusc.acAnalyzer.core.codec;
+
+import it.cusc.acAnalyzer.core.layout.FieldType;
+import it.cusc.acAnalyzer.core.layout.PageField;
+import it.cusc.acAnalyzer.core.layout.PageLayout;
+import it.cusc.acAnalyzer.model.Coordinates;
+
+import java.util.*;
+
+/**
+ * Codifica Gorilla delle colonne prodotte da un ColumnBuffer: un byte[] per
+ * canale, decodificabile riga per riga con un {@link Cursor} senza
+ * ricostruire gli array completi.
+ */
+public final class GorillaColumns {
+
+    private GorillaColumns() {
+    }
+
+    public static byte[] encodeTimestamps(long[] timestamps, int count) {
+        GorillaCodec.LongEncoder encoder = new GorillaCodec.LongEncoder(1, count);
+        for (int i = 0; i < count; i++) {
+            encoder.write(timestamps[i]);
+        }
+        return encoder.toByteArray();
+    }
+
+    public static <T> Map<String, byte[]> encode(PageLayout<T> layout, Map<String, int[]> ints,
+                                                 Map<String, float[]> floats) {
+        Map<String, byte[]> channels = new LinkedHashMap<>();
+        for (PageField<T> field : layout.getFields()) {
+            int[] intColumn = ints.get(field.getName());
+            if (intColumn != null) {
+                GorillaCodec.LongEncoder encoder = new GorillaCodec.LongEncoder(1, intColumn.length);
+                for (int value : intColumn) {
+                    encoder.write(value);
+                }
+                channels.put(field.getName(), encoder.toByteArray());
+                continue;
+            }
+            float[] floatColumn = floats.get(field.getName());
+            if (floatColumn != null) {
+                GorillaCodec.FloatEncoder encoder =
+                        new GorillaCodec.FloatEncoder(field.floatCount(), floatColumn.length);
+                for (float value : floatColumn) {
+                    encoder.write(value);
+                }
+                channels.put(field.getName(), encoder.toByteArray());
+            }
+        }
+        return channels;
+    }
+
+    /**
+     * Cursore in streaming sui timestamp di un bucket
+     */
+    public static GorillaCodec.LongDecoder timestamps(byte[] packedTimestamps) {
+        return new GorillaCodec.LongDecoder(packedTimestamps, 1);
+    }
+
+    /**
+     * Cursore in streaming su un singolo canale float (es. speedKmh):
+     * next() restituisce i valori in ordine di riga
+     */
+    public static <T> GorillaCodec.FloatDecoder floatChannel(PageLayout<T> layout, Map<String, byte[]> channels,
+                                                             String channel) {
+        byte[] bytes = channels.get(channel);
+        return bytes != null ? new GorillaCodec.FloatDecoder(bytes, layout.field(channel).floatCount()) : null;
+    }
+
+    /**
+     * Cursore riga per riga sui canali selezionati (tutti se channelNames è null)
+     */
+    public static class Cursor<T> {
+        private final List<PageField<T>> fields = new ArrayList<>();
+        private final List<Object> decoders = new ArrayList<>();
+
+        public Cursor(PageLayout<T> layout, Map<String, byte[]> channels, Collection<String> channelNames) {
+            for (PageField<T> field : layout.getFields()) {
+                byte[] bytes = channels.get(field.getName());
+                if (bytes == null || (channelNames != null && !channelNames.contains(field.getName()))) {
+                    continue;
+                }
+                fields.add(field);
+                if (field.getType() == FieldType.INT) {
+                    decoders.add(new GorillaCodec.LongDecoder(bytes, 1));
+                } else {
+                    decoders.add(new GorillaCodec.FloatDecoder(bytes, field.floatCount()));
+                }
+            }
+        }
+
+        public T next(T target) {
+            for (int i = 0; i < fields.size(); i++) {
+                PageField<T> field = fields.get(i);
+                Object decoder = decoders.get(i);
+                switch (field.getType()) {
+                    case INT -> field.getIntSetter().set(target, (int) ((GorillaCodec.LongDecoder) decoder).next());
+                    case FLOAT -> field.getFloatSetter().set(target, ((GorillaCodec.FloatDecoder) decoder).next());
+                    case FLOAT_ARRAY -> {
+                        float[] values = new float[field.getLength()];
+                        for (int j = 0; j < values.length; j++) {
+                            values[j] = ((GorillaCodec.FloatDecoder) decoder).next();
+                        }
+                        field.setFloats(target, values);
+                    }
+                    case COORDINATES_ARRAY -> {
+                        GorillaCodec.FloatDecoder floatDecoder = (GorillaCodec.FloatDecoder) decoder;
+                        Coordinates[] values = new Coordinates[field.getLength()];
+                        for (int j = 0; j < values.length; j++) {
+                            values[j] = new Coordinates();
+                            values[j].setX(floatDecoder.next());
+                            values[j].setY(floatDecoder.next());
+                            values[j].setZ(floatDecoder.next());
+                        }
+                        field.setCoordinates(target, values);
+                    }
+                    default -> {
+                    }
+                }
+            }
+            return target;
+        }
+
+        /**
+         * Avanza di una riga senza ricostruire i valori nel target
+         */
+        public void skip() {
+            for (int i = 0; i < fields.size(); i++) {
+                Object decoder = decoders.get(i);
+                if (decoder instanceof GorillaCodec.LongDecoder longDecoder) {
+                    longDecoder.next();
+                } else {
+                    GorillaCodec.FloatDecoder floatDecoder = (GorillaCodec.FloatDecoder) decoder;
+                    for (int j = fields.get(i).floatCount(); j > 0; j--) {
+                        floatDecoder.next();
+                    }
+                }
+            }
+        }
+    }
+}
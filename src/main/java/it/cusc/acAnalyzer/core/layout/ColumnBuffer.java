@@ -0,0 +1,163 @@
+package it.cusc.acAnalyzer.core.layout;
+
+import it.cusc.acAnalyzer.model.Coordinates;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Accumula frame in formato colonnare a partire da un {@link PageLayout}:
+ * un array int per ogni campo intero e un array float impacchettato per i
+ * campi float (gli array di N valori occupano N posizioni per riga).
+ * I campi stringa non sono supportati e vengono ignorati.
+ */
+public class ColumnBuffer<T> {
+    private final PageLayout<T> layout;
+    private final Map<String, int[]> intColumns = new LinkedHashMap<>();
+    private final Map<String, float[]> floatColumns = new LinkedHashMap<>();
+    private int rows;
+    private int capacity;
+
+    public ColumnBuffer(PageLayout<T> layout, int initialCapacity) {
+        this.layout = layout;
+        this.capacity = Math.max(1, initialCapacity);
+        for (PageField<T> field : layout.getFields()) {
+            switch (field.getType()) {
+                case INT -> intColumns.put(field.getName(), new int[capacity]);
+                case FLOAT, FLOAT_ARRAY, COORDINATES_ARRAY ->
+                        floatColumns.put(field.getName(), new float[capacity * field.floatCount()]);
+                default -> {
+                }
+            }
+        }
+    }
+
+    public void append(T frame) {
+        if (rows == capacity) {
+            grow();
+        }
+        for (PageField<T> field : layout.getFields()) {
+            switch (field.getType()) {
+                case INT -> intColumns.get(field.getName())[rows] = field.getIntGetter().applyAsInt(frame);
+                case FLOAT -> floatColumns.get(field.getName())[rows] = field.getFloatGetter().get(frame);
+                case FLOAT_ARRAY -> {
+                    float[] column = floatColumns.get(field.getName());
+                    float[] values = field.getFloats(frame);
+                    int base = rows * field.getLength();
+                    if (values != null) {
+                        System.arraycopy(values, 0, column, base, Math.min(values.length, field.getLength()));
+                    }
+                }
+                case COORDINATES_ARRAY -> {
+                    float[] column = floatColumns.get(field.getName());
+                    Coordinates[] values = field.getCoordinates(frame);
+                    int base = rows * field.floatCount();
+                    for (int i = 0; values != null && i < Math.min(values.length, field.getLength()); i++) {
+                        if (values[i] == null) continue;
+                        column[base + i * 3] = values[i].getX();
+                        column[base + i * 3 + 1] = values[i].getY();
+                        column[base + i * 3 + 2] = values[i].getZ();
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        rows++;
+    }
+
+    private void grow() {
+        capacity *= 2;
+        intColumns.replaceAll((name, column) -> Arrays.copyOf(column, capacity));
+        for (PageField<T> field : layout.getFields()) {
+            float[] column = floatColumns.get(field.getName());
+            if (column != null) {
+                floatColumns.put(field.getName(), Arrays.copyOf(column, capacity * field.floatCount()));
+            }
+        }
+    }
+
+    public int size() {
+        return rows;
+    }
+
+    public boolean isEmpty() {
+        return rows == 0;
+    }
+
+    /**
+     * Copie delle colonne int, troncate al numero di righe
+     */
+    public Map<String, int[]> intColumns() {
+        Map<String, int[]> result = new LinkedHashMap<>();
+        intColumns.forEach((name, column) -> result.put(name, Arrays.copyOf(column, rows)));
+        return result;
+    }
+
+    /**
+     * Copie delle colonne float, troncate al numero di righe
+     */
+    public Map<String, float[]> floatColumns() {
+        Map<String, float[]> result = new LinkedHashMap<>();
+        for (PageField<T> field : layout.getFields()) {
+            float[] column = floatColumns.get(field.getName());
+            if (column != null) {
+                result.put(field.getName(), Arrays.copyOf(column, rows * field.floatCount()));
+            }
+        }
+        return result;
+    }
+
+    public void clear() {
+        rows = 0;
+    }
+
+    /**
+     * Ricostruisce la riga indicata nell'oggetto target. I canali assenti
+     * dalle mappe vengono lasciati invariati.
+     */
+    public static <T> T readRow(PageLayout<T> layout, Map<String, int[]> ints, Map<String, float[]> floats,
+                                int row, T target) {
+        for (PageField<T> field : layout.getFields()) {
+            switch (field.getType()) {
+                case INT -> {
+                    int[] column = ints != null ? ints.get(field.getName()) : null;
+                    if (column != null) {
+                        field.getIntSetter().set(target, column[row]);
+                    }
+                }
+                case FLOAT -> {
+                    float[] column = floats != null ? floats.get(field.getName()) : null;
+                    if (column != null) {
+                        field.getFloatSetter().set(target, column[row]);
+                    }
+                }
+                case FLOAT_ARRAY -> {
+                    float[] column = floats != null ? floats.get(field.getName()) : null;
+                    if (column != null) {
+                        int base = row * field.getLength();
+                        field.setFloats(target, Arrays.copyOfRange(column, base, base + field.getLength()));
+                    }
+                }
+                case COORDINATES_ARRAY -> {
+                    float[] column = floats != null ? floats.get(field.getName()) : null;
+                    if (column != null) {
+                        Coordinates[] values = new Coordinates[field.getLength()];
+                        int base = row * field.floatCount();
+                        for (int i = 0; i < values.length; i++) {
+                            values[i] = new Coordinates();
+                            values[i].setX(column[base + i * 3]);
+                            values[i].setY(column[base + i * 3 + 1]);
+                            values[i].setZ(column[base + i * 3 + 2]);
+                        }
+                        field.setCoordinates(target, values);
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        return target;
+    }
+}
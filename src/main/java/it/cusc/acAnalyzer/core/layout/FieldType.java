@@ -0,0 +1,19 @@
+package it.cusc.acAnalyzer.core.layout;
+
+public enum FieldType {
+    INT(4),
+    FLOAT(4),
+    STRING(1),              // stringa C a lunghezza fissa, length = byte
+    FLOAT_ARRAY(4),
+    COORDINATES_ARRAY(12);  // length = numero di terne x, y, z
+
+    private final int elementSize;
+
+    FieldType(int elementSize) {
+        this.elementSize = elementSize;
+    }
+
+    public int getElementSize() {
+        return elementSize;
+    }
+}
@@ -0,0 +1,99 @@
+package it.cusc.acAnalyzer.core.layout;
+
+import it.cusc.acAnalyzer.core.SharedMemoryUtils;
+import it.cusc.acAnalyzer.model.Coordinates;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.List;
+
+/**
+ * Decoder compilato da un {@link PageLayout}: legge solo i campi selezionati
+ * con get assoluti, gli array allineati con un bulk get sulla vista FloatBuffer.
+ * Non modifica la posizione del buffer. Il decoder è condiviso tra thread e
+ * buffer diversi, quindi non tiene stato: la vista float la conserva chi
+ * legge sempre dallo stesso buffer (vedi {@link #floatsOf}).
+ */
+public class PageDecoder<T> {
+    private final PageLayout<T> layout;
+    private final PageField<T>[] fields;
+    private final boolean[] aligned;
+
+    @SuppressWarnings("unchecked")
+    PageDecoder(PageLayout<T> layout, List<PageField<T>> fields) {
+        this.layout = layout;
+        this.fields = fields.toArray(new PageField[0]);
+        this.aligned = new boolean[this.fields.length];
+        for (int i = 0; i < this.fields.length; i++) {
+            aligned[i] = this.fields[i].getOffset() % Float.BYTES == 0;
+        }
+    }
+
+    public PageLayout<T> getLayout() {
+        return layout;
+    }
+
+    public T decode(ByteBuffer buffer) {
+        return decode(buffer, layout.newInstance());
+    }
+
+    public T decode(ByteBuffer buffer, T target) {
+        return decode(buffer, floatsOf(buffer), target);
+    }
+
+    /**
+     * Come {@link #decode(ByteBuffer, Object)}, con la vista float di buffer
+     * già creata da chi lo rilegge a ogni frame
+     */
+    public T decode(ByteBuffer buffer, FloatBuffer floats, T target) {
+        for (int i = 0; i < fields.length; i++) {
+            PageField<T> field = fields[i];
+            int offset = field.getOffset();
+
+            switch (field.getType()) {
+                case INT -> field.getIntSetter().set(target, buffer.getInt(offset));
+                case FLOAT -> field.getFloatSetter().set(target, buffer.getFloat(offset));
+                case STRING -> field.setString(target, SharedMemoryUtils.readString(buffer, offset, field.getLength()));
+                case FLOAT_ARRAY -> {
+                    float[] array = field.getFloats(target);
+                    if (array == null || array.length != field.getLength()) {
+                        array = new float[field.getLength()];
+                        field.setFloats(target, array);
+                    }
+                    if (aligned[i]) {
+                        floats.get(offset / Float.BYTES, array);
+                    } else {
+                        for (int j = 0; j < array.length; j++) {
+                            array[j] = buffer.getFloat(offset + j * Float.BYTES);
+                        }
+                    }
+                }
+                case COORDINATES_ARRAY -> {
+                    Coordinates[] array = field.getCoordinates(target);
+                    if (array == null || array.length != field.getLength()) {
+                        array = new Coordinates[field.getLength()];
+                        field.setCoordinates(target, array);
+                    }
+                    for (int j = 0; j < array.length; j++) {
+                        if (array[j] == null) {
+                            array[j] = new Coordinates();
+                        }
+                        int base = offset + j * 12;
+                        array[j].setX(buffer.getFloat(base));
+                        array[j].setY(buffer.getFloat(base + 4));
+                        array[j].setZ(buffer.getFloat(base + 8));
+                    }
+                }
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Vista float dell'intero buffer, indipendente dalla sua posizione; eredita
+     * il byte order che il buffer ha al momento della creazione
+     */
+    public static FloatBuffer floatsOf(ByteBuffer buffer) {
+        return buffer.slice(0, buffer.capacity()).order(buffer.order()).asFloatBuffer();
+    }
+}
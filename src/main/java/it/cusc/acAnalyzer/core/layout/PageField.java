@@ -0,0 +1,105 @@
+package it.cusc.acAnalyzer.core.layout;
+
+import it.cusc.acAnalyzer.model.Coordinates;
+import lombok.Getter;
+
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Descrittore di un campo di una pagina di shared memory: nome, tipo,
+ * lunghezza (per array e stringhe) e offset assoluto, più gli accessor
+ * verso l'oggetto del modello.
+ */
+@Getter
+public class PageField<T> {
+    private final String name;
+    private final FieldType type;
+    private final int length;
+    private final int offset;
+
+    private final ToIntFunction<T> intGetter;
+    private final IntSetter<T> intSetter;
+    private final FloatGetter<T> floatGetter;
+    private final FloatSetter<T> floatSetter;
+    private final Function<T, ?> arrayGetter;
+    private final BiConsumer<T, ?> arraySetter;
+
+    PageField(String name, FieldType type, int length, int offset,
+              ToIntFunction<T> intGetter, IntSetter<T> intSetter,
+              FloatGetter<T> floatGetter, FloatSetter<T> floatSetter,
+              Function<T, ?> arrayGetter, BiConsumer<T, ?> arraySetter) {
+        this.name = name;
+        this.type = type;
+        this.length = length;
+        this.offset = offset;
+        this.intGetter = intGetter;
+        this.intSetter = intSetter;
+        this.floatGetter = floatGetter;
+        this.floatSetter = floatSetter;
+        this.arrayGetter = arrayGetter;
+        this.arraySetter = arraySetter;
+    }
+
+    public int size() {
+        return type.getElementSize() * length;
+    }
+
+    /**
+     * Numero di valori float del campo (0 per int e stringhe)
+     */
+    public int floatCount() {
+        return switch (type) {
+            case FLOAT -> 1;
+            case FLOAT_ARRAY -> length;
+            case COORDINATES_ARRAY -> length * 3;
+            default -> 0;
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    public float[] getFloats(T target) {
+        return ((Function<T, float[]>) arrayGetter).apply(target);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void setFloats(T target, float[] value) {
+        ((BiConsumer<T, float[]>) arraySetter).accept(target, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    public Coordinates[] getCoordinates(T target) {
+        return ((Function<T, Coordinates[]>) arrayGetter).apply(target);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void setCoordinates(T target, Coordinates[] value) {
+        ((BiConsumer<T, Coordinates[]>) arraySetter).accept(target, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    public String getString(T target) {
+        return ((Function<T, String>) arrayGetter).apply(target);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void setString(T target, String value) {
+        ((BiConsumer<T, String>) arraySetter).accept(target, value);
+    }
+
+    @FunctionalInterface
+    public interface IntSetter<T> {
+        void set(T target, int value);
+    }
+
+    @FunctionalInterface
+    public interface FloatGetter<T> {
+        float get(T target);
+    }
+
+    @FunctionalInterface
+    public interface FloatSetter<T> {
+        void set(T target, float value);
+    }
+}
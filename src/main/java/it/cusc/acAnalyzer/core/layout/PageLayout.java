@@ -0,0 +1,184 @@
+package it.cusc.acAnalyzer.core.layout;
+
+import it.cusc.acAnalyzer.model.Coordinates;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Layout dichiarativo di una pagina di shared memory. Gli offset assoluti
+ * vengono calcolati una volta sola dalla sequenza dei campi, così come la
+ * dimensione della pagina.
+ */
+public class PageLayout<T> {
+    private final String name;
+    private final Supplier<T> factory;
+    private final List<PageField<T>> fields;
+    private final Map<String, PageField<T>> fieldsByName;
+    private final int size;
+    private final PageDecoder<T> fullDecoder;
+
+    private PageLayout(String name, Supplier<T> factory, List<PageField<T>> fields, int size) {
+        this.name = name;
+        this.factory = factory;
+        this.fields = List.copyOf(fields);
+        this.size = size;
+
+        Map<String, PageField<T>> byName = new LinkedHashMap<>();
+        for (PageField<T> field : fields) {
+            byName.put(field.getName(), field);
+        }
+        this.fieldsByName = Collections.unmodifiableMap(byName);
+        this.fullDecoder = new PageDecoder<>(this, this.fields);
+    }
+
+    public static <T> Builder<T> builder(String name, Supplier<T> factory) {
+        return new Builder<>(name, factory);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public List<PageField<T>> getFields() {
+        return fields;
+    }
+
+    public PageField<T> field(String fieldName) {
+        PageField<T> field = fieldsByName.get(fieldName);
+        if (field == null) {
+            throw new IllegalArgumentException("Unknown field '" + fieldName + "' in " + name + " layout");
+        }
+        return field;
+    }
+
+    public int offsetOf(String fieldName) {
+        return field(fieldName).getOffset();
+    }
+
+    T newInstance() {
+        return factory.get();
+    }
+
+    /**
+     * Decoder di tutti i campi della pagina
+     */
+    public PageDecoder<T> decoder() {
+        return fullDecoder;
+    }
+
+    /**
+     * Decoder dei soli campi indicati, letti in ordine di offset
+     */
+    public PageDecoder<T> decoder(String... fieldNames) {
+        return decoder(Arrays.asList(fieldNames));
+    }
+
+    public PageDecoder<T> decoder(Collection<String> fieldNames) {
+        List<PageField<T>> selected = new ArrayList<>();
+        for (String fieldName : new LinkedHashSet<>(fieldNames)) {
+            selected.add(field(fieldName));
+        }
+        selected.sort(Comparator.comparingInt(PageField::getOffset));
+        return new PageDecoder<>(this, selected);
+    }
+
+    public T decode(ByteBuffer buffer, T target) {
+        return fullDecoder.decode(buffer, target);
+    }
+
+    /**
+     * Scrive tutti i campi di source nel buffer a partire da baseOffset,
+     * nello stesso formato della pagina di shared memory
+     */
+    public void encode(T source, ByteBuffer buffer, int baseOffset) {
+        for (PageField<T> field : fields) {
+            int offset = baseOffset + field.getOffset();
+            switch (field.getType()) {
+                case INT -> buffer.putInt(offset, field.getIntGetter().applyAsInt(source));
+                case FLOAT -> buffer.putFloat(offset, field.getFloatGetter().get(source));
+                case STRING -> {
+                    String value = field.getString(source);
+                    byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+                    for (int i = 0; i < field.getLength(); i++) {
+                        buffer.put(offset + i, i < bytes.length && i < field.getLength() - 1 ? bytes[i] : 0);
+                    }
+                }
+                case FLOAT_ARRAY -> {
+                    float[] values = field.getFloats(source);
+                    for (int i = 0; i < field.getLength(); i++) {
+                        buffer.putFloat(offset + i * Float.BYTES,
+                                values != null && i < values.length ? values[i] : 0f);
+                    }
+                }
+                case COORDINATES_ARRAY -> {
+                    Coordinates[] values = field.getCoordinates(source);
+                    for (int i = 0; i < field.getLength(); i++) {
+                        Coordinates value = values != null && i < values.length ? values[i] : null;
+                        int base = offset + i * 12;
+                        buffer.putFloat(base, value != null ? value.getX() : 0f);
+                        buffer.putFloat(base + 4, value != null ? value.getY() : 0f);
+                        buffer.putFloat(base + 8, value != null ? value.getZ() : 0f);
+                    }
+                }
+            }
+        }
+    }
+
+    public static class Builder<T> {
+        private final String name;
+        private final Supplier<T> factory;
+        private final List<PageField<T>> fields = new ArrayList<>();
+        private int offset = 0;
+
+        private Builder(String name, Supplier<T> factory) {
+            this.name = name;
+            this.factory = factory;
+        }
+
+        public Builder<T> intField(String fieldName, ToIntFunction<T> getter, PageField.IntSetter<T> setter) {
+            return add(new PageField<>(fieldName, FieldType.INT, 1, offset,
+                    getter, setter, null, null, null, null));
+        }
+
+        public Builder<T> floatField(String fieldName, PageField.FloatGetter<T> getter, PageField.FloatSetter<T> setter) {
+            return add(new PageField<>(fieldName, FieldType.FLOAT, 1, offset,
+                    null, null, getter, setter, null, null));
+        }
+
+        public Builder<T> stringField(String fieldName, int length, Function<T, String> getter, BiConsumer<T, String> setter) {
+            return add(new PageField<>(fieldName, FieldType.STRING, length, offset,
+                    null, null, null, null, getter, setter));
+        }
+
+        public Builder<T> floatArray(String fieldName, int length, Function<T, float[]> getter, BiConsumer<T, float[]> setter) {
+            return add(new PageField<>(fieldName, FieldType.FLOAT_ARRAY, length, offset,
+                    null, null, null, null, getter, setter));
+        }
+
+        public Builder<T> coordinatesArray(String fieldName, int length,
+                                           Function<T, Coordinates[]> getter, BiConsumer<T, Coordinates[]> setter) {
+            return add(new PageField<>(fieldName, FieldType.COORDINATES_ARRAY, length, offset,
+                    null, null, null, null, getter, setter));
+        }
+
+        private Builder<T> add(PageField<T> field) {
+            fields.add(field);
+            offset += field.size();
+            return this;
+        }
+
+        public PageLayout<T> build() {
+            return new PageLayout<>(name, factory, fields, offset);
+        }
+    }
+}
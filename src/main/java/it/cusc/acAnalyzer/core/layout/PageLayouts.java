@@ -0,0 +1,160 @@
+package it.cusc.acAnalyzer.core.layout;
+
+import it.cusc.acAnalyzer.model.Graphics;
+import it.cusc.acAnalyzer.model.Physics;
+import it.cusc.acAnalyzer.model.StaticInfo;
+import it.cusc.acAnalyzer.model.enums.ACStatus;
+import it.cusc.acAnalyzer.model.enums.FlagType;
+import it.cusc.acAnalyzer.model.enums.SessionType;
+
+/**
+ * Layout delle tre pagine di shared memory di Assetto Corsa
+ */
+public final class PageLayouts {
+
+    public static final PageLayout<Physics> PHYSICS = PageLayout.<Physics>builder("physics", Physics::new)
+            .intField("packetId", Physics::getPacketId, Physics::setPacketId)
+            .floatField("gas", Physics::getGas, Physics::setGas)
+            .floatField("brake", Physics::getBrake, Physics::setBrake)
+            .floatField("fuel", Physics::getFuel, Physics::setFuel)
+            .intField("gear", Physics::getGear, Physics::setGear)
+            .intField("rpms", Physics::getRpms, Physics::setRpms)
+            .floatField("steerAngle", Physics::getSteerAngle, Physics::setSteerAngle)
+            .floatField("speedKmh", Physics::getSpeedKmh, Physics::setSpeedKmh)
+            .floatArray("velocity", 3, Physics::getVelocity, Physics::setVelocity)
+            .floatArray("accG", 3, Physics::getAccG, Physics::setAccG)
+            .floatArray("wheelSlip", 4, Physics::getWheelSlip, Physics::setWheelSlip)
+            .floatArray("wheelLoad", 4, Physics::getWheelLoad, Physics::setWheelLoad)
+            .floatArray("wheelsPressure", 4, Physics::getWheelsPressure, Physics::setWheelsPressure)
+            .floatArray("wheelAngularSpeed", 4, Physics::getWheelAngularSpeed, Physics::setWheelAngularSpeed)
+            .floatArray("tyreWear", 4, Physics::getTyreWear, Physics::setTyreWear)
+            .floatArray("tyreDirtyLevel", 4, Physics::getTyreDirtyLevel, Physics::setTyreDirtyLevel)
+            .floatArray("tyreCoreTemperature", 4, Physics::getTyreCoreTemperature, Physics::setTyreCoreTemperature)
+            .floatArray("camberRad", 4, Physics::getCamberRad, Physics::setCamberRad)
+            .floatArray("suspensionTravel", 4, Physics::getSuspensionTravel, Physics::setSuspensionTravel)
+            .floatField("drs", Physics::getDrs, Physics::setDrs)
+            .floatField("tc", Physics::getTc, Physics::setTc)
+            .floatField("heading", Physics::getHeading, Physics::setHeading)
+            .floatField("pitch", Physics::getPitch, Physics::setPitch)
+            .floatField("roll", Physics::getRoll, Physics::setRoll)
+            .floatField("cgHeight", Physics::getCgHeight, Physics::setCgHeight)
+            .floatArray("carDamage", 5, Physics::getCarDamage, Physics::setCarDamage)
+            .intField("numberOfTyresOut", Physics::getNumberOfTyresOut, Physics::setNumberOfTyresOut)
+            .intField("pitLimiterOn", Physics::getPitLimiterOn, Physics::setPitLimiterOn)
+            .floatField("abs", Physics::getAbs, Physics::setAbs)
+            .floatField("kersCharge", Physics::getKersCharge, Physics::setKersCharge)
+            .floatField("kersInput", Physics::getKersInput, Physics::setKersInput)
+            .intField("autoShifterOn", Physics::getAutoShifterOn, Physics::setAutoShifterOn)
+            .floatArray("rideHeight", 2, Physics::getRideHeight, Physics::setRideHeight)
+            .floatField("turboBoost", Physics::getTurboBoost, Physics::setTurboBoost)
+            .floatField("ballast", Physics::getBallast, Physics::setBallast)
+            .floatField("airDensity", Physics::getAirDensity, Physics::setAirDensity)
+            .floatField("airTemp", Physics::getAirTemp, Physics::setAirTemp)
+            .floatField("roadTemp", Physics::getRoadTemp, Physics::setRoadTemp)
+            .floatArray("localAngularVelocity", 3, Physics::getLocalAngularVelocity, Physics::setLocalAngularVelocity)
+            .floatField("finalFF", Physics::getFinalFF, Physics::setFinalFF)
+            .floatField("performanceMeter", Physics::getPerformanceMeter, Physics::setPerformanceMeter)
+            .intField("engineBrake", Physics::getEngineBrake, Physics::setEngineBrake)
+            .intField("ersRecoveryLevel", Physics::getErsRecoveryLevel, Physics::setErsRecoveryLevel)
+            .intField("ersPowerLevel", Physics::getErsPowerLevel, Physics::setErsPowerLevel)
+            .intField("ersHeatCharging", Physics::getErsHeatCharging, Physics::setErsHeatCharging)
+            .intField("ersIsCharging", Physics::getErsIsCharging, Physics::setErsIsCharging)
+            .floatField("kersCurrentKJ", Physics::getKersCurrentKJ, Physics::setKersCurrentKJ)
+            .intField("drsAvailable", Physics::getDrsAvailable, Physics::setDrsAvailable)
+            .intField("drsEnabled", Physics::getDrsEnabled, Physics::setDrsEnabled)
+            .floatArray("brakeTemp", 4, Physics::getBrakeTemp, Physics::setBrakeTemp)
+            .floatField("clutch", Physics::getClutch, Physics::setClutch)
+            .floatArray("tyreTempI", 4, Physics::getTyreTempI, Physics::setTyreTempI)
+            .floatArray("tyreTempM", 4, Physics::getTyreTempM, Physics::setTyreTempM)
+            .floatArray("tyreTempO", 4, Physics::getTyreTempO, Physics::setTyreTempO)
+            .intField("isAIControlled", Physics::getIsAIControlled, Physics::setIsAIControlled)
+            .coordinatesArray("tyreContactPoint", 4, Physics::getTyreContactPoint, Physics::setTyreContactPoint)
+            .coordinatesArray("tyreContactNormal", 4, Physics::getTyreContactNormal, Physics::setTyreContactNormal)
+            .coordinatesArray("tyreContactHeading", 4, Physics::getTyreContactHeading, Physics::setTyreContactHeading)
+            .floatField("brakeBias", Physics::getBrakeBias, Physics::setBrakeBias)
+            .floatArray("localVelocity", 3, Physics::getLocalVelocity, Physics::setLocalVelocity)
+            .build();
+
+    public static final PageLayout<Graphics> GRAPHICS = PageLayout.<Graphics>builder("graphics", Graphics::new)
+            .intField("packetId", Graphics::getPacketId, Graphics::setPacketId)
+            .intField("status", g -> g.getStatus() != null ? g.getStatus().ordinal() : 0,
+                    (g, v) -> g.setStatus(ACStatus.values()[v]))
+            .intField("session", g -> g.getSession() != null ? g.getSession().getValue() : -1,
+                    (g, v) -> g.setSession(SessionType.fromValue(v)))
+            .stringField("currentTime", 15, Graphics::getCurrentTime, Graphics::setCurrentTime)
+            .stringField("lastTime", 15, Graphics::getLastTime, Graphics::setLastTime)
+            .stringField("bestTime", 15, Graphics::getBestTime, Graphics::setBestTime)
+            .stringField("split", 15, Graphics::getSplit, Graphics::setSplit)
+            .intField("completedLaps", Graphics::getCompletedLaps, Graphics::setCompletedLaps)
+            .intField("position", Graphics::getPosition, Graphics::setPosition)
+            .intField("currentTimeMs", Graphics::getCurrentTimeMs, Graphics::setCurrentTimeMs)
+            .intField("lastTimeMs", Graphics::getLastTimeMs, Graphics::setLastTimeMs)
+            .intField("bestTimeMs", Graphics::getBestTimeMs, Graphics::setBestTimeMs)
+            .floatField("sessionTimeLeft", Graphics::getSessionTimeLeft, Graphics::setSessionTimeLeft)
+            .floatField("distanceTraveled", Graphics::getDistanceTraveled, Graphics::setDistanceTraveled)
+            .intField("isInPit", Graphics::getIsInPit, Graphics::setIsInPit)
+            .intField("currentSectorIndex", Graphics::getCurrentSectorIndex, Graphics::setCurrentSectorIndex)
+            .intField("lastSectorTime", Graphics::getLastSectorTime, Graphics::setLastSectorTime)
+            .intField("numberOfLaps", Graphics::getNumberOfLaps, Graphics::setNumberOfLaps)
+            .stringField("tyreCompound", 33, Graphics::getTyreCompound, Graphics::setTyreCompound)
+            .floatField("replayTimeMultiplier", Graphics::getReplayTimeMultiplier, Graphics::setReplayTimeMultiplier)
+            .floatField("normalizedCarPosition", Graphics::getNormalizedCarPosition, Graphics::setNormalizedCarPosition)
+            .floatArray("carCoordinates", 3, Graphics::getCarCoordinates, Graphics::setCarCoordinates)
+            .floatField("penaltyTime", Graphics::getPenaltyTime, Graphics::setPenaltyTime)
+            .intField("flag", g -> g.getFlag() != null ? g.getFlag().ordinal() : 0,
+                    (g, v) -> g.setFlag(FlagType.values()[v]))
+            .intField("idealLineOn", Graphics::getIdealLineOn, Graphics::setIdealLineOn)
+            .intField("isInPitLane", Graphics::getIsInPitLane, Graphics::setIsInPitLane)
+            .floatField("surfaceGrip", Graphics::getSurfaceGrip, Graphics::setSurfaceGrip)
+            .intField("mandatoryPitDone", Graphics::getMandatoryPitDone, Graphics::setMandatoryPitDone)
+            .build();
+
+    public static final PageLayout<StaticInfo> STATIC_INFO = PageLayout.<StaticInfo>builder("staticInfo", StaticInfo::new)
+            .intField("smVersion", StaticInfo::getSmVersion, StaticInfo::setSmVersion)
+            .intField("acVersion", StaticInfo::getAcVersion, StaticInfo::setAcVersion)
+            .intField("numberOfSessions", StaticInfo::getNumberOfSessions, StaticInfo::setNumberOfSessions)
+            .intField("numCars", StaticInfo::getNumCars, StaticInfo::setNumCars)
+            .stringField("carModel", 33, StaticInfo::getCarModel, StaticInfo::setCarModel)
+            .stringField("track", 33, StaticInfo::getTrack, StaticInfo::setTrack)
+            .stringField("playerName", 33, StaticInfo::getPlayerName, StaticInfo::setPlayerName)
+            .stringField("playerSurname", 33, StaticInfo::getPlayerSurname, StaticInfo::setPlayerSurname)
+            .stringField("playerNick", 33, StaticInfo::getPlayerNick, StaticInfo::setPlayerNick)
+            .intField("sectorCount", StaticInfo::getSectorCount, StaticInfo::setSectorCount)
+            .floatField("maxTorque", StaticInfo::getMaxTorque, StaticInfo::setMaxTorque)
+            .floatField("maxPower", StaticInfo::getMaxPower, StaticInfo::setMaxPower)
+            .intField("maxRpm", StaticInfo::getMaxRpm, StaticInfo::setMaxRpm)
+            .floatField("maxFuel", StaticInfo::getMaxFuel, StaticInfo::setMaxFuel)
+            .floatArray("suspensionMaxTravel", 4, StaticInfo::getSuspensionMaxTravel, StaticInfo::setSuspensionMaxTravel)
+            .floatArray("tyreRadius", 4, StaticInfo::getTyreRadius, StaticInfo::setTyreRadius)
+            .floatField("maxTurboBoost", StaticInfo::getMaxTurboBoost, StaticInfo::setMaxTurboBoost)
+            .floatField("deprecated1", StaticInfo::getDeprecated1, StaticInfo::setDeprecated1)
+            .floatField("deprecated2", StaticInfo::getDeprecated2, StaticInfo::setDeprecated2)
+            .intField("penaltiesEnabled", StaticInfo::getPenaltiesEnabled, StaticInfo::setPenaltiesEnabled)
+            .floatField("aidFuelRate", StaticInfo::getAidFuelRate, StaticInfo::setAidFuelRate)
+            .floatField("aidTireRate", StaticInfo::getAidTireRate, StaticInfo::setAidTireRate)
+            .floatField("aidMechanicalDamage", StaticInfo::getAidMechanicalDamage, StaticInfo::setAidMechanicalDamage)
+            .intField("aidAllowTyreBlankets", StaticInfo::getAidAllowTyreBlankets, StaticInfo::setAidAllowTyreBlankets)
+            .floatField("aidStability", StaticInfo::getAidStability, StaticInfo::setAidStability)
+            .intField("aidAutoClutch", StaticInfo::getAidAutoClutch, StaticInfo::setAidAutoClutch)
+            .intField("aidAutoBlip", StaticInfo::getAidAutoBlip, StaticInfo::setAidAutoBlip)
+            .intField("hasDRS", StaticInfo::getHasDRS, StaticInfo::setHasDRS)
+            .intField("hasERS", StaticInfo::getHasERS, StaticInfo::setHasERS)
+            .intField("hasKERS", StaticInfo::getHasKERS, StaticInfo::setHasKERS)
+            .floatField("kersMaxJ", StaticInfo::getKersMaxJ, StaticInfo::setKersMaxJ)
+            .intField("engineBrakeSettingsCount", StaticInfo::getEngineBrakeSettingsCount, StaticInfo::setEngineBrakeSettingsCount)
+            .intField("ersPowerControllerCount", StaticInfo::getErsPowerControllerCount, StaticInfo::setErsPowerControllerCount)
+            .floatField("trackSPlineLength", StaticInfo::getTrackSPlineLength, StaticInfo::setTrackSPlineLength)
+            .stringField("trackConfiguration", 33, StaticInfo::getTrackConfiguration, StaticInfo::setTrackConfiguration)
+            .floatField("ersMaxJ", StaticInfo::getErsMaxJ, StaticInfo::setErsMaxJ)
+            .intField("isTimedRace", StaticInfo::getIsTimedRace, StaticInfo::setIsTimedRace)
+            .intField("hasExtraLap", StaticInfo::getHasExtraLap, StaticInfo::setHasExtraLap)
+            .stringField("carSkin", 33, StaticInfo::getCarSkin, StaticInfo::setCarSkin)
+            .intField("reversedGridPositions", StaticInfo::getReversedGridPositions, StaticInfo::setReversedGridPositions)
+            .intField("pitWindowStart", StaticInfo::getPitWindowStart, StaticInfo::setPitWindowStart)
+            .intField("pitWindowEnd", StaticInfo::getPitWindowEnd, StaticInfo::setPitWindowEnd)
+            .intField("isOnline", StaticInfo::getIsOnline, StaticInfo::setIsOnline)
+            .build();
+
+    private PageLayouts() {
+    }
+}
@@ -0,0 +1,306 @@
+package it.cusc.acAnalyzer.journal;
+
+import it.cusc.acAnalyzer.config.TelemetryProperties;
+import it.cusc.acAnalyzer.core.layout.PageDecoder;
+import it.cusc.acAnalyzer.core.layout.PageLayouts;
+import it.cusc.acAnalyzer.model.JournalStats;
+import it.cusc.acAnalyzer.model.Physics;
+import it.cusc.acAnalyzer.service.PhysicsWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+/**
+ * Replica il journal su MongoDB dal checkpoint in avanti. Il checkpoint
+ * avanza solo sui record che il writer ha effettivamente scritto e i
+ * segmenti precedenti vengono cancellati; se una scrittura fallisce si
+ * torna al checkpoint e si riprova. Gli id
+ * dei frame sono nel journal, quindi un replay ripetuto non crea duplicati.
+ * All'avvio lo stesso meccanismo fa da crash recovery.
+ */
+@Slf4j
+public class JournalDrainer implements Runnable {
+    private static final int PAGE_SIZE = PageLayouts.PHYSICS.size();
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final Path directory;
+    private final PhysicsWriter writer;
+    private final long retryDelayNanos;
+    private final long drainTimeoutMillis;
+
+    private final ByteBuffer header = ByteBuffer.allocate(JournalFiles.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuffer page = ByteBuffer.allocate(PAGE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private final FloatBuffer pageFloats = PageDecoder.floatsOf(page);
+    private ByteBuffer payload = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+    private final CRC32 crc = new CRC32();
+
+    private FileChannel channel;
+    private long segmentIndex;
+    private int offset;
+    private volatile JournalFiles.Position checkpoint;
+    private final Deque<JournalFiles.Position> inflight = new ArrayDeque<>();
+    private long deletedBefore;
+
+    private final AtomicLong drainedRecords = new AtomicLong();
+    private final AtomicLong replayFailures = new AtomicLong();
+    private volatile int segments;
+
+    private volatile boolean running;
+    private volatile boolean stopping;
+    private Thread thread;
+
+    public JournalDrainer(TelemetryProperties.Journal config, PhysicsWriter writer) {
+        this.directory = Paths.get(config.getDirectory());
+        this.writer = writer;
+        this.retryDelayNanos = TimeUnit.MILLISECONDS.toNanos(config.getRetryDelayMillis());
+        this.drainTimeoutMillis = config.getDrainTimeoutMillis();
+    }
+
+    /** Vero se nella directory ci sono segmenti lasciati da una sessione precedente */
+    public static boolean hasPendingSegments(TelemetryProperties.Journal config) throws IOException {
+        return !JournalFiles.segments(Paths.get(config.getDirectory())).isEmpty();
+    }
+
+    public synchronized void start() throws IOException {
+        if (running) return;
+        Files.createDirectories(directory);
+        checkpoint = JournalFiles.readCheckpoint(directory);
+        if (checkpoint == null) {
+            List<Long> existing = JournalFiles.segments(directory);
+            checkpoint = new JournalFiles.Position(existing.isEmpty() ? 0 : existing.get(0), 0);
+        }
+        segmentIndex = checkpoint.segment();
+        offset = checkpoint.offset();
+        deletedBefore = JournalFiles.segments(directory).stream().findFirst().orElse(0L);
+        segments = JournalFiles.segments(directory).size();
+
+        running = true;
+        stopping = false;
+        thread = new Thread(this, "AC-Journal-Drainer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Svuota quanto resta del journal (entro il timeout configurato) e
+     * ferma il thread; ciò che non è stato confermato resta per il recovery
+     */
+    public synchronized void stop() {
+        if (thread == null) return;
+        stopping = true;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(drainTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        running = false;
+        LockSupport.unpark(thread);
+        thread = null;
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                Physics physics = next();
+                if (physics != null) {
+                    writer.handle(physics);
+                    inflight.add(new JournalFiles.Position(segmentIndex, offset));
+                } else if (stopping) {
+                    writer.flush();
+                } else {
+                    writer.onIdle();
+                }
+
+                if (writer.checkFailed()) {
+                    rewind();
+                    if (stopping) break;
+                    LockSupport.parkNanos(this, retryDelayNanos);
+                    continue;
+                }
+                acknowledge();
+
+                if (physics == null) {
+                    if (stopping) break;
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Journal drainer stopped", e);
+        } finally {
+            closeSegment();
+            running = false;
+        }
+    }
+
+    /**
+     * Sposta il checkpoint dopo l'ultimo record che il writer ha scritto:
+     * quelli ancora in attesa nel writer restano da confermare
+     */
+    private void acknowledge() throws IOException {
+        int acknowledged = inflight.size() - writer.pending();
+        if (acknowledged <= 0) return;
+
+        JournalFiles.Position position = null;
+        for (int i = 0; i < acknowledged; i++) {
+            position = inflight.poll();
+        }
+        checkpoint = position;
+        JournalFiles.writeCheckpoint(directory, position);
+        drainedRecords.addAndGet(acknowledged);
+        if (position.segment() > deletedBefore) {
+            deleteAcknowledgedSegments();
+        }
+    }
+
+    /** Scrittura fallita: si riparte dal checkpoint, i frame in attesa verranno riletti */
+    private void rewind() {
+        replayFailures.incrementAndGet();
+        log.warn("Journal replay failed, retrying from segment {} offset {}",
+                checkpoint.segment(), checkpoint.offset());
+        writer.discard();
+        inflight.clear();
+        closeSegment();
+        segmentIndex = checkpoint.segment();
+        offset = checkpoint.offset();
+    }
+
+    /** Legge il prossimo record completo, o null se non ce ne sono ancora */
+    private Physics next() throws IOException {
+        while (true) {
+            if (channel == null && !openSegment()) return null;
+
+            header.clear();
+            int length = channel.read(header, offset) == JournalFiles.HEADER_SIZE ? header.getInt(0) : 0;
+            if (length == JournalFiles.END_OF_SEGMENT || (length == 0 && hasNewerSegment())) {
+                // Fine del segmento (o coda non scritta per un crash): passa al successivo
+                closeSegment();
+                segmentIndex++;
+                offset = 0;
+                continue;
+            }
+            if (length <= 0) return null;
+
+            if (payload.capacity() < length) {
+                payload = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            payload.clear().limit(length);
+            channel.read(payload, offset + JournalFiles.HEADER_SIZE);
+            crc.reset();
+            crc.update(payload.array(), 0, length);
+            if (payload.position() != length || (int) crc.getValue() != header.getInt(Integer.BYTES)) {
+                if (!hasNewerSegment()) return null;
+                log.warn("Corrupted journal record in segment {} at offset {}, skipping segment tail",
+                        segmentIndex, offset);
+                closeSegment();
+                segmentIndex++;
+                offset = 0;
+                continue;
+            }
+
+            offset += JournalFiles.HEADER_SIZE + length;
+            return decode(length);
+        }
+    }
+
+    private Physics decode(int length) {
+        byte[] id = new byte[JournalFiles.ID_SIZE];
+        payload.get(0, id);
+        page.put(0, payload, JournalFiles.PAGE_OFFSET, PAGE_SIZE);
+
+        Physics physics = PageLayouts.PHYSICS.decoder().decode(page, pageFloats, new Physics());
+        physics.setId(new ObjectId(id).toHexString());
+        physics.setTimestamp(Instant.ofEpochMilli(payload.getLong(JournalFiles.ID_SIZE)));
+        int tail = JournalFiles.PAGE_OFFSET + PAGE_SIZE;
+        int sessionLength = payload.getShort(tail);
+        physics.setSessionId(new String(payload.array(), tail + Short.BYTES,
+                Math.min(sessionLength, length - tail - Short.BYTES), StandardCharsets.UTF_8));
+        return physics;
+    }
+
+    private boolean openSegment() throws IOException {
+        Path path = JournalFiles.segmentPath(directory, segmentIndex);
+        if (!Files.exists(path)) {
+            // Segmento già cancellato o mai creato: salta al primo successivo disponibile
+            long current = segmentIndex;
+            Long following = JournalFiles.segments(directory).stream()
+                    .filter(index -> index > current).findFirst().orElse(null);
+            if (following == null) return false;
+            segmentIndex = following;
+            offset = 0;
+            path = JournalFiles.segmentPath(directory, segmentIndex);
+        }
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        return true;
+    }
+
+    private void closeSegment() {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.debug("Error closing journal segment {}", segmentIndex, e);
+        }
+        channel = null;
+    }
+
+    private boolean hasNewerSegment() {
+        // Il writer numera i segmenti in modo consecutivo
+        return Files.exists(JournalFiles.segmentPath(directory, segmentIndex + 1));
+    }
+
+    /**
+     * Cancella i segmenti precedenti al checkpoint. Su Windows un segmento
+     * ancora mappato dal writer non si può cancellare: si riprova al giro dopo.
+     */
+    private void deleteAcknowledgedSegments() throws IOException {
+        boolean deleted = true;
+        for (long index : JournalFiles.segments(directory)) {
+            if (index >= checkpoint.segment()) break;
+            try {
+                Files.deleteIfExists(JournalFiles.segmentPath(directory, index));
+            } catch (IOException e) {
+                deleted = false;
+                log.debug("Journal segment {} not deletable yet", index);
+            }
+        }
+        if (deleted) {
+            deletedBefore = checkpoint.segment();
+        }
+        segments = JournalFiles.segments(directory).size();
+    }
+
+    public PhysicsWriter getWriter() {
+        return writer;
+    }
+
+    public JournalStats getStats() {
+        JournalFiles.Position position = checkpoint;
+        return JournalStats.builder()
+                .segments(segments)
+                .drainedRecords(drainedRecords.get())
+                .replayFailures(replayFailures.get())
+                .checkpointSegment(position != null ? position.segment() : 0)
+                .checkpointOffset(position != null ? position.offset() : 0)
+                .build();
+    }
+}
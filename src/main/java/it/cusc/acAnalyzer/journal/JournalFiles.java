@@ -0,0 +1,75 @@
+package it.cusc.acAnalyzer.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Layout su disco del journal: segmenti numerati "segment-NNNNNNNNNN.wal" e
+ * un file di checkpoint con la posizione fino a cui i record sono su MongoDB.
+ *
+ * Record: [int length][int crc32][payload], payload =
+ * [12 byte ObjectId][long timestamp][pagina physics][short len][sessionId UTF-8].
+ * La length viene scritta per ultima: 0 significa "non ancora scritto",
+ * END_OF_SEGMENT che il writer è passato al segmento successivo.
+ */
+final class JournalFiles {
+    static final int HEADER_SIZE = 8;
+    static final int ID_SIZE = 12;
+    static final int PAGE_OFFSET = ID_SIZE + Long.BYTES;
+    static final int END_OF_SEGMENT = -1;
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final String CHECKPOINT = "checkpoint";
+
+    private JournalFiles() {
+    }
+
+    static Path segmentPath(Path directory, long index) {
+        return directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    /** Trova gli indici dei segmenti presenti, in ordine crescente */
+    static List<Long> segments(Path directory) throws IOException {
+        List<Long> indexes = new ArrayList<>();
+        if (!Files.isDirectory(directory)) return indexes;
+
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> indexes.add(Long.parseLong(
+                            name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()))));
+        }
+        indexes.sort(null);
+        return indexes;
+    }
+
+    static Position readCheckpoint(Path directory) throws IOException {
+        Path path = directory.resolve(CHECKPOINT);
+        if (!Files.exists(path)) return null;
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (buffer.remaining() < Long.BYTES + Integer.BYTES) return null;
+        return new Position(buffer.getLong(), buffer.getInt());
+    }
+
+    /** Scrive il checkpoint su un file temporaneo e lo rinomina, per non lasciarlo mai a metà */
+    static void writeCheckpoint(Path directory, Position position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES + Integer.BYTES)
+                .putLong(position.segment())
+                .putInt(position.offset());
+        Path temp = directory.resolve(CHECKPOINT + ".tmp");
+        Files.write(temp, buffer.array());
+        Files.move(temp, directory.resolve(CHECKPOINT),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    record Position(long segment, int offset) {
+    }
+}
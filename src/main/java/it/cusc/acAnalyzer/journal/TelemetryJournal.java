@@ -0,0 +1,130 @@
+package it.cusc.acAnalyzer.journal;
+
+import it.cusc.acAnalyzer.config.TelemetryProperties;
+import it.cusc.acAnalyzer.core.layout.PageLayouts;
+import it.cusc.acAnalyzer.model.Physics;
+import it.cusc.acAnalyzer.pipeline.StageHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Lato scrittura del journal: handler dello stage persist che copia ogni
+ * frame in un segmento memory-mapped. Nessun I/O di rete sul thread di
+ * ingest; la replica su MongoDB è compito del {@link JournalDrainer}.
+ */
+@Slf4j
+public class TelemetryJournal implements StageHandler<Physics> {
+    private static final int PAGE_SIZE = PageLayouts.PHYSICS.size();
+
+    private final Path directory;
+    private final int segmentSize;
+    private final CRC32 crc = new CRC32();
+
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long segmentIndex;
+
+    private final AtomicLong appendedRecords = new AtomicLong();
+    private final AtomicLong appendedBytes = new AtomicLong();
+
+    public TelemetryJournal(TelemetryProperties.Journal config) {
+        this.directory = Paths.get(config.getDirectory());
+        this.segmentSize = config.getSegmentSizeMb() * 1024 * 1024;
+    }
+
+    /**
+     * Apre un nuovo segmento dopo quelli esistenti: la coda di un segmento
+     * lasciato da un crash non viene mai riscritta
+     */
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        List<Long> existing = JournalFiles.segments(directory);
+        openSegment(existing.isEmpty() ? 0 : existing.get(existing.size() - 1) + 1);
+    }
+
+    @Override
+    public boolean handle(Physics physics) throws IOException {
+        byte[] sessionId = physics.getSessionId().getBytes(StandardCharsets.UTF_8);
+        int length = JournalFiles.PAGE_OFFSET + PAGE_SIZE + Short.BYTES + sessionId.length;
+        int recordSize = JournalFiles.HEADER_SIZE + length;
+
+        int position = segment.position();
+        if (position + recordSize + Integer.BYTES > segmentSize) {
+            roll();
+            position = segment.position();
+        }
+
+        int payload = position + JournalFiles.HEADER_SIZE;
+        segment.put(payload, new ObjectId(physics.getId()).toByteArray());
+        segment.putLong(payload + JournalFiles.ID_SIZE, physics.getTimestamp().toEpochMilli());
+        PageLayouts.PHYSICS.encode(physics, segment, payload + JournalFiles.PAGE_OFFSET);
+        int tail = payload + JournalFiles.PAGE_OFFSET + PAGE_SIZE;
+        segment.putShort(tail, (short) sessionId.length);
+        segment.put(tail + Short.BYTES, sessionId);
+
+        crc.reset();
+        crc.update(segment.slice(payload, length));
+        segment.putInt(position + Integer.BYTES, (int) crc.getValue());
+        // La length per ultima: rende il record visibile al drainer
+        segment.putInt(position, length);
+        segment.position(position + recordSize);
+
+        appendedRecords.incrementAndGet();
+        appendedBytes.addAndGet(recordSize);
+        return true;
+    }
+
+    @Override
+    public void onStop() throws IOException {
+        close();
+    }
+
+    public void close() throws IOException {
+        if (channel == null) return;
+        segment.force();
+        channel.close();
+        channel = null;
+        segment = null;
+    }
+
+    private void roll() throws IOException {
+        segment.putInt(segment.position(), JournalFiles.END_OF_SEGMENT);
+        segment.force();
+        channel.close();
+        openSegment(segmentIndex + 1);
+    }
+
+    private void openSegment(long index) throws IOException {
+        segmentIndex = index;
+        channel = FileChannel.open(JournalFiles.segmentPath(directory, index),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        segment.order(ByteOrder.LITTLE_ENDIAN);
+        log.debug("Opened journal segment {}", index);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public long getAppendedRecords() {
+        return appendedRecords.get();
+    }
+
+    public long getAppendedBytes() {
+        return appendedBytes.get();
+    }
+}
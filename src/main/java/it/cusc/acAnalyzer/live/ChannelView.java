@@ -0,0 +1,42 @@
+package it.cusc.acAnalyzer.live;
+
+import java.util.Map;
+
+/**
+ * Sottoinsieme di canali servito da una o più destinazioni: il payload JSON e
+ * quello binario si costruiscono al più una volta per frame, e li riusano
+ * tutte le frequenze e tutti i client della vista
+ */
+class ChannelView<T> {
+    private final LiveFrameCodec<T> codec;
+    private final int[] selected;
+
+    private volatile Payload<T, Map<String, Object>> json;
+    private volatile Payload<T, byte[]> binary;
+
+    private record Payload<T, P>(T source, P value) {
+    }
+
+    ChannelView(LiveFrameCodec<T> codec, int[] selected) {
+        this.codec = codec;
+        this.selected = selected;
+    }
+
+    Map<String, Object> json(T frame) {
+        Payload<T, Map<String, Object>> payload = json;
+        if (payload == null || payload.source() != frame) {
+            payload = new Payload<>(frame, codec.toMap(frame, selected));
+            json = payload;
+        }
+        return payload.value();
+    }
+
+    byte[] binary(T frame) {
+        Payload<T, byte[]> payload = binary;
+        if (payload == null || payload.source() != frame) {
+            payload = new Payload<>(frame, codec.encode(frame, selected));
+            binary = payload;
+        }
+        return payload.value();
+    }
+}
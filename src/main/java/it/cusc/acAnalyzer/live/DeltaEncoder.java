@@ -0,0 +1,72 @@
+package it.cusc.acAnalyzer.live;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Sceglie i canali di un frame delta: quelli cambiati oltre epsilon rispetto
+ * all'ultimo valore inviato. Periodicamente, e quando arriva un nuovo
+ * client, invia un keyframe con tutti i canali per il riallineamento.
+ * Non è thread-safe: ogni istanza appartiene a un solo thread di invio.
+ */
+class DeltaEncoder<T> {
+    private final LiveFrameCodec<T> codec;
+    private final float[] epsilons;
+    private final long keyframeIntervalNanos;
+    private final int[] allChannels;
+    private final int[] changed;
+
+    // Per canale, il frame da cui è stato inviato l'ultimo valore: i frame
+    // pubblicati non cambiano più, quindi non serve copiare i valori
+    private final Object[] sentFrom;
+    private boolean keyframePending = true;
+    private long lastKeyframeAt;
+
+    DeltaEncoder(LiveFrameCodec<T> codec, float epsilon, Map<String, Float> channelEpsilons,
+                 long keyframeIntervalMillis) {
+        this.codec = codec;
+        this.keyframeIntervalNanos = keyframeIntervalMillis * 1_000_000L;
+        this.allChannels = IntStream.range(0, codec.channelCount()).toArray();
+        this.changed = new int[codec.channelCount()];
+        this.sentFrom = new Object[codec.channelCount()];
+        this.epsilons = new float[codec.channelCount()];
+        for (int i = 0; i < epsilons.length; i++) {
+            epsilons[i] = channelEpsilons.getOrDefault(codec.getSchema().getChannels().get(i).getName(), epsilon);
+        }
+    }
+
+    /**
+     * Il prossimo frame sarà un keyframe (nuovo client o stream ripreso)
+     */
+    void requestKeyframe() {
+        keyframePending = true;
+    }
+
+    /**
+     * Indici ordinati dei canali da inviare; vuoto se nulla è cambiato
+     */
+    @SuppressWarnings("unchecked")
+    int[] next(T frame) {
+        long now = System.nanoTime();
+        if (keyframePending || (keyframeIntervalNanos > 0 && now - lastKeyframeAt >= keyframeIntervalNanos)) {
+            Arrays.fill(sentFrom, frame);
+            keyframePending = false;
+            lastKeyframeAt = now;
+            return allChannels;
+        }
+
+        int count = 0;
+        for (int i = 0; i < sentFrom.length; i++) {
+            if (codec.differs(frame, (T) sentFrom[i], i, epsilons[i])) {
+                changed[count++] = i;
+                sentFrom[i] = frame;
+            }
+        }
+        return Arrays.copyOf(changed, count);
+    }
+
+    boolean isKeyframe(int[] selected) {
+        return selected.length == allChannels.length;
+    }
+}
@@ -0,0 +1,57 @@
+package it.cusc.acAnalyzer.live;
+
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.Map;
+
+/**
+ * Destinazione delta, JSON e binaria (/bin), con il proprio encoder: i due
+ * formati condividono la scelta dei canali, quindi restano allineati
+ */
+class DeltaTopic<T> {
+    private final String destination;
+    private final String binaryDestination;
+    private final LiveFrameCodec<T> codec;
+    private final DeltaEncoder<T> encoder;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final LiveSubscriptions subscriptions;
+    private long seenSubscriptions = -1;
+
+    DeltaTopic(String destination, LiveFrameCodec<T> codec, DeltaEncoder<T> encoder,
+               SimpMessagingTemplate messagingTemplate, LiveSubscriptions subscriptions) {
+        this.destination = destination;
+        this.binaryDestination = destination + LivePublisher.BINARY_SUFFIX;
+        this.codec = codec;
+        this.encoder = encoder;
+        this.messagingTemplate = messagingTemplate;
+        this.subscriptions = subscriptions;
+    }
+
+    void send(T frame) {
+        boolean json = subscriptions.hasSubscribers(destination);
+        boolean binary = subscriptions.hasSubscribers(binaryDestination);
+        if (!json && !binary) {
+            // Nessun client: alla ripresa si parte da un keyframe
+            encoder.requestKeyframe();
+            return;
+        }
+
+        // Un nuovo client non ha lo stato precedente
+        long subscribed = subscriptions.subscribeCount();
+        if (subscribed != seenSubscriptions) {
+            encoder.requestKeyframe();
+            seenSubscriptions = subscribed;
+        }
+
+        int[] selected = encoder.next(frame);
+        if (selected.length == 0) return;
+        if (json) {
+            Map<String, Object> delta = codec.toMap(frame, selected);
+            delta.put("keyframe", encoder.isKeyframe(selected));
+            messagingTemplate.convertAndSend(destination, delta);
+        }
+        if (binary) {
+            messagingTemplate.convertAndSend(binaryDestination, codec.encode(frame, selected));
+        }
+    }
+}
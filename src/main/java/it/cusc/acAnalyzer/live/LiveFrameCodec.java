@@ -0,0 +1,225 @@
+package it.cusc.acAnalyzer.live;
+
+import it.cusc.acAnalyzer.core.layout.PageField;
+import it.cusc.acAnalyzer.core.layout.PageLayout;
+import it.cusc.acAnalyzer.model.Coordinates;
+import it.cusc.acAnalyzer.model.LiveSchema;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Frame binari live, little-endian, leggibili dal browser con un DataView:
+ * <pre>
+ * u8 versione | u8 flag | u16 canali | i32 packetId | i64 timestamp (ms)
+ * bitmap dei canali presenti (1 bit per canale, LSB first)
+ * valori dei canali presenti, in ordine di schema (int32, float32 o utf8)
+ * </pre>
+ * I canali sono i campi del layout della pagina; le stringhe viaggiano a
+ * lunghezza fissa (count byte, terminate da zero). Un frame può portare
+ * solo una parte dei canali: la bitmap dice quali.
+ */
+public class LiveFrameCodec<T> {
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 16;
+    // Frame completo: tutti i canali presenti
+    public static final int FLAG_KEYFRAME = 1;
+
+    private final List<PageField<T>> channels = new ArrayList<>();
+    private final ToIntFunction<T> sequence;
+    private final Function<T, Instant> timestamp;
+    private final int[] channelBytes;
+    private final int[] allChannels;
+    private final int bitmapBytes;
+    private final LiveSchema schema;
+
+    public LiveFrameCodec(PageLayout<T> layout, ToIntFunction<T> sequence, Function<T, Instant> timestamp) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+
+        List<LiveSchema.Channel> descriptors = new ArrayList<>();
+        for (PageField<T> field : layout.getFields()) {
+            String type = switch (field.getType()) {
+                case INT -> "int32";
+                case STRING -> "utf8";
+                default -> "float32";
+            };
+            int count = switch (field.getType()) {
+                case INT -> 1;
+                case STRING -> field.getLength();
+                default -> field.floatCount();
+            };
+            descriptors.add(new LiveSchema.Channel(channels.size(), field.getName(), type, count));
+            channels.add(field);
+        }
+        this.channelBytes = channels.stream().mapToInt(PageField::size).toArray();
+        this.allChannels = IntStream.range(0, channels.size()).toArray();
+        this.bitmapBytes = (channels.size() + 7) / 8;
+        this.schema = LiveSchema.builder()
+                .version(VERSION)
+                .name(layout.getName())
+                .byteOrder("little-endian")
+                .headerBytes(HEADER_BYTES)
+                .bitmapBytes(bitmapBytes)
+                .channels(descriptors)
+                .build();
+    }
+
+    public LiveSchema getSchema() {
+        return schema;
+    }
+
+    public int channelCount() {
+        return channels.size();
+    }
+
+    /**
+     * Indici ordinati dei canali richiesti; i nomi sconosciuti sono ignorati
+     */
+    public int[] select(Collection<String> names) {
+        List<Integer> selected = new ArrayList<>();
+        for (int i = 0; i < channels.size(); i++) {
+            if (names.contains(channels.get(i).getName())) {
+                selected.add(i);
+            }
+        }
+        return selected.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Frame completo; l'array restituito è l'unica allocazione
+     */
+    public byte[] encode(T frame) {
+        return encode(frame, allChannels);
+    }
+
+    /**
+     * Frame con i soli canali selezionati (indici ordinati), segnati nella bitmap
+     */
+    public byte[] encode(T frame, int[] selected) {
+        int valueBytes = 0;
+        for (int index : selected) {
+            valueBytes += channelBytes[index];
+        }
+        byte[] bytes = new byte[HEADER_BYTES + bitmapBytes + valueBytes];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        writeHeader(buffer, frame, selected.length == channels.size() ? FLAG_KEYFRAME : 0);
+        for (int index : selected) {
+            bytes[HEADER_BYTES + index / 8] |= (byte) (1 << (index % 8));
+        }
+        buffer.position(HEADER_BYTES + bitmapBytes);
+        for (int index : selected) {
+            writeChannel(buffer, channels.get(index), frame);
+        }
+        return bytes;
+    }
+
+    /**
+     * Gli stessi canali come mappa per i client JSON, con packetId e timestamp
+     */
+    public Map<String, Object> toMap(T frame, int[] selected) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("packetId", sequence.applyAsInt(frame));
+        values.put("timestamp", timestamp.apply(frame));
+        for (int index : selected) {
+            PageField<T> channel = channels.get(index);
+            values.put(channel.getName(), switch (channel.getType()) {
+                case INT -> channel.getIntGetter().applyAsInt(frame);
+                case FLOAT -> channel.getFloatGetter().get(frame);
+                case FLOAT_ARRAY -> channel.getFloats(frame);
+                case COORDINATES_ARRAY -> channel.getCoordinates(frame);
+                case STRING -> channel.getString(frame);
+            });
+        }
+        return values;
+    }
+
+    private void writeHeader(ByteBuffer buffer, T frame, int flags) {
+        Instant time = timestamp.apply(frame);
+        buffer.put((byte) VERSION)
+                .put((byte) flags)
+                .putShort((short) channels.size())
+                .putInt(sequence.applyAsInt(frame))
+                .putLong(time != null ? time.toEpochMilli() : 0L);
+    }
+
+    private void writeChannel(ByteBuffer buffer, PageField<T> channel, T frame) {
+        switch (channel.getType()) {
+            case INT -> buffer.putInt(channel.getIntGetter().applyAsInt(frame));
+            case FLOAT -> buffer.putFloat(channel.getFloatGetter().get(frame));
+            case FLOAT_ARRAY -> {
+                float[] values = channel.getFloats(frame);
+                for (int i = 0; i < channel.getLength(); i++) {
+                    buffer.putFloat(values != null && i < values.length ? values[i] : 0f);
+                }
+            }
+            case COORDINATES_ARRAY -> {
+                Coordinates[] values = channel.getCoordinates(frame);
+                for (int i = 0; i < channel.getLength(); i++) {
+                    Coordinates value = values != null && i < values.length ? values[i] : null;
+                    buffer.putFloat(value != null ? value.getX() : 0f)
+                            .putFloat(value != null ? value.getY() : 0f)
+                            .putFloat(value != null ? value.getZ() : 0f);
+                }
+            }
+            case STRING -> {
+                String value = channel.getString(frame);
+                byte[] text = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+                int length = Math.min(text.length, channel.getLength() - 1);
+                buffer.put(text, 0, length);
+                buffer.position(buffer.position() + channel.getLength() - length);
+            }
+        }
+    }
+
+    /**
+     * Confronto di un canale tra due frame: i float contano solo oltre epsilon
+     */
+    public boolean differs(T frame, T previous, int index, float epsilon) {
+        PageField<T> channel = channels.get(index);
+        return switch (channel.getType()) {
+            case INT -> channel.getIntGetter().applyAsInt(frame) != channel.getIntGetter().applyAsInt(previous);
+            case FLOAT -> differs(channel.getFloatGetter().get(frame), channel.getFloatGetter().get(previous), epsilon);
+            case FLOAT_ARRAY -> {
+                float[] values = channel.getFloats(frame);
+                float[] before = channel.getFloats(previous);
+                if (values == null || before == null) yield values != before;
+                for (int i = 0; i < Math.min(values.length, before.length); i++) {
+                    if (differs(values[i], before[i], epsilon)) yield true;
+                }
+                yield values.length != before.length;
+            }
+            case COORDINATES_ARRAY -> {
+                Coordinates[] values = channel.getCoordinates(frame);
+                Coordinates[] before = channel.getCoordinates(previous);
+                if (values == null || before == null) yield values != before;
+                for (int i = 0; i < Math.min(values.length, before.length); i++) {
+                    if (values[i] == null || before[i] == null) {
+                        if (values[i] != before[i]) yield true;
+                    } else if (differs(values[i].getX(), before[i].getX(), epsilon)
+                            || differs(values[i].getY(), before[i].getY(), epsilon)
+                            || differs(values[i].getZ(), before[i].getZ(), epsilon)) {
+                        yield true;
+                    }
+                }
+                yield values.length != before.length;
+            }
+            case STRING -> !Objects.equals(channel.getString(frame), channel.getString(previous));
+        };
+    }
+
+    private static boolean differs(float value, float previous, float epsilon) {
+        return Math.abs(value - previous) > epsilon || Float.isNaN(value) != Float.isNaN(previous);
+    }
+}
@@ -0,0 +1,217 @@
+package it.cusc.acAnalyzer.live;
+
+import it.cusc.acAnalyzer.config.TelemetryProperties;
+import it.cusc.acAnalyzer.core.layout.PageLayouts;
+import it.cusc.acAnalyzer.model.Graphics;
+import it.cusc.acAnalyzer.model.LiveSchema;
+import it.cusc.acAnalyzer.model.Physics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Stream physics live a frequenza scelta dal client: /topic/physics riceve
+ * ogni frame pubblicato, /topic/physics/{hz} solo l'ultimo frame disponibile
+ * a ogni tick della propria frequenza. I frame intermedi vengono scartati
+ * (conflation) invece di accodarsi per i client lenti.
+ * Sotto ogni frequenza i client possono chiedere solo una parte dei canali:
+ * .../group/{gruppo} per i gruppi configurati, .../fields/{a,b,c} per una
+ * lista libera. .../delta invia solo i canali cambiati, con keyframe
+ * periodici; lo stesso vale per /topic/graphics/delta. Ogni destinazione ha
+ * la variante binaria con suffisso /bin (vedi LiveFrameCodec), codificata
+ * una sola volta per frame.
+ */
+@Service
+@Slf4j
+public class LivePublisher {
+    public static final String PHYSICS_TOPIC = "/topic/physics";
+    public static final String GRAPHICS_TOPIC = "/topic/graphics";
+    public static final String DELTA_PATH = "/delta";
+    public static final String BINARY_SUFFIX = "/bin";
+    public static final String GROUP_PATH = "/group/";
+    public static final String FIELDS_PATH = "/fields/";
+
+    // Limite alle viste memorizzate: le liste libere le sceglie il client
+    private static final int MAX_VIEWS = 1024;
+    private static final Target UNKNOWN = new Target(null, null, false);
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final LiveSubscriptions subscriptions;
+    private final TelemetryProperties.Live config;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, List<String>> groups;
+    private final LiveFrameCodec<Physics> physicsCodec =
+            new LiveFrameCodec<>(PageLayouts.PHYSICS, Physics::getPacketId, Physics::getTimestamp);
+    private final LiveFrameCodec<Graphics> graphicsCodec =
+            new LiveFrameCodec<>(PageLayouts.GRAPHICS, Graphics::getPacketId, Graphics::getTimestamp);
+    private final ChannelView<Physics> allChannels =
+            new ChannelView<>(physicsCodec, IntStream.range(0, physicsCodec.channelCount()).toArray());
+    private final RateTopic fullRate;
+    private final DeltaTopic<Graphics> graphicsDelta;
+
+    // Vista per selezione di canali e destinazione risolta, condivise tra le frequenze
+    private final Map<String, ChannelView<Physics>> views = new ConcurrentHashMap<>();
+    private final Map<String, Target> targets = new ConcurrentHashMap<>();
+
+    // Ultimo frame dello stage publish: unico punto di contatto con la pipeline
+    private volatile Physics latestPhysics;
+
+    /** Destinazione di una vista: frequenza (come prefisso), canali e formato */
+    private record Target(String prefix, ChannelView<Physics> view, boolean binary) {
+    }
+
+    public LivePublisher(SimpMessagingTemplate messagingTemplate,
+                         LiveSubscriptions subscriptions,
+                         TelemetryProperties telemetryProperties) {
+        this.messagingTemplate = messagingTemplate;
+        this.subscriptions = subscriptions;
+        this.config = telemetryProperties.getLive();
+        this.groups = config.getGroups();
+        this.fullRate = new RateTopic(PHYSICS_TOPIC);
+        this.graphicsDelta = deltaTopic(GRAPHICS_TOPIC + DELTA_PATH, graphicsCodec);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "AC-Live");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        for (int hz : config.getRatesHz()) {
+            if (hz <= 0) continue;
+            RateTopic topic = new RateTopic(PHYSICS_TOPIC + "/" + hz);
+            scheduler.scheduleAtFixedRate(topic::tick, 0, 1_000_000L / hz, TimeUnit.MICROSECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Chiamato dallo stage publish della pipeline physics, mai dal poller
+     */
+    public void publishPhysics(Physics physics) {
+        latestPhysics = physics;
+        fullRate.send(physics);
+    }
+
+    /**
+     * Chiamato dallo stage graphics, con i frame già filtrati dal watcher
+     */
+    public void publishGraphics(Graphics graphics) {
+        if (subscriptions.hasSubscribers(GRAPHICS_TOPIC)) {
+            messagingTemplate.convertAndSend(GRAPHICS_TOPIC, graphics);
+        }
+        graphicsDelta.send(graphics);
+    }
+
+    /**
+     * Schema dei frame binari physics, per l'handshake dei client
+     */
+    public LiveSchema getPhysicsSchema() {
+        return physicsCodec.getSchema();
+    }
+
+    public LiveSchema getGraphicsSchema() {
+        return graphicsCodec.getSchema();
+    }
+
+    public Map<String, List<String>> getGroups() {
+        return groups;
+    }
+
+    private <T> DeltaTopic<T> deltaTopic(String destination, LiveFrameCodec<T> codec) {
+        DeltaEncoder<T> encoder = new DeltaEncoder<>(codec, config.getDeltaEpsilon(), config.getDeltaEpsilons(),
+                config.getKeyframeIntervalMillis());
+        return new DeltaTopic<>(destination, codec, encoder, messagingTemplate, subscriptions);
+    }
+
+    private Target target(String destination) {
+        if (targets.size() >= MAX_VIEWS) {
+            targets.clear();
+            views.clear();
+        }
+        return targets.computeIfAbsent(destination, this::resolve);
+    }
+
+    private Target resolve(String destination) {
+        if (!destination.startsWith(PHYSICS_TOPIC + "/")) return UNKNOWN;
+
+        boolean binary = destination.endsWith(BINARY_SUFFIX);
+        String path = binary ? destination.substring(0, destination.length() - BINARY_SUFFIX.length()) : destination;
+        List<String> names;
+        int at = path.indexOf(GROUP_PATH);
+        if (at >= 0) {
+            names = groups.get(path.substring(at + GROUP_PATH.length()));
+        } else if ((at = path.indexOf(FIELDS_PATH)) >= 0) {
+            names = Arrays.asList(path.substring(at + FIELDS_PATH.length()).split(","));
+        } else {
+            return UNKNOWN;
+        }
+        if (names == null) return UNKNOWN;
+
+        int[] selected = physicsCodec.select(names);
+        if (selected.length == 0) return UNKNOWN;
+        ChannelView<Physics> view = views.computeIfAbsent(Arrays.toString(selected),
+                key -> new ChannelView<>(physicsCodec, selected));
+        return new Target(path.substring(0, at), view, binary);
+    }
+
+    /** Una frequenza: destinazione JSON, variante binaria, delta e viste sui canali */
+    private class RateTopic {
+        private final String destination;
+        private final String binaryDestination;
+        private final DeltaTopic<Physics> delta;
+        private Physics lastSent;
+
+        RateTopic(String destination) {
+            this.destination = destination;
+            this.binaryDestination = destination + BINARY_SUFFIX;
+            this.delta = deltaTopic(destination + DELTA_PATH, physicsCodec);
+        }
+
+        /** Tick della frequenza fissa; gira solo sul thread dello scheduler */
+        void tick() {
+            try {
+                Physics physics = latestPhysics;
+                if (physics == null || physics == lastSent) return;
+                send(physics);
+                lastSent = physics;
+            } catch (Exception e) {
+                // Un'eccezione fermerebbe le esecuzioni successive del tick
+                log.error("Error publishing {}", destination, e);
+            }
+        }
+
+        void send(Physics physics) {
+            // Serializzato una volta e condiviso da tutti i client della destinazione
+            if (subscriptions.hasSubscribers(destination)) {
+                messagingTemplate.convertAndSend(destination, physics);
+            }
+            if (subscriptions.hasSubscribers(binaryDestination)) {
+                messagingTemplate.convertAndSend(binaryDestination, allChannels.binary(physics));
+            }
+            // Delta rispetto all'ultimo frame inviato da questa frequenza
+            delta.send(physics);
+
+            // Gruppi e liste di canali: solo quelle con sottoscrittori
+            for (String active : subscriptions.activeDestinations()) {
+                if (!active.startsWith(destination)) continue;
+                Target target = target(active);
+                if (target.view() == null || !destination.equals(target.prefix())) continue;
+                messagingTemplate.convertAndSend(active,
+                        target.binary() ? target.view().binary(physics) : target.view().json(physics));
+            }
+        }
+    }
+}
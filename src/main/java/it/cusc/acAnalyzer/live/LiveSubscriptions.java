@@ -0,0 +1,99 @@
+package it.cusc.acAnalyzer.live;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sottoscrizioni STOMP attive per destinazione: i publisher live non
+ * serializzano nulla per le destinazioni senza client
+ */
+@Component
+@Slf4j
+public class LiveSubscriptions {
+    // sessione STOMP -> (id sottoscrizione -> destinazione)
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+    // destinazione -> client; la voce si rimuove a zero (le destinazioni /fields le sceglie il client)
+    private final Map<String, Integer> counts = new ConcurrentHashMap<>();
+    // Destinazioni con almeno un client, ricalcolate a ogni cambio
+    private volatile Set<String> active = Set.of();
+    private final AtomicLong subscribes = new AtomicLong();
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String destination = accessor.getDestination();
+        if (accessor.getSessionId() == null || accessor.getSubscriptionId() == null || destination == null) return;
+
+        String previous = sessions.computeIfAbsent(accessor.getSessionId(), id -> new ConcurrentHashMap<>())
+                .put(accessor.getSubscriptionId(), destination);
+        if (previous != null) {
+            decrement(previous);
+        }
+        counts.merge(destination, 1, Integer::sum);
+        subscribes.incrementAndGet();
+        refresh();
+        log.debug("Session {} subscribed to {}", accessor.getSessionId(), destination);
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> subscriptions = sessions.get(accessor.getSessionId());
+        if (subscriptions == null || accessor.getSubscriptionId() == null) return;
+
+        String destination = subscriptions.remove(accessor.getSubscriptionId());
+        if (destination != null) {
+            decrement(destination);
+            refresh();
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> subscriptions = sessions.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::decrement);
+            refresh();
+        }
+    }
+
+    public boolean hasSubscribers(String destination) {
+        return counts.containsKey(destination);
+    }
+
+    public int subscribers(String destination) {
+        return counts.getOrDefault(destination, 0);
+    }
+
+    /**
+     * Sottoscrizioni ricevute finora: se cambia, gli stream delta ripartono da un keyframe
+     */
+    public long subscribeCount() {
+        return subscribes.get();
+    }
+
+    /**
+     * Istantanea immutabile, da iterare a ogni tick senza lock
+     */
+    public Set<String> activeDestinations() {
+        return active;
+    }
+
+    private synchronized void refresh() {
+        active = Set.copyOf(counts.keySet());
+    }
+
+    private void decrement(String destination) {
+        counts.computeIfPresent(destination, (d, count) -> count > 1 ? count - 1 : null);
+    }
+}
@@ -0,0 +1,246 @@
+package it.cusc.acAnalyzer.live;
+
+import it.cusc.acAnalyzer.config.TelemetryProperties;
+import it.cusc.acAnalyzer.model.LiveClientStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Protezione dai client lenti sul canale outbound STOMP. Per ogni sessione
+ * conta i messaggi accodati e non ancora scritti sul socket: la sessione è
+ * avvolta sotto il ConcurrentWebSocketSessionDecorator di Spring, così un
+ * messaggio fermo nel suo buffer conta come in coda e il lag cresce finché
+ * il client non riceve davvero qualcosa. Oltre la soglia la
+ * sessione è degradata e riceve un messaggio per topic alla volta (quelli
+ * nuovi sono scartati finché il precedente dello stesso topic non è
+ * scritto); se resta ferma oltre il limite viene disconnessa.
+ * I topic delta sono esclusi dalla conflation: l'encoder considera già
+ * inviati i canali del messaggio, uno scartato lascerebbe il client con
+ * valori vecchi fino al keyframe successivo.
+ * Le risposte non-topic (CONNECTED, ERROR, handshake) passano sempre.
+ */
+@Component
+@Slf4j
+public class SlowConsumerGuard implements ExecutorChannelInterceptor {
+    private static final String TOPIC_PREFIX = "/topic/";
+
+    private final TelemetryProperties.WebSocket config;
+    private final Map<String, ClientState> clients = new ConcurrentHashMap<>();
+    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+
+    public SlowConsumerGuard(TelemetryProperties telemetryProperties) {
+        this.config = telemetryProperties.getWebsocket();
+    }
+
+    /**
+     * Registra le sessioni WebSocket per poter chiudere quelle bloccate e le
+     * avvolge per contare le scritture effettive sul socket
+     */
+    public WebSocketHandlerDecoratorFactory decoratorFactory() {
+        return handler -> new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                ClientState client = new ClientState();
+                clients.put(session.getId(), client);
+                sessions.put(session.getId(), session);
+                super.afterConnectionEstablished(new WebSocketSessionDecorator(session) {
+                    @Override
+                    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+                        super.sendMessage(message);
+                        client.written();
+                    }
+                });
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sessions.remove(session.getId());
+                clients.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        ClientState client = sessionId != null ? clients.get(sessionId) : null;
+        if (client == null) return message;
+
+        String destination = topicDestination(message);
+        if (destination != null) {
+            long lagMillis = client.lagMillis();
+            if (config.getDisconnectLagMillis() > 0 && lagMillis >= config.getDisconnectLagMillis()) {
+                disconnect(sessionId, lagMillis);
+                client.dropped.incrementAndGet();
+                return null;
+            }
+            if (client.degraded && !isDelta(destination) && client.pending(destination) > 0) {
+                // Conflation: il client riceverà il prossimo, non questo
+                client.dropped.incrementAndGet();
+                return null;
+            }
+            client.destinations.computeIfAbsent(destination, d -> new AtomicInteger()).incrementAndGet();
+        }
+
+        client.enqueued(config.getDegradeInFlight());
+        return message;
+    }
+
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        // Rifiutato dall'executor (coda piena): non arriverà mai all'handler
+        if (!sent || ex != null) {
+            handled(message, false);
+        }
+    }
+
+    /**
+     * Il messaggio ha lasciato l'executor: se non ci sono errori è nel buffer
+     * della sessione, e conta come scritto solo quando arriva sul socket
+     */
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        handled(message, ex == null);
+    }
+
+    public List<LiveClientStats> getStats() {
+        return clients.entrySet().stream()
+                .map(entry -> entry.getValue().toStats(entry.getKey()))
+                .sorted(Comparator.comparingLong(LiveClientStats::getLagMillis).reversed())
+                .toList();
+    }
+
+    private void handled(Message<?> message, boolean buffered) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        ClientState client = sessionId != null ? clients.get(sessionId) : null;
+        if (client == null) return;
+
+        // La conflation per topic limita la coda dell'executor
+        String destination = topicDestination(message);
+        if (destination != null) {
+            AtomicInteger pending = client.destinations.get(destination);
+            if (pending != null) {
+                pending.decrementAndGet();
+            }
+        }
+        if (!buffered) {
+            client.lost();
+        }
+    }
+
+    private static String topicDestination(Message<?> message) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) return null;
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        return destination != null && destination.startsWith(TOPIC_PREFIX) ? destination : null;
+    }
+
+    private static boolean isDelta(String destination) {
+        return destination.endsWith(LivePublisher.DELTA_PATH)
+                || destination.endsWith(LivePublisher.DELTA_PATH + LivePublisher.BINARY_SUFFIX);
+    }
+
+    private void disconnect(String sessionId, long lagMillis) {
+        WebSocketSession session = sessions.remove(sessionId);
+        if (session == null) return;
+        log.warn("Disconnecting slow WebSocket client {} (no progress for {} ms)", sessionId, lagMillis);
+        try {
+            session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            log.debug("Error closing slow client {}: {}", sessionId, e.getMessage());
+        }
+    }
+
+    /** Stato di una sessione, aggiornato dal thread del broker, dagli executor outbound e dalle scritture sul socket */
+    private static class ClientState {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final Map<String, AtomicInteger> destinations = new ConcurrentHashMap<>();
+        private final AtomicLong sent = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        // Istante (nanoTime) dell'ultima scrittura sul socket con messaggi in coda; 0 = coda vuota
+        private volatile long waitingSince;
+        private volatile int maxInFlight;
+        private volatile boolean degraded;
+        private volatile int degradedCount;
+
+        int pending(String destination) {
+            AtomicInteger pending = destinations.get(destination);
+            return pending != null ? pending.get() : 0;
+        }
+
+        void enqueued(int degradeInFlight) {
+            int current = inFlight.incrementAndGet();
+            if (current == 1) {
+                waitingSince = System.nanoTime();
+            }
+            if (current > maxInFlight) {
+                maxInFlight = current;
+            }
+            if (!degraded && degradeInFlight > 0 && current >= degradeInFlight) {
+                degraded = true;
+                degradedCount++;
+            }
+        }
+
+        /** Messaggio scritto sul socket: l'unico progresso che conta */
+        void written() {
+            sent.incrementAndGet();
+            // Frame inviati direttamente dalla sessione (es. ERROR) non passano da enqueued
+            int remaining = inFlight.updateAndGet(current -> Math.max(0, current - 1));
+            if (remaining == 0) {
+                // Coda svuotata: il client ha recuperato
+                waitingSince = 0;
+                degraded = false;
+            } else {
+                waitingSince = System.nanoTime();
+            }
+        }
+
+        /** Messaggio che non arriverà mai al socket */
+        void lost() {
+            dropped.incrementAndGet();
+            if (inFlight.updateAndGet(current -> Math.max(0, current - 1)) == 0) {
+                waitingSince = 0;
+                degraded = false;
+            }
+        }
+
+        long lagMillis() {
+            long since = waitingSince;
+            return since == 0 ? 0 : (System.nanoTime() - since) / 1_000_000L;
+        }
+
+        LiveClientStats toStats(String sessionId) {
+            return LiveClientStats.builder()
+                    .sessionId(sessionId)
+                    .inFlight(inFlight.get())
+                    .maxInFlight(maxInFlight)
+                    .lagMillis(lagMillis())
+                    .sent(sent.get())
+                    .dropped(dropped.get())
+                    .degraded(degraded)
+                    .degradedCount(degradedCount)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package it.cusc.acAnalyzer.model;
+
+import it.cusc.acAnalyzer.model.enums.AnalysisType;
+import it.cusc.acAnalyzer.service.LapAnalysisService.LapAnalysisResult;
+import it.cusc.acAnalyzer.service.TyreAnalysisService.TyreAnalysisResult;
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Risultato di un'analisi di una sessione chiusa, persistito dalla cache.
+ * L'id è sessionId:tipo; il fingerprint è quello di TyreProperties al
+ * momento del calcolo (vuoto per le analisi che non ne dipendono).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor(access = AccessLevel.PUBLIC)
+@Document(collection = "analysisResults")
+public class AnalysisResult {
+    @Id
+    private String id;
+    @Indexed
+    private String sessionId;
+    private AnalysisType type;
+    private String fingerprint;
+    private Instant computedAt;
+    private LapAnalysisResult laps;
+    private TyreAnalysisResult tyres;
+}
@@ -0,0 +1,14 @@
+package it.cusc.acAnalyzer.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class BatchWriterStats {
+    private long batches;
+    private long documents;
+    private long failedDocuments;
+    private int pending;
+    private long lastFlushMillis;  // durata dell'ultimo flush
+}
@@ -0,0 +1,22 @@
+package it.cusc.acAnalyzer.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Statistiche di un canale physics su un intervallo: first e last seguono
+ * l'ordine dei timestamp, mean è pesata sul numero di frame del rollup
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChannelStats {
+    private double min;
+    private double max;
+    private double mean;
+    private double first;
+    private double last;
+}
@@ -1,15 +1,18 @@
 package it.cusc.acAnalyzer.model;
 
-import it.cusc.acAnalyzer.core.SharedMemoryUtils;
+import it.cusc.acAnalyzer.core.layout.PageLayouts;
 import it.cusc.acAnalyzer.model.enums.ACStatus;
 import it.cusc.acAnalyzer.model.enums.FlagType;
+import it.cusc.acAnalyzer.model.enums.GraphicsEvent;
 import it.cusc.acAnalyzer.model.enums.SessionType;
 import lombok.*;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 
 import java.nio.MappedByteBuffer;
 import java.time.Instant;
+import java.util.Set;
 
 @Data
 @Builder
@@ -21,6 +24,9 @@ public class Graphics {
     private String id;
     private String sessionId;
     private Instant timestamp;
+    // Motivi dell'emissione, calcolati alla lettura: pubblicati ma non persistiti
+    @Transient
+    private Set<GraphicsEvent> events;
 
     private int packetId;
     private ACStatus status;
@@ -50,45 +56,10 @@ public class Graphics {
     private int isInPitLane;
     private float surfaceGrip;
     private int mandatoryPitDone;
-    public static final int BUFFER_SIZE = 1024; // Adjust based on actual struct size
+    public static final int BUFFER_SIZE = PageLayouts.GRAPHICS.size();
 
     public void readFromBuffer(MappedByteBuffer buffer) {
-        buffer.position(0);
-
-        packetId = buffer.getInt();
-        status = ACStatus.values()[buffer.getInt()];
-        session = SessionType.fromValue(buffer.getInt());
-
-        currentTime = SharedMemoryUtils.readString(buffer, 15);
-        lastTime = SharedMemoryUtils.readString(buffer, 15);
-        bestTime = SharedMemoryUtils.readString(buffer, 15);
-        split = SharedMemoryUtils.readString(buffer, 15);
-
-        completedLaps = buffer.getInt();
-        position = buffer.getInt();
-        currentTimeMs = buffer.getInt();
-        lastTimeMs = buffer.getInt();
-        bestTimeMs = buffer.getInt();
-        sessionTimeLeft = buffer.getFloat();
-        distanceTraveled = buffer.getFloat();
-        isInPit = buffer.getInt();
-        currentSectorIndex = buffer.getInt();
-        lastSectorTime = buffer.getInt();
-        numberOfLaps = buffer.getInt();
-
-        tyreCompound = SharedMemoryUtils.readString(buffer, 33);
-
-        replayTimeMultiplier = buffer.getFloat();
-        normalizedCarPosition = buffer.getFloat();
-
-        SharedMemoryUtils.readFloatArray(buffer, carCoordinates);
-
-        penaltyTime = buffer.getFloat();
-        flag = FlagType.values()[buffer.getInt()];
-        idealLineOn = buffer.getInt();
-        isInPitLane = buffer.getInt();
-        surfaceGrip = buffer.getFloat();
-        mandatoryPitDone = buffer.getInt();
+        PageLayouts.GRAPHICS.decode(buffer, this);
     }
 }
 
@@ -0,0 +1,16 @@
+package it.cusc.acAnalyzer.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder(toBuilder = true)
+public class JournalStats {
+    private long appendedRecords;
+    private long appendedBytes;
+    private long drainedRecords;    // record confermati su MongoDB
+    private long replayFailures;    // scritture fallite, ripartite dal checkpoint
+    private int segments;           // segmenti ancora su disco
+    private long checkpointSegment;
+    private int checkpointOffset;
+}
@@ -0,0 +1,34 @@
+package it.cusc.acAnalyzer.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Un giro di una sessione, scritto durante l'ingest: estremi temporali e
+ * primo/ultimo frame physics del giro, tempi e validità dalla pagina
+ * graphics. L'id è sessionId:giro, quindi riscriverlo è idempotente.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor(access = AccessLevel.PUBLIC)
+@Document(collection = "laps")
+public class LapIndex {
+    @Id
+    private String id;
+    private String sessionId;
+    private int lap;                 // numero del giro, da 1 (completedLaps a fine giro)
+    private Instant start;           // timestamp del primo frame physics
+    private Instant end;             // timestamp dell'ultimo frame physics
+    private String firstPhysicsId;
+    private String lastPhysicsId;
+    private int frames;
+    private int lapTimeMs;
+    private String lapTime;
+    private int[] sectorTimesMs;
+    private boolean valid;
+    private boolean complete;        // false per il giro interrotto dallo stop della sessione
+}
@@ -0,0 +1,19 @@
+package it.cusc.acAnalyzer.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class LiveClientStats {
+    private String sessionId;
+    // Messaggi accodati verso il client e non ancora scritti sul socket
+    private int inFlight;
+    private int maxInFlight;
+    // Da quanto il client ha messaggi in coda senza che ne venga scritto uno
+    private long lagMillis;
+    private long sent;
+    private long dropped;
+    private boolean degraded;
+    private int degradedCount;
+}
@@ -0,0 +1,34 @@
+package it.cusc.acAnalyzer.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Schema dei frame binari live, inviato al client prima dei frame: i valori
+ * seguono l'ordine dei canali, ognuno con count elementi int32 o float32
+ */
+@Data
+@Builder
+public class LiveSchema {
+    private int version;
+    private String name;
+    private String byteOrder;
+    private int headerBytes;
+    private int bitmapBytes;
+    private List<Channel> channels;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Channel {
+        private int index;
+        private String name;
+        private String type;
+        private int count;
+    }
+}
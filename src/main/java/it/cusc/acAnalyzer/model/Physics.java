@@ -1,6 +1,6 @@
 package it.cusc.acAnalyzer.model;
 
-import it.cusc.acAnalyzer.core.SharedMemoryUtils;
+import it.cusc.acAnalyzer.core.layout.PageLayouts;
 import lombok.*;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.annotation.Id;
@@ -79,88 +79,11 @@ public class Physics {
     private Coordinates[] tyreContactHeading = new Coordinates[4];
     private float brakeBias;
     private float[] localVelocity = new float[3];
-    public static final int BUFFER_SIZE = 1024; // Adjust based on actual struct size
+    public static final int BUFFER_SIZE = PageLayouts.PHYSICS.size();
 
     public void readFromBuffer(MappedByteBuffer buffer) {
-        buffer.position(0);
-
-        packetId = buffer.getInt();
-        gas = buffer.getFloat();
-        brake = buffer.getFloat();
-        fuel = buffer.getFloat();
-        gear = buffer.getInt();
-        rpms = buffer.getInt();
-        steerAngle = buffer.getFloat();
-        speedKmh = buffer.getFloat();
-
-        SharedMemoryUtils.readFloatArray(buffer, velocity);
-        SharedMemoryUtils.readFloatArray(buffer, accG);
-        SharedMemoryUtils.readFloatArray(buffer, wheelSlip);
-        SharedMemoryUtils.readFloatArray(buffer, wheelLoad);
-        SharedMemoryUtils.readFloatArray(buffer, wheelsPressure);
-        SharedMemoryUtils.readFloatArray(buffer, wheelAngularSpeed);
-        SharedMemoryUtils.readFloatArray(buffer, tyreWear);
-        SharedMemoryUtils.readFloatArray(buffer, tyreDirtyLevel);
-        SharedMemoryUtils.readFloatArray(buffer, tyreCoreTemperature);
-        SharedMemoryUtils.readFloatArray(buffer, camberRad);
-        SharedMemoryUtils.readFloatArray(buffer, suspensionTravel);
-
-        drs = buffer.getFloat();
-        tc = buffer.getFloat();
-        heading = buffer.getFloat();
-        pitch = buffer.getFloat();
-        roll = buffer.getFloat();
-        cgHeight = buffer.getFloat();
-
-        SharedMemoryUtils.readFloatArray(buffer, carDamage);
-
-        numberOfTyresOut = buffer.getInt();
-        pitLimiterOn = buffer.getInt();
-        abs = buffer.getFloat();
-
-        kersCharge = buffer.getFloat();
-        kersInput = buffer.getFloat();
-        autoShifterOn = buffer.getInt();
-
-        SharedMemoryUtils.readFloatArray(buffer, rideHeight);
-
-        turboBoost = buffer.getFloat();
-        ballast = buffer.getFloat();
-        airDensity = buffer.getFloat();
-        airTemp = buffer.getFloat();
-        roadTemp = buffer.getFloat();
-
-        SharedMemoryUtils.readFloatArray(buffer, localAngularVelocity);
-        finalFF = buffer.getFloat();
-        performanceMeter = buffer.getFloat();
-
-        engineBrake = buffer.getInt();
-        ersRecoveryLevel = buffer.getInt();
-        ersPowerLevel = buffer.getInt();
-        ersHeatCharging = buffer.getInt();
-        ersIsCharging = buffer.getInt();
-        kersCurrentKJ = buffer.getFloat();
-        drsAvailable = buffer.getInt();
-        drsEnabled = buffer.getInt();
-
-        SharedMemoryUtils.readFloatArray(buffer, brakeTemp);
-        clutch = buffer.getFloat();
-
-        SharedMemoryUtils.readFloatArray(buffer, tyreTempI);
-        SharedMemoryUtils.readFloatArray(buffer, tyreTempM);
-        SharedMemoryUtils.readFloatArray(buffer, tyreTempO);
-
-        isAIControlled = buffer.getInt();
-
-        SharedMemoryUtils.readCoordinatesArray(buffer, tyreContactPoint);
-        SharedMemoryUtils.readCoordinatesArray(buffer, tyreContactNormal);
-        SharedMemoryUtils.readCoordinatesArray(buffer, tyreContactHeading);
-
-        brakeBias = buffer.getFloat();
-
-        SharedMemoryUtils.readFloatArray(buffer, localVelocity);
+        PageLayouts.PHYSICS.decode(buffer, this);
     }
-
 }
 
 
@@ -0,0 +1,113 @@
+package it.cusc.acAnalyzer.model;
+
+import it.cusc.acAnalyzer.core.codec.GorillaCodec;
+import it.cusc.acAnalyzer.core.codec.GorillaColumns;
+import it.cusc.acAnalyzer.core.layout.ColumnBuffer;
+import it.cusc.acAnalyzer.core.layout.PageLayouts;
+import it.cusc.acAnalyzer.model.enums.ChannelEncoding;
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.DoublePredicate;
+
+/**
+ * Bucket temporale di frame physics in formato colonnare: sessionId e nomi
+ * dei campi compaiono una volta sola, ogni canale è un array impacchettato
+ * con una posizione (o N per gli array) per frame.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor(access = AccessLevel.PUBLIC)
+@Document(collection = "physicsBuckets")
+public class PhysicsBucket {
+    @Id
+    private String id;
+    private String sessionId;
+    private Instant start;
+    private Instant end;
+    private int count;
+    private ChannelEncoding encoding;
+
+    // Encoding RAW
+    private long[] timestamps;               // epoch millis di ogni frame
+    private Map<String, int[]> intChannels;
+    private Map<String, float[]> floatChannels;
+
+    // Encoding GORILLA: un binario BSON per canale
+    private byte[] packedTimestamps;
+    private Map<String, byte[]> packedChannels;
+
+    /**
+     * Ricostruisce i frame in ordine; con encoding GORILLA i canali vengono
+     * decodificati in streaming, riga per riga
+     */
+    public void forEachFrame(Consumer<Physics> consumer) {
+        if (encoding == ChannelEncoding.GORILLA) {
+            GorillaCodec.LongDecoder times = GorillaColumns.timestamps(packedTimestamps);
+            GorillaColumns.Cursor<Physics> cursor =
+                    new GorillaColumns.Cursor<>(PageLayouts.PHYSICS, packedChannels, null);
+            for (int row = 0; row < count; row++) {
+                consumer.accept(withMetadata(cursor.next(new Physics()), row, times.next()));
+            }
+        } else {
+            for (int row = 0; row < count; row++) {
+                Physics physics = ColumnBuffer.readRow(PageLayouts.PHYSICS, intChannels, floatChannels, row, new Physics());
+                consumer.accept(withMetadata(physics, row, timestamps[row]));
+            }
+        }
+    }
+
+    /**
+     * Come {@link #forEachFrame}, ma solo per le righe in cui il canale float
+     * soddisfa il test: il canale si legge da solo e gli altri si ricostruiscono
+     * solo per le righe selezionate. Nessuna riga se il canale non è salvato.
+     */
+    public void forEachFrameWhere(String channel, DoublePredicate test, Consumer<Physics> consumer) {
+        if (encoding == ChannelEncoding.GORILLA) {
+            GorillaCodec.FloatDecoder values = GorillaColumns.floatChannel(PageLayouts.PHYSICS, packedChannels, channel);
+            if (values == null) return;
+            BitSet rows = new BitSet(count);
+            for (int row = 0; row < count; row++) {
+                if (test.test(values.next())) {
+                    rows.set(row);
+                }
+            }
+            if (rows.isEmpty()) return;
+
+            GorillaCodec.LongDecoder times = GorillaColumns.timestamps(packedTimestamps);
+            GorillaColumns.Cursor<Physics> cursor =
+                    new GorillaColumns.Cursor<>(PageLayouts.PHYSICS, packedChannels, null);
+            int last = rows.length();
+            for (int row = 0; row < last; row++) {
+                long timestamp = times.next();
+                if (rows.get(row)) {
+                    consumer.accept(withMetadata(cursor.next(new Physics()), row, timestamp));
+                } else {
+                    cursor.skip();
+                }
+            }
+        } else {
+            float[] values = floatChannels.get(channel);
+            if (values == null) return;
+            for (int row = 0; row < count; row++) {
+                if (test.test(values[row])) {
+                    Physics physics = ColumnBuffer.readRow(PageLayouts.PHYSICS, intChannels, floatChannels, row, new Physics());
+                    consumer.accept(withMetadata(physics, row, timestamps[row]));
+                }
+            }
+        }
+    }
+
+    private Physics withMetadata(Physics physics, int row, long timestamp) {
+        physics.setId(id + ":" + row);
+        physics.setSessionId(sessionId);
+        physics.setTimestamp(Instant.ofEpochMilli(timestamp));
+        return physics;
+    }
+}
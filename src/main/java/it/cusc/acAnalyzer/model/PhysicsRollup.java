@@ -0,0 +1,31 @@
+package it.cusc.acAnalyzer.model;
+
+import it.cusc.acAnalyzer.model.enums.RollupTier;
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Riepilogo dei frame physics di una finestra (100 ms, 1 s o un giro):
+ * per ogni canale min, max, media, primo e ultimo valore. L'id è
+ * deterministico (sessione, tier, finestra), quindi riscriverlo è idempotente.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor(access = AccessLevel.PUBLIC)
+@Document(collection = "physicsRollups")
+public class PhysicsRollup {
+    @Id
+    private String id;
+    private String sessionId;
+    private RollupTier tier;
+    private int lap;
+    private Instant start;
+    private Instant end;
+    private int count;
+    private Map<String, ChannelStats> channels;
+}
@@ -0,0 +1,17 @@
+package it.cusc.acAnalyzer.model;
+
+import it.cusc.acAnalyzer.model.enums.PollStrategy;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class PollerStats {
+    private PollStrategy strategy;
+    private long polls;
+    private long framesSeen;        // packetId nuovi, decodificati e inoltrati
+    private long framesDuplicated;  // poll che hanno trovato lo stesso packetId
+    private long framesSkipped;     // packetId saltati tra due poll
+    private long overruns;          // scadenze mancate di oltre un periodo
+    private int lastPacketId;
+}
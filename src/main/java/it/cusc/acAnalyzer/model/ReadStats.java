@@ -0,0 +1,13 @@
+package it.cusc.acAnalyzer.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ReadStats {
+    private long reads;
+    private long retriedReads;   // letture riuscite dopo almeno un retry
+    private long tornReads;      // tentativi scartati perché il packetId è cambiato
+    private long droppedFrames;  // frame scartati a retry esauriti
+}
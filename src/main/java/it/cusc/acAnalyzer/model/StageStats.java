@@ -0,0 +1,18 @@
+package it.cusc.acAnalyzer.model;
+
+import it.cusc.acAnalyzer.model.enums.OverflowPolicy;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class StageStats {
+    private String name;
+    private OverflowPolicy policy;
+    private int capacity;
+    private int depth;
+    private long offered;
+    private long processed;
+    private long dropped;
+    private long failed;
+}
@@ -1,6 +1,6 @@
 package it.cusc.acAnalyzer.model;
 
-import it.cusc.acAnalyzer.core.SharedMemoryUtils;
+import it.cusc.acAnalyzer.core.layout.PageLayouts;
 import lombok.*;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.annotation.Id;
@@ -14,10 +14,13 @@ import java.time.Instant;
 @AllArgsConstructor(access = AccessLevel.PUBLIC)
 @Document(collection = "staticInfo")
 public class StaticInfo {
+    // Catalogo delle sessioni: un solo record per sessione, id = sessionId
     @Id
     private String id;
     private String sessionId;
+    // Inizio sessione (prima lettura) e ultima modifica della pagina
     private Instant timestamp;
+    private Instant updatedAt;
 
     private int smVersion;
     private int acVersion;
@@ -62,63 +65,9 @@ public class StaticInfo {
     private int pitWindowStart;
     private int pitWindowEnd;
     private int isOnline;
-    public static final int BUFFER_SIZE = 1024; // Adjust based on actual struct size
+    public static final int BUFFER_SIZE = PageLayouts.STATIC_INFO.size();
 
     public void readFromBuffer(MappedByteBuffer buffer) {
-        buffer.position(0);
-
-        smVersion = buffer.getInt();
-        acVersion = buffer.getInt();
-        numberOfSessions = buffer.getInt();
-        numCars = buffer.getInt();
-
-        carModel = SharedMemoryUtils.readString(buffer, 33);
-        track = SharedMemoryUtils.readString(buffer, 33);
-        playerName = SharedMemoryUtils.readString(buffer, 33);
-        playerSurname = SharedMemoryUtils.readString(buffer, 33);
-        playerNick = SharedMemoryUtils.readString(buffer, 33);
-
-        sectorCount = buffer.getInt();
-        maxTorque = buffer.getFloat();
-        maxPower = buffer.getFloat();
-        maxRpm = buffer.getInt();
-        maxFuel = buffer.getFloat();
-
-        SharedMemoryUtils.readFloatArray(buffer, suspensionMaxTravel);
-        SharedMemoryUtils.readFloatArray(buffer, tyreRadius);
-
-        maxTurboBoost = buffer.getFloat();
-        deprecated1 = buffer.getFloat();
-        deprecated2 = buffer.getFloat();
-
-        penaltiesEnabled = buffer.getInt();
-        aidFuelRate = buffer.getFloat();
-        aidTireRate = buffer.getFloat();
-        aidMechanicalDamage = buffer.getFloat();
-        aidAllowTyreBlankets = buffer.getInt();
-        aidStability = buffer.getFloat();
-        aidAutoClutch = buffer.getInt();
-        aidAutoBlip = buffer.getInt();
-
-        hasDRS = buffer.getInt();
-        hasERS = buffer.getInt();
-        hasKERS = buffer.getInt();
-        kersMaxJ = buffer.getFloat();
-        engineBrakeSettingsCount = buffer.getInt();
-        ersPowerControllerCount = buffer.getInt();
-        trackSPlineLength = buffer.getFloat();
-
-        trackConfiguration = SharedMemoryUtils.readString(buffer, 33);
-
-        ersMaxJ = buffer.getFloat();
-        isTimedRace = buffer.getInt();
-        hasExtraLap = buffer.getInt();
-
-        carSkin = SharedMemoryUtils.readString(buffer, 33);
-
-        reversedGridPositions = buffer.getInt();
-        pitWindowStart = buffer.getInt();
-        pitWindowEnd = buffer.getInt();
-        isOnline = buffer.getInt();
+        PageLayouts.STATIC_INFO.decode(buffer, this);
     }
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package it.cusc.acAnalyzer.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class TelemetryStats {
+    private String sessionId;
+    private PollerStats poller;
+    private ReadStats physicsReads;
+    private ReadStats graphicsReads;
+    private List<StageStats> pipeline;
+    private BatchWriterStats batchWriter;
+    private JournalStats journal;
+    // Scritture di indice giri e rollup fuori dalla pipeline
+    private List<StageStats> derivedWrites;
+    private List<LiveClientStats> liveClients;
+}
@@ -0,0 +1,6 @@
+package it.cusc.acAnalyzer.model.enums;
+
+public enum AnalysisType {
+    LAPS,       // LapAnalysisService.analyzeSession
+    TYRES       // TyreAnalysisService.analyzeSession, dipende da TyreProperties
+}
@@ -0,0 +1,6 @@
+package it.cusc.acAnalyzer.model.enums;
+
+public enum CacheEviction {
+    LRU,    // scarta il risultato letto meno di recente
+    LFU     // scarta il risultato letto meno volte
+}
@@ -0,0 +1,6 @@
+package it.cusc.acAnalyzer.model.enums;
+
+public enum ChannelEncoding {
+    RAW,        // array impacchettati
+    GORILLA     // delta-of-delta per timestamp e interi, XOR per i float
+}
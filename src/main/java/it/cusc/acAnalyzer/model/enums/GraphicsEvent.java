@@ -0,0 +1,15 @@
+package it.cusc.acAnalyzer.model.enums;
+
+/**
+ * Motivo per cui un frame graphics è stato emesso
+ */
+public enum GraphicsEvent {
+    LAP,        // completedLaps cambiato
+    SECTOR,     // currentSectorIndex o lastSectorTime cambiati
+    STATUS,     // stato del gioco (live, pausa, replay)
+    SESSION,    // tipo di sessione
+    PIT,        // ingresso/uscita da box o pit lane
+    POSITION,
+    FLAG,
+    HEARTBEAT   // nessun campo chiave cambiato: solo aggiornamento periodico, non persistito
+}
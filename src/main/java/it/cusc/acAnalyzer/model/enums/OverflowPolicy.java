@@ -0,0 +1,7 @@
+package it.cusc.acAnalyzer.model.enums;
+
+public enum OverflowPolicy {
+    DROP_OLDEST,    // scarta l'elemento più vecchio in coda
+    BLOCK,          // il producer attende che si liberi spazio
+    SAMPLE          // sopra metà capacità accetta un elemento ogni sampleRate
+}
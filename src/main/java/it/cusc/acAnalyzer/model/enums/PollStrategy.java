@@ -0,0 +1,7 @@
+package it.cusc.acAnalyzer.model.enums;
+
+public enum PollStrategy {
+    BUSY_SPIN,          // latenza minima, un core sempre occupato
+    PARK_NANOS,         // parkNanos fino alla prossima scadenza
+    ADAPTIVE_BACKOFF    // spin quando arrivano frame, poi yield e park crescente
+}
@@ -0,0 +1,16 @@
+package it.cusc.acAnalyzer.model.enums;
+
+import lombok.Getter;
+
+@Getter
+public enum RollupTier {
+    LAP(0),             // un rollup per giro (completedLaps dalla pagina graphics)
+    SECOND(1000),
+    MILLIS_100(100);
+
+    private final long windowMillis;
+
+    RollupTier(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+}
@@ -0,0 +1,6 @@
+package it.cusc.acAnalyzer.model.enums;
+
+public enum StorageMode {
+    DOCUMENT,   // un documento physics per frame
+    BUCKET      // un documento per intervallo di tempo, canali impacchettati
+}
@@ -0,0 +1,14 @@
+package it.cusc.acAnalyzer.model.projection;
+
+import it.cusc.acAnalyzer.model.Physics;
+
+import java.time.Instant;
+
+/**
+ * Proiezione physics per il calcolo dei consumi
+ */
+public record FuelSample(Instant timestamp, float fuel) implements PhysicsSample {
+    public static FuelSample from(Physics physics) {
+        return new FuelSample(physics.getTimestamp(), physics.getFuel());
+    }
+}
@@ -0,0 +1,25 @@
+package it.cusc.acAnalyzer.model.projection;
+
+import it.cusc.acAnalyzer.model.Graphics;
+
+import java.time.Instant;
+
+/**
+ * Proiezione graphics per l'analisi dei giri: contatore giri, settore
+ * corrente e tempi dell'ultimo giro e settore
+ */
+public record LapSample(Instant timestamp,
+                        int completedLaps,
+                        int currentSectorIndex,
+                        int lastSectorTime,
+                        String lastTime,
+                        int lastTimeMs) {
+    public static LapSample from(Graphics graphics) {
+        return new LapSample(graphics.getTimestamp(),
+                graphics.getCompletedLaps(),
+                graphics.getCurrentSectorIndex(),
+                graphics.getLastSectorTime(),
+                graphics.getLastTime(),
+                graphics.getLastTimeMs());
+    }
+}
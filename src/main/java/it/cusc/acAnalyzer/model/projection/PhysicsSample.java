@@ -0,0 +1,11 @@
+package it.cusc.acAnalyzer.model.projection;
+
+import java.time.Instant;
+
+/**
+ * Proiezione di un frame physics: ogni componente del record corrisponde a
+ * un campo di {@link it.cusc.acAnalyzer.model.Physics} da leggere da MongoDB
+ */
+public interface PhysicsSample {
+    Instant timestamp();
+}
@@ -0,0 +1,14 @@
+package it.cusc.acAnalyzer.model.projection;
+
+/**
+ * Statistiche di sessione calcolate da MongoDB con un'unica $group sui
+ * documenti physics ordinati per timestamp
+ */
+public record SessionAggregate(long count,
+                               double averageSpeed,
+                               float maxSpeed,
+                               float firstFuel,
+                               float lastFuel,
+                               float[] firstTyreWear,
+                               float[] lastTyreWear) {
+}
@@ -0,0 +1,14 @@
+package it.cusc.acAnalyzer.model.projection;
+
+import it.cusc.acAnalyzer.model.Physics;
+
+import java.time.Instant;
+
+/**
+ * Proiezione physics per le statistiche di velocità
+ */
+public record SpeedSample(Instant timestamp, float speedKmh) implements PhysicsSample {
+    public static SpeedSample from(Physics physics) {
+        return new SpeedSample(physics.getTimestamp(), physics.getSpeedKmh());
+    }
+}
@@ -0,0 +1,42 @@
+package it.cusc.acAnalyzer.model.projection;
+
+import java.util.List;
+
+/**
+ * Metriche gomme calcolate lato server: medie, massimi e conteggi nel range
+ * ottimale per ruota, usura agli estremi della sessione e totali per stint.
+ * La temperatura di battistrada è la media di interno, centro ed esterno.
+ */
+public record TyreAggregate(long count,
+                            double[] avgInnerTemp,
+                            double[] avgMiddleTemp,
+                            double[] avgOuterTemp,
+                            double[] maxInnerTemp,
+                            double[] maxMiddleTemp,
+                            double[] maxOuterTemp,
+                            long[] tempOptimalCount,
+                            double[] avgPressure,
+                            double[] maxPressure,
+                            double[] minPressure,
+                            long[] pressureOptimalCount,
+                            float[] firstWear,
+                            float[] lastWear,
+                            int firstTyresOut,
+                            int lastTyresOut,
+                            List<Stint> stints) {
+
+    /**
+     * Campioni tra due ingressi ai box (pitLimiterOn 0 -> 1), in ordine di
+     * timestamp; il campione di ingresso apre lo stint successivo
+     */
+    public record Stint(long count,
+                        double[] sumTreadTemp,
+                        double[] sumPressure,
+                        double[] firstTreadTemp,
+                        double[] firstPressure,
+                        float[] firstWear,
+                        float[] lastWear,
+                        int firstTyresOut,
+                        int lastTyresOut) {
+    }
+}
@@ -0,0 +1,37 @@
+package it.cusc.acAnalyzer.model.projection;
+
+import it.cusc.acAnalyzer.model.Physics;
+
+import java.time.Instant;
+
+/**
+ * Proiezione physics per l'analisi gomme: temperature, pressioni, usura
+ * e i due campi usati per riconoscere stint e giri
+ */
+public record TyreSample(Instant timestamp,
+                         float[] tyreTempI,
+                         float[] tyreTempM,
+                         float[] tyreTempO,
+                         float[] wheelsPressure,
+                         float[] tyreWear,
+                         int pitLimiterOn,
+                         int numberOfTyresOut) implements PhysicsSample {
+    public static TyreSample from(Physics physics) {
+        return new TyreSample(physics.getTimestamp(),
+                physics.getTyreTempI(),
+                physics.getTyreTempM(),
+                physics.getTyreTempO(),
+                physics.getWheelsPressure(),
+                physics.getTyreWear(),
+                physics.getPitLimiterOn(),
+                physics.getNumberOfTyresOut());
+    }
+
+    /**
+     * Copia con array propri, per chi conserva il campione oltre il frame
+     */
+    public TyreSample copy() {
+        return new TyreSample(timestamp, tyreTempI.clone(), tyreTempM.clone(), tyreTempO.clone(),
+                wheelsPressure.clone(), tyreWear.clone(), pitLimiterOn, numberOfTyresOut);
+    }
+}
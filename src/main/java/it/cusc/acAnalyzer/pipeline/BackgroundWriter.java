@@ -0,0 +1,156 @@
+package it.cusc.acAnalyzer.pipeline;
+
+import it.cusc.acAnalyzer.config.TelemetryProperties;
+import it.cusc.acAnalyzer.model.StageStats;
+import it.cusc.acAnalyzer.model.enums.OverflowPolicy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Scrittura su MongoDB dei dati derivati fuori dal thread di uno stage: lo
+ * stage consegna i documenti a un ring buffer limitato (se è pieno si scarta
+ * il più vecchio) e un thread dedicato li scrive a blocchi. Un blocco fallito
+ * si riprova con attesa crescente; lo stage non aspetta mai il database.
+ */
+@Slf4j
+public class BackgroundWriter<T> implements Runnable {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @FunctionalInterface
+    public interface BatchWrite<T> {
+        void write(List<T> batch) throws Exception;
+    }
+
+    private final String name;
+    private final SpscRingBuffer<T> queue;
+    private final int batchSize;
+    private final BatchWrite<T> write;
+    private final long retryDelayNanos;
+    private final long maxRetryDelayNanos;
+    private final long drainTimeoutMillis;
+
+    // Stato del thread di scrittura
+    private final List<T> batch = new ArrayList<>();
+    private volatile int inFlight;
+
+    private final AtomicLong offered = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private volatile boolean running;
+    private volatile boolean stopping;
+    private Thread thread;
+
+    public BackgroundWriter(String name, TelemetryProperties.DerivedWrites config, int batchSize,
+                            BatchWrite<T> write) {
+        this.name = name;
+        this.queue = new SpscRingBuffer<>(config.getCapacity());
+        this.batchSize = batchSize;
+        this.write = write;
+        this.retryDelayNanos = TimeUnit.MILLISECONDS.toNanos(config.getRetryDelayMillis());
+        this.maxRetryDelayNanos = TimeUnit.MILLISECONDS.toNanos(config.getMaxRetryDelayMillis());
+        this.drainTimeoutMillis = config.getDrainTimeoutMillis();
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        stopping = false;
+        thread = new Thread(this, "AC-Writer-" + name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Solo dal thread dello stage (unico producer): non blocca mai
+     */
+    public void offer(T item) {
+        offered.incrementAndGet();
+        while (!queue.offer(item)) {
+            if (queue.dropOldest()) {
+                dropped.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Scrive quanto resta entro il timeout configurato; se MongoDB non
+     * risponde i documenti rimasti vanno persi e vengono contati come scartati
+     */
+    public synchronized void stop() {
+        if (thread == null) return;
+        stopping = true;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(drainTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        running = false;
+        LockSupport.unpark(thread);
+        thread = null;
+    }
+
+    @Override
+    public void run() {
+        long delayNanos = retryDelayNanos;
+        while (running) {
+            T item;
+            while (batch.size() < batchSize && (item = queue.poll()) != null) {
+                batch.add(item);
+            }
+            inFlight = batch.size();
+            if (batch.isEmpty()) {
+                if (stopping) break;
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                continue;
+            }
+
+            try {
+                write.write(batch);
+                written.addAndGet(batch.size());
+                batch.clear();
+                inFlight = 0;
+                delayNanos = retryDelayNanos;
+            } catch (Exception e) {
+                // Anche in fase di stop si riprova, finché stop() non scade il timeout
+                failed.incrementAndGet();
+                log.error("Error writing {} {} documents, retrying in {} ms",
+                        batch.size(), name, TimeUnit.NANOSECONDS.toMillis(delayNanos), e);
+                LockSupport.parkNanos(this, delayNanos);
+                delayNanos = Math.min(delayNanos * 2, maxRetryDelayNanos);
+            }
+        }
+
+        int lost = batch.size();
+        batch.clear();
+        while (queue.poll() != null) {
+            lost++;
+        }
+        inFlight = 0;
+        if (lost > 0) {
+            dropped.addAndGet(lost);
+            log.warn("Stopped {} writer with {} documents not written", name, lost);
+        }
+        running = false;
+    }
+
+    public StageStats getStats() {
+        return StageStats.builder()
+                .name(name)
+                .policy(OverflowPolicy.DROP_OLDEST)
+                .capacity(queue.capacity())
+                .depth(queue.size() + inFlight)
+                .offered(offered.get())
+                .processed(written.get())
+                .dropped(dropped.get())
+                .failed(failed.get())
+                .build();
+    }
+}
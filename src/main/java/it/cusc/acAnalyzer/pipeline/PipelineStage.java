@@ -0,0 +1,177 @@
+package it.cusc.acAnalyzer.pipeline;
+
+import it.cusc.acAnalyzer.config.TelemetryProperties;
+import it.cusc.acAnalyzer.model.StageStats;
+import it.cusc.acAnalyzer.model.enums.OverflowPolicy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Stage della pipeline: un thread dedicato consuma il proprio ring buffer,
+ * esegue l'handler e inoltra l'elemento allo stage successivo.
+ * Ogni coda ha un solo producer: lo stage precedente (o il reader per il primo).
+ */
+@Slf4j
+public class PipelineStage<T> implements Runnable {
+    private static final long MAX_IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final String name;
+    private final SpscRingBuffer<T> queue;
+    private final OverflowPolicy policy;
+    private final int sampleRate;
+    private final StageHandler<T> handler;
+    private PipelineStage<T> next;
+
+    private final AtomicLong offered = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private long sampleCounter;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public PipelineStage(String name, TelemetryProperties.Stage config, StageHandler<T> handler) {
+        this.name = name;
+        this.queue = new SpscRingBuffer<>(config.getCapacity());
+        this.policy = config.getPolicy();
+        this.sampleRate = Math.max(1, config.getSampleRate());
+        this.handler = handler;
+    }
+
+    void setNext(PipelineStage<T> next) {
+        this.next = next;
+    }
+
+    /**
+     * Chiamato solo dal producer di questo stage. Ritorna false se l'elemento è stato scartato
+     */
+    public boolean offer(T item) {
+        offered.incrementAndGet();
+        switch (policy) {
+            case DROP_OLDEST -> {
+                while (!queue.offer(item)) {
+                    if (queue.dropOldest()) {
+                        dropped.incrementAndGet();
+                    }
+                }
+                return true;
+            }
+            case BLOCK -> {
+                while (!queue.offer(item)) {
+                    if (!running) {
+                        dropped.incrementAndGet();
+                        return false;
+                    }
+                    LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                }
+                return true;
+            }
+            case SAMPLE -> {
+                boolean underPressure = queue.size() >= queue.capacity() / 2;
+                if ((underPressure && sampleCounter++ % sampleRate != 0) || !queue.offer(item)) {
+                    dropped.incrementAndGet();
+                    return false;
+                }
+                if (!underPressure) {
+                    sampleCounter = 0;
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        thread = new Thread(this, "AC-Pipeline-" + name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Ferma lo stage dopo aver svuotato la coda
+     */
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            handler.onStart();
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            log.error("Error starting pipeline stage {}", name, e);
+        }
+
+        long idleParkNanos = 1000;
+        while (running || !queue.isEmpty()) {
+            T item = queue.poll();
+            if (item == null) {
+                if (!running) break;
+                idle();
+                LockSupport.parkNanos(idleParkNanos);
+                idleParkNanos = Math.min(idleParkNanos << 1, MAX_IDLE_PARK_NANOS);
+                continue;
+            }
+            idleParkNanos = 1000;
+            process(item);
+        }
+
+        try {
+            handler.onStop();
+        } catch (Exception e) {
+            log.error("Error stopping pipeline stage {}", name, e);
+        }
+    }
+
+    private void idle() {
+        try {
+            handler.onIdle();
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            log.error("Error in pipeline stage {} while idle", name, e);
+        }
+    }
+
+    private void process(T item) {
+        try {
+            boolean forward = handler.handle(item);
+            processed.incrementAndGet();
+            if (forward && next != null) {
+                next.offer(item);
+            }
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            log.error("Error in pipeline stage {}", name, e);
+        }
+    }
+
+    public StageStats getStats() {
+        return StageStats.builder()
+                .name(name)
+                .policy(policy)
+                .capacity(queue.capacity())
+                .depth(queue.size())
+                .offered(offered.get())
+                .processed(processed.get())
+                .dropped(dropped.get())
+                .failed(failed.get())
+                .build();
+    }
+}
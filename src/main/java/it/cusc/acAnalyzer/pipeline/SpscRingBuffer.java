@@ -0,0 +1,78 @@
+package it.cusc.acAnalyzer.pipeline;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ring buffer limitato single-producer / single-consumer senza lock.
+ * Il producer pubblica con setRelease sul tail; il consumer avanza l'head
+ * con una CAS, così il producer può scartare l'elemento più vecchio
+ * ({@link #dropOldest()}) senza corse con il consumer.
+ * Gli slot consumati non vengono azzerati: restano referenziati al massimo
+ * capacity elementi già elaborati.
+ */
+public class SpscRingBuffer<E> {
+    private final Object[] buffer;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    public SpscRingBuffer(int capacity) {
+        // Capacità arrotondata alla potenza di due successiva
+        int size = 2;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.buffer = new Object[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Solo producer. Ritorna false se il buffer è pieno
+     */
+    public boolean offer(E element) {
+        long t = tail.get();
+        if (t - head.get() >= buffer.length) {
+            return false;
+        }
+        buffer[(int) (t & mask)] = element;
+        tail.setRelease(t + 1);
+        return true;
+    }
+
+    /**
+     * Solo consumer. Ritorna null se il buffer è vuoto
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        while (true) {
+            long h = head.get();
+            if (h >= tail.getAcquire()) {
+                return null;
+            }
+            E element = (E) buffer[(int) (h & mask)];
+            if (head.compareAndSet(h, h + 1)) {
+                return element;
+            }
+        }
+    }
+
+    /**
+     * Solo producer: scarta l'elemento più vecchio, se presente
+     */
+    public boolean dropOldest() {
+        long h = head.get();
+        return h < tail.get() && head.compareAndSet(h, h + 1);
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+}
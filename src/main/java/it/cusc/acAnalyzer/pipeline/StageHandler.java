@@ -0,0 +1,27 @@
+package it.cusc.acAnalyzer.pipeline;
+
+@FunctionalInterface
+public interface StageHandler<T> {
+    /**
+     * Elabora un elemento; se ritorna false l'elemento non passa allo stage successivo
+     */
+    boolean handle(T item) throws Exception;
+
+    /**
+     * Chiamato una volta dal thread dello stage, prima del primo elemento
+     */
+    default void onStart() throws Exception {
+    }
+
+    /**
+     * Chiamato dal thread dello stage quando la coda è vuota
+     */
+    default void onIdle() throws Exception {
+    }
+
+    /**
+     * Chiamato una volta, dopo che la coda è stata svuotata in fase di stop
+     */
+    default void onStop() throws Exception {
+    }
+}
@@ -0,0 +1,70 @@
+package it.cusc.acAnalyzer.pipeline;
+
+import it.cusc.acAnalyzer.config.TelemetryProperties;
+import it.cusc.acAnalyzer.model.StageStats;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Catena di stage collegati da ring buffer limitati. Il chiamante di
+ * {@link #submit} è l'unico producer del primo stage.
+ */
+public class StagedPipeline<T> {
+    private final List<PipelineStage<T>> stages;
+
+    private StagedPipeline(List<PipelineStage<T>> stages) {
+        this.stages = List.copyOf(stages);
+        for (int i = 0; i < stages.size() - 1; i++) {
+            stages.get(i).setNext(stages.get(i + 1));
+        }
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    public boolean submit(T item) {
+        return stages.get(0).offer(item);
+    }
+
+    public void start() {
+        // Avvia dal fondo, così ogni stage trova il successivo già in esecuzione
+        for (int i = stages.size() - 1; i >= 0; i--) {
+            stages.get(i).start();
+        }
+    }
+
+    /**
+     * Ferma gli stage in ordine: ognuno svuota la propria coda prima che si fermi il successivo
+     */
+    public void stop() {
+        for (PipelineStage<T> stage : stages) {
+            stage.stop();
+        }
+    }
+
+    public List<StageStats> getStats() {
+        List<StageStats> stats = new ArrayList<>(stages.size());
+        for (PipelineStage<T> stage : stages) {
+            stats.add(stage.getStats());
+        }
+        return stats;
+    }
+
+    public static class Builder<T> {
+        private final List<PipelineStage<T>> stages = new ArrayList<>();
+
+        public Builder<T> stage(String name, TelemetryProperties.Stage config, StageHandler<T> handler) {
+            stages.add(new PipelineStage<>(name, config, handler));
+            return this;
+        }
+
+        public StagedPipeline<T> build() {
+            if (stages.isEmpty()) {
+                throw new IllegalStateException("Pipeline without stages");
+            }
+            return new StagedPipeline<>(stages);
+        }
+    }
+}
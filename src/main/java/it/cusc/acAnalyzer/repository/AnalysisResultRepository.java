@@ -0,0 +1,10 @@
+package it.cusc.acAnalyzer.repository;
+
+import it.cusc.acAnalyzer.model.AnalysisResult;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AnalysisResultRepository extends MongoRepository<AnalysisResult, String> {
+    void deleteBySessionId(String sessionId);
+}
@@ -1,6 +1,8 @@
 package it.cusc.acAnalyzer.repository;
 
 import it.cusc.acAnalyzer.model.Graphics;
+import it.cusc.acAnalyzer.model.projection.LapSample;
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -8,12 +10,17 @@ import org.springframework.stereotype.Repository;
 import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface GraphicsRepository extends MongoRepository<Graphics, String> {
     List<Graphics> findBySessionId(String sessionId);
     List<Graphics> findBySessionIdAndTimestampBetween(String sessionId, Instant start, Instant end);
 
+    // Proiezione per l'analisi giri: legge solo i campi di LapSample, in streaming
+    @Meta(cursorBatchSize = 1000)
+    Stream<LapSample> streamLapSamplesBySessionIdOrderByTimestampAsc(String sessionId);
+
     @Query("{'sessionId': ?0, 'completedLaps': { $gt: 0 }}")
     List<Graphics> findCompletedLaps(String sessionId);
 
@@ -0,0 +1,15 @@
+package it.cusc.acAnalyzer.repository;
+
+import it.cusc.acAnalyzer.model.LapIndex;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface LapIndexRepository extends MongoRepository<LapIndex, String> {
+    List<LapIndex> findBySessionIdOrderByLapAsc(String sessionId);
+    Optional<LapIndex> findBySessionIdAndLap(String sessionId, int lap);
+    void deleteBySessionId(String sessionId);
+}
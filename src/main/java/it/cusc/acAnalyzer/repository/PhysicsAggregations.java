@@ -0,0 +1,21 @@
+package it.cusc.acAnalyzer.repository;
+
+import it.cusc.acAnalyzer.config.TyreProperties;
+import it.cusc.acAnalyzer.model.projection.SessionAggregate;
+import it.cusc.acAnalyzer.model.projection.TyreAggregate;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Statistiche physics calcolate da MongoDB con pipeline di aggregazione:
+ * al client arriva solo il risultato. Valgono per i documenti singoli
+ * (modalità DOCUMENT); i bucket compressi vanno decodificati lato client,
+ * quindi per quelle sessioni il risultato è vuoto.
+ */
+public interface PhysicsAggregations {
+    Optional<SessionAggregate> aggregateSession(String sessionId);
+
+    Optional<TyreAggregate> aggregateTyres(String sessionId, TyreProperties.Range temperatureRange,
+                                           List<TyreProperties.Range> pressureRanges);
+}
@@ -0,0 +1,224 @@
+package it.cusc.acAnalyzer.repository;
+
+import it.cusc.acAnalyzer.config.TyreProperties;
+import it.cusc.acAnalyzer.model.Physics;
+import it.cusc.acAnalyzer.model.projection.SessionAggregate;
+import it.cusc.acAnalyzer.model.projection.TyreAggregate;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class PhysicsAggregationsImpl implements PhysicsAggregations {
+    private static final int WHEELS = 4;
+
+    private final MongoTemplate mongoTemplate;
+    private final PhysicsIndexes physicsIndexes;
+
+    @Override
+    public Optional<SessionAggregate> aggregateSession(String sessionId) {
+        Document group = new Document("_id", null)
+                .append("count", new Document("$sum", 1))
+                .append("averageSpeed", new Document("$avg", "$speedKmh"))
+                .append("maxSpeed", new Document("$max", "$speedKmh"))
+                .append("firstFuel", new Document("$first", "$fuel"))
+                .append("lastFuel", new Document("$last", "$fuel"))
+                .append("firstTyreWear", new Document("$first", "$tyreWear"))
+                .append("lastTyreWear", new Document("$last", "$tyreWear"));
+
+        return aggregate(List.of(matchSession(sessionId), sortByTimestamp(), new Document("$group", group)))
+                .map(result -> new SessionAggregate(
+                        number(result, "count").longValue(),
+                        number(result, "averageSpeed").doubleValue(),
+                        number(result, "maxSpeed").floatValue(),
+                        number(result, "firstFuel").floatValue(),
+                        number(result, "lastFuel").floatValue(),
+                        floats(result.getList("firstTyreWear", Number.class)),
+                        floats(result.getList("lastTyreWear", Number.class))));
+    }
+
+    /**
+     * Una sola pipeline: temperatura di battistrada per ruota, numerazione
+     * degli stint con $setWindowFields (MongoDB 5.0+) e poi, in $facet, i
+     * totali di sessione e i totali per stint
+     */
+    @Override
+    public Optional<TyreAggregate> aggregateTyres(String sessionId, TyreProperties.Range temperatureRange,
+                                                  List<TyreProperties.Range> pressureRanges) {
+        List<Document> pipeline = new ArrayList<>();
+        pipeline.add(matchSession(sessionId));
+        pipeline.add(sortByTimestamp());
+        pipeline.add(new Document("$set", new Document("tread", new Document("$map", new Document()
+                .append("input", List.of(0, 1, 2, 3))
+                .append("as", "w")
+                .append("in", new Document("$divide", List.of(new Document("$add", List.of(
+                        elementAt("$tyreTempI", "$$w"),
+                        elementAt("$tyreTempM", "$$w"),
+                        elementAt("$tyreTempO", "$$w"))), 3)))))));
+        // Ingresso ai box: pitLimiterOn passa da 0 a 1 rispetto al campione precedente
+        pipeline.add(new Document("$setWindowFields", new Document()
+                .append("sortBy", new Document("timestamp", 1))
+                .append("output", new Document("previousPitLimiter", new Document("$shift", new Document()
+                        .append("output", "$pitLimiterOn")
+                        .append("by", -1)
+                        .append("default", 1))))));
+        pipeline.add(new Document("$set", new Document("stintStart", new Document("$cond", List.of(
+                new Document("$and", List.of(
+                        new Document("$eq", List.of("$pitLimiterOn", 1)),
+                        new Document("$eq", List.of("$previousPitLimiter", 0)))), 1, 0)))));
+        pipeline.add(new Document("$setWindowFields", new Document()
+                .append("sortBy", new Document("timestamp", 1))
+                .append("output", new Document("stint", new Document("$sum", "$stintStart")
+                        .append("window", new Document("documents", List.of("unbounded", "current")))))));
+
+        Document totals = new Document("_id", null)
+                .append("count", new Document("$sum", 1))
+                .append("firstWear", new Document("$first", "$tyreWear"))
+                .append("lastWear", new Document("$last", "$tyreWear"))
+                .append("firstTyresOut", new Document("$first", "$numberOfTyresOut"))
+                .append("lastTyresOut", new Document("$last", "$numberOfTyresOut"));
+        Document stints = new Document("_id", "$stint")
+                .append("count", new Document("$sum", 1))
+                .append("firstTread", new Document("$first", "$tread"))
+                .append("firstPressure", new Document("$first", "$wheelsPressure"))
+                .append("firstWear", new Document("$first", "$tyreWear"))
+                .append("lastWear", new Document("$last", "$tyreWear"))
+                .append("firstTyresOut", new Document("$first", "$numberOfTyresOut"))
+                .append("lastTyresOut", new Document("$last", "$numberOfTyresOut"));
+        for (int w = 0; w < WHEELS; w++) {
+            Document inner = elementAt("$tyreTempI", w);
+            Document middle = elementAt("$tyreTempM", w);
+            Document outer = elementAt("$tyreTempO", w);
+            Document tread = elementAt("$tread", w);
+            Document pressure = elementAt("$wheelsPressure", w);
+            TyreProperties.Range pressureRange = pressureRanges.get(w);
+
+            totals.append("avgInner" + w, new Document("$avg", inner))
+                    .append("avgMiddle" + w, new Document("$avg", middle))
+                    .append("avgOuter" + w, new Document("$avg", outer))
+                    .append("maxInner" + w, new Document("$max", inner))
+                    .append("maxMiddle" + w, new Document("$max", middle))
+                    .append("maxOuter" + w, new Document("$max", outer))
+                    .append("tempOptimal" + w, new Document("$sum", inRange(tread, temperatureRange)))
+                    .append("avgPressure" + w, new Document("$avg", pressure))
+                    .append("maxPressure" + w, new Document("$max", pressure))
+                    .append("minPressure" + w, new Document("$min", pressure))
+                    .append("pressureOptimal" + w, new Document("$sum", inRange(pressure, pressureRange)));
+            stints.append("sumTread" + w, new Document("$sum", tread))
+                    .append("sumPressure" + w, new Document("$sum", pressure));
+        }
+        pipeline.add(new Document("$facet", new Document()
+                .append("totals", List.of(new Document("$group", totals)))
+                .append("stints", List.of(new Document("$group", stints), new Document("$sort", new Document("_id", 1))))));
+
+        return aggregate(pipeline)
+                .filter(result -> !result.getList("totals", Document.class).isEmpty())
+                .map(result -> {
+                    Document total = result.getList("totals", Document.class).get(0);
+                    List<TyreAggregate.Stint> stintList = result.getList("stints", Document.class).stream()
+                            .map(stint -> new TyreAggregate.Stint(
+                                    number(stint, "count").longValue(),
+                                    perWheel(stint, "sumTread"),
+                                    perWheel(stint, "sumPressure"),
+                                    doubles(stint.getList("firstTread", Number.class)),
+                                    doubles(stint.getList("firstPressure", Number.class)),
+                                    floats(stint.getList("firstWear", Number.class)),
+                                    floats(stint.getList("lastWear", Number.class)),
+                                    number(stint, "firstTyresOut").intValue(),
+                                    number(stint, "lastTyresOut").intValue()))
+                            .toList();
+                    return new TyreAggregate(
+                            number(total, "count").longValue(),
+                            perWheel(total, "avgInner"),
+                            perWheel(total, "avgMiddle"),
+                            perWheel(total, "avgOuter"),
+                            perWheel(total, "maxInner"),
+                            perWheel(total, "maxMiddle"),
+                            perWheel(total, "maxOuter"),
+                            perWheelCount(total, "tempOptimal"),
+                            perWheel(total, "avgPressure"),
+                            perWheel(total, "maxPressure"),
+                            perWheel(total, "minPressure"),
+                            perWheelCount(total, "pressureOptimal"),
+                            floats(total.getList("firstWear", Number.class)),
+                            floats(total.getList("lastWear", Number.class)),
+                            number(total, "firstTyresOut").intValue(),
+                            number(total, "lastTyresOut").intValue(),
+                            stintList);
+                });
+    }
+
+    private Optional<Document> aggregate(List<Document> stages) {
+        physicsIndexes.ensureTimestampIndex();
+        List<AggregationOperation> operations = new ArrayList<>(stages.size());
+        for (Document stage : stages) {
+            operations.add(context -> stage);
+        }
+        Aggregation aggregation = Aggregation.newAggregation(operations)
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        return Optional.ofNullable(mongoTemplate.aggregate(aggregation, mongoTemplate.getCollectionName(Physics.class), Document.class)
+                .getUniqueMappedResult());
+    }
+
+    private static Document matchSession(String sessionId) {
+        return new Document("$match", new Document("sessionId", sessionId));
+    }
+
+    private static Document sortByTimestamp() {
+        return new Document("$sort", new Document("timestamp", 1));
+    }
+
+    private static Document elementAt(String array, Object index) {
+        return new Document("$arrayElemAt", List.of(array, index));
+    }
+
+    private static Document inRange(Object value, TyreProperties.Range range) {
+        return new Document("$cond", List.of(new Document("$and", List.of(
+                new Document("$gte", List.of(value, range.getMin())),
+                new Document("$lte", List.of(value, range.getMax())))), 1, 0));
+    }
+
+    private static Number number(Document document, String key) {
+        Object value = document.get(key);
+        return value instanceof Number number ? number : 0;
+    }
+
+    private static double[] perWheel(Document document, String prefix) {
+        double[] values = new double[WHEELS];
+        for (int w = 0; w < WHEELS; w++) {
+            values[w] = number(document, prefix + w).doubleValue();
+        }
+        return values;
+    }
+
+    private static long[] perWheelCount(Document document, String prefix) {
+        long[] values = new long[WHEELS];
+        for (int w = 0; w < WHEELS; w++) {
+            values[w] = number(document, prefix + w).longValue();
+        }
+        return values;
+    }
+
+    private static double[] doubles(List<Number> list) {
+        double[] values = new double[WHEELS];
+        for (int i = 0; list != null && i < Math.min(list.size(), WHEELS); i++) {
+            values[i] = list.get(i) != null ? list.get(i).doubleValue() : 0;
+        }
+        return values;
+    }
+
+    private static float[] floats(List<Number> list) {
+        float[] values = new float[WHEELS];
+        for (int i = 0; list != null && i < Math.min(list.size(), WHEELS); i++) {
+            values[i] = list.get(i) != null ? list.get(i).floatValue() : 0f;
+        }
+        return values;
+    }
+}
@@ -0,0 +1,67 @@
+package it.cusc.acAnalyzer.repository;
+
+import it.cusc.acAnalyzer.model.LapIndex;
+import it.cusc.acAnalyzer.model.Physics;
+import it.cusc.acAnalyzer.model.PhysicsBucket;
+import it.cusc.acAnalyzer.model.PhysicsRollup;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Component;
+
+/**
+ * Indici delle collection scritte durante l'ingest, usati da letture
+ * ordinate e aggregazioni: senza, l'ordinamento di una sessione lunga supera
+ * il limite di sort in memoria di MongoDB. L'auto-index-creation è spenta,
+ * quindi si creano qui, alla prima lettura o scrittura e non all'avvio,
+ * così l'applicazione parte anche senza database.
+ */
+@Component
+@RequiredArgsConstructor
+public class PhysicsIndexes {
+    private final MongoTemplate mongoTemplate;
+    private volatile boolean timestampIndexReady;
+    private volatile boolean bucketIndexReady;
+    private volatile boolean rollupIndexReady;
+    private volatile boolean lapIndexReady;
+
+    public void ensureTimestampIndex() {
+        if (timestampIndexReady) return;
+        mongoTemplate.indexOps(Physics.class).ensureIndex(new Index()
+                .named("session_timestamp")
+                .on("sessionId", Sort.Direction.ASC)
+                .on("timestamp", Sort.Direction.ASC));
+        timestampIndexReady = true;
+    }
+
+    public void ensureBucketIndex() {
+        if (bucketIndexReady) return;
+        mongoTemplate.indexOps(PhysicsBucket.class).ensureIndex(new Index()
+                .named("session_start")
+                .on("sessionId", Sort.Direction.ASC)
+                .on("start", Sort.Direction.ASC));
+        bucketIndexReady = true;
+    }
+
+    public void ensureRollupIndex() {
+        if (rollupIndexReady) return;
+        mongoTemplate.indexOps(PhysicsRollup.class).ensureIndex(new Index()
+                .named("session_tier_start")
+                .on("sessionId", Sort.Direction.ASC)
+                .on("tier", Sort.Direction.ASC)
+                .on("start", Sort.Direction.ASC));
+        rollupIndexReady = true;
+    }
+
+    // Unico: un giro per sessione, anche se l'id cambiasse formato
+    public void ensureLapIndex() {
+        if (lapIndexReady) return;
+        mongoTemplate.indexOps(LapIndex.class).ensureIndex(new Index()
+                .named("session_lap")
+                .on("sessionId", Sort.Direction.ASC)
+                .on("lap", Sort.Direction.ASC)
+                .unique());
+        lapIndexReady = true;
+    }
+}
@@ -0,0 +1,29 @@
+package it.cusc.acAnalyzer.repository;
+
+import it.cusc.acAnalyzer.model.Physics;
+import it.cusc.acAnalyzer.model.projection.FuelSample;
+import it.cusc.acAnalyzer.model.projection.SpeedSample;
+import it.cusc.acAnalyzer.model.projection.TyreSample;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Letture physics indipendenti dalla modalità di storage: i frame vengono
+ * letti sia dalla collection physics sia dai bucket colonnari, ordinati per timestamp
+ */
+public interface PhysicsRepositoryCustom {
+    List<Physics> findBySessionId(String sessionId);
+    List<Physics> findBySessionIdAndTimestampBetween(String sessionId, Instant start, Instant end);
+    List<Physics> findHighSpeedMoments(String sessionId, float minSpeed);
+    List<Physics> findLapData(String sessionId, Instant lapStart, Instant lapEnd);
+
+    // Proiezioni in streaming su cursore, ordinate per timestamp: vanno chiuse (try-with-resources)
+    Stream<TyreSample> streamTyreSamplesBySessionId(String sessionId);
+    Stream<SpeedSample> streamSpeedSamplesBySessionId(String sessionId);
+    Stream<FuelSample> streamFuelSamplesBySessionId(String sessionId);
+
+    long countBySessionId(String sessionId);
+    void deleteBySessionId(String sessionId);
+}
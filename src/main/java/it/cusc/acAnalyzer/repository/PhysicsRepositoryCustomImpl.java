@@ -0,0 +1,185 @@
+package it.cusc.acAnalyzer.repository;
+
+import it.cusc.acAnalyzer.model.Physics;
+import it.cusc.acAnalyzer.model.PhysicsBucket;
+import it.cusc.acAnalyzer.model.projection.FuelSample;
+import it.cusc.acAnalyzer.model.projection.PhysicsSample;
+import it.cusc.acAnalyzer.model.projection.SpeedSample;
+import it.cusc.acAnalyzer.model.projection.TyreSample;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.lang.reflect.RecordComponent;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class PhysicsRepositoryCustomImpl implements PhysicsRepositoryCustom {
+    // Documenti per round trip del cursore: pochi campi per documento, batch ampi
+    private static final int DOCUMENT_BATCH_SIZE = 5000;
+    private static final int BUCKET_BATCH_SIZE = 16;
+
+    private final MongoTemplate mongoTemplate;
+    private final PhysicsIndexes physicsIndexes;
+
+    @Override
+    public List<Physics> findBySessionId(String sessionId) {
+        return find(sessionId, null, null, null, null);
+    }
+
+    @Override
+    public List<Physics> findBySessionIdAndTimestampBetween(String sessionId, Instant start, Instant end) {
+        // Come la query derivata "Between": estremi esclusi
+        return find(sessionId, start, end, Criteria.where("timestamp").gt(start).lt(end),
+                p -> p.getTimestamp().isAfter(start) && p.getTimestamp().isBefore(end));
+    }
+
+    @Override
+    public List<Physics> findHighSpeedMoments(String sessionId, float minSpeed) {
+        // Dei bucket si scorre solo speedKmh e si ricostruiscono le righe sopra soglia
+        return findScanning(sessionId, null, null, Criteria.where("speedKmh").gt(minSpeed),
+                (bucket, frames) -> bucket.forEachFrameWhere("speedKmh", speed -> speed > minSpeed, frames));
+    }
+
+    @Override
+    public List<Physics> findLapData(String sessionId, Instant lapStart, Instant lapEnd) {
+        return find(sessionId, lapStart, lapEnd, null, null);
+    }
+
+    @Override
+    public Stream<TyreSample> streamTyreSamplesBySessionId(String sessionId) {
+        return streamProjected(sessionId, TyreSample.class, TyreSample::from);
+    }
+
+    @Override
+    public Stream<SpeedSample> streamSpeedSamplesBySessionId(String sessionId) {
+        return streamProjected(sessionId, SpeedSample.class, SpeedSample::from);
+    }
+
+    @Override
+    public Stream<FuelSample> streamFuelSamplesBySessionId(String sessionId) {
+        return streamProjected(sessionId, FuelSample.class, FuelSample::from);
+    }
+
+    @Override
+    public long countBySessionId(String sessionId) {
+        Query query = Query.query(Criteria.where("sessionId").is(sessionId));
+        long documents = mongoTemplate.count(query, Physics.class);
+
+        // Dei bucket basta il campo count
+        query.fields().include("count");
+        long frames = mongoTemplate.find(query, PhysicsBucket.class).stream()
+                .mapToLong(PhysicsBucket::getCount)
+                .sum();
+        return documents + frames;
+    }
+
+    @Override
+    public void deleteBySessionId(String sessionId) {
+        Query query = Query.query(Criteria.where("sessionId").is(sessionId));
+        mongoTemplate.remove(query, Physics.class);
+        mongoTemplate.remove(query, PhysicsBucket.class);
+    }
+
+    /**
+     * Legge solo i campi corrispondenti ai componenti del record, in streaming:
+     * i documenti da un cursore ordinato per timestamp, i bucket uno alla volta
+     * decodificando solo quei canali. La memoria usata non dipende dalla
+     * lunghezza della sessione. Una sessione è scritta in una sola modalità,
+     * quindi documenti e bucket vengono semplicemente concatenati.
+     */
+    private <P extends Record & PhysicsSample> Stream<P> streamProjected(String sessionId, Class<P> type,
+                                                                         Function<Physics, P> fromFrame) {
+        physicsIndexes.ensureTimestampIndex();
+        physicsIndexes.ensureBucketIndex();
+        List<String> fields = Arrays.stream(type.getRecordComponents())
+                .map(RecordComponent::getName)
+                .toList();
+
+        Query documentQuery = Query.query(Criteria.where("sessionId").is(sessionId))
+                .with(Sort.by("timestamp"))
+                .cursorBatchSize(DOCUMENT_BATCH_SIZE);
+        fields.forEach(documentQuery.fields()::include);
+        Stream<P> documents = mongoTemplate.query(Physics.class).as(type).matching(documentQuery).stream();
+
+        Query bucketQuery = Query.query(Criteria.where("sessionId").is(sessionId))
+                .with(Sort.by("start"))
+                .cursorBatchSize(BUCKET_BATCH_SIZE);
+        bucketQuery.fields().include("sessionId", "start", "end", "count", "encoding", "timestamps", "packedTimestamps");
+        for (String field : fields) {
+            bucketQuery.fields().include("intChannels." + field, "floatChannels." + field, "packedChannels." + field);
+        }
+        Stream<P> frames = mongoTemplate.stream(bucketQuery, PhysicsBucket.class)
+                .flatMap(bucket -> {
+                    List<P> rows = new ArrayList<>(bucket.getCount());
+                    bucket.forEachFrame(frame -> rows.add(fromFrame.apply(frame)));
+                    return rows.stream();
+                });
+        return Stream.concat(documents, frames);
+    }
+
+    private List<Physics> find(String sessionId, Instant from, Instant to,
+                               Criteria extraCriteria, Predicate<Physics> frameFilter) {
+        return findScanning(sessionId, from, to, extraCriteria, (bucket, frames) -> bucket.forEachFrame(frame -> {
+            if (frameFilter == null || frameFilter.test(frame)) {
+                frames.accept(frame);
+            }
+        }));
+    }
+
+    /**
+     * bucketFrames produce i frame di un bucket già filtrati; qui si applica
+     * solo l'intervallo temporale
+     */
+    private List<Physics> findScanning(String sessionId, Instant from, Instant to, Criteria extraCriteria,
+                                       BiConsumer<PhysicsBucket, Consumer<Physics>> bucketFrames) {
+        physicsIndexes.ensureTimestampIndex();
+        physicsIndexes.ensureBucketIndex();
+        // Documenti singoli (modalità DOCUMENT)
+        Criteria documentCriteria = Criteria.where("sessionId").is(sessionId);
+        if (from != null && to != null) {
+            documentCriteria = documentCriteria.and("timestamp").gte(from).lte(to);
+        }
+        if (extraCriteria != null) {
+            documentCriteria = new Criteria().andOperator(documentCriteria, extraCriteria);
+        }
+        List<Physics> documents = mongoTemplate.find(
+                Query.query(documentCriteria).with(Sort.by("timestamp")), Physics.class);
+
+        // Bucket colonnari (modalità BUCKET)
+        Criteria bucketCriteria = Criteria.where("sessionId").is(sessionId);
+        if (from != null && to != null) {
+            bucketCriteria = bucketCriteria.and("start").lte(to).and("end").gte(from);
+        }
+        List<PhysicsBucket> buckets = mongoTemplate.find(
+                Query.query(bucketCriteria).with(Sort.by("start")), PhysicsBucket.class);
+        if (buckets.isEmpty()) {
+            return documents;
+        }
+
+        List<Physics> frames = new ArrayList<>(documents);
+        for (PhysicsBucket bucket : buckets) {
+            bucketFrames.accept(bucket, frame -> {
+                if (from == null || to == null
+                        || !(frame.getTimestamp().isBefore(from) || frame.getTimestamp().isAfter(to))) {
+                    frames.add(frame);
+                }
+            });
+        }
+        if (!documents.isEmpty()) {
+            frames.sort(Comparator.comparing(Physics::getTimestamp));
+        }
+        return frames;
+    }
+}
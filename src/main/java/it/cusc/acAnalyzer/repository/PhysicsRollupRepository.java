@@ -0,0 +1,10 @@
+package it.cusc.acAnalyzer.repository;
+
+import it.cusc.acAnalyzer.model.PhysicsRollup;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PhysicsRollupRepository extends MongoRepository<PhysicsRollup, String> {
+    void deleteBySessionId(String sessionId);
+}
@@ -6,12 +6,16 @@ import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Repository
 public interface StaticInfoRepository extends MongoRepository<StaticInfo, String> {
-    Optional<StaticInfo> findBySessionId(String sessionId);
+    // Solo per i dati salvati prima del catalogo (id = sessionId): vale il più recente
+    Optional<StaticInfo> findFirstBySessionIdOrderByTimestampDesc(String sessionId);
     List<StaticInfo> findByCarModel(String carModel);
     List<StaticInfo> findByTrack(String track);
     List<StaticInfo> findByPlayerName(String playerName);
@@ -26,4 +30,32 @@ public interface StaticInfoRepository extends MongoRepository<StaticInfo, String
     List<String> findDistinctCarModelsByTrack(String track);
 
     void deleteBySessionId(String sessionId);
+
+    /**
+     * Record di catalogo della sessione, letto per _id; la query ordinata
+     * resta solo come ripiego per le sessioni precedenti al catalogo
+     */
+    default Optional<StaticInfo> findSession(String sessionId) {
+        return findById(sessionId).or(() -> findFirstBySessionIdOrderByTimestampDesc(sessionId));
+    }
+
+    /**
+     * Un record per sessione, nell'ordine di arrivo: quello di catalogo se
+     * presente, altrimenti il duplicato legacy più recente
+     */
+    static List<StaticInfo> oneBySession(List<StaticInfo> infos) {
+        Map<String, StaticInfo> sessions = new LinkedHashMap<>();
+        for (StaticInfo info : infos) {
+            sessions.merge(info.getSessionId(), info, StaticInfoRepository::preferred);
+        }
+        return new ArrayList<>(sessions.values());
+    }
+
+    private static StaticInfo preferred(StaticInfo current, StaticInfo other) {
+        if (current.getId().equals(current.getSessionId())) return current;
+        if (other.getId().equals(other.getSessionId())) return other;
+        return other.getTimestamp() != null
+                && (current.getTimestamp() == null || other.getTimestamp().isAfter(current.getTimestamp()))
+                ? other : current;
+    }
 }
@@ -0,0 +1,179 @@
+package it.cusc.acAnalyzer.service;
+
+import it.cusc.acAnalyzer.config.TelemetryProperties;
+import it.cusc.acAnalyzer.config.TyreProperties;
+import it.cusc.acAnalyzer.model.AnalysisResult;
+import it.cusc.acAnalyzer.model.enums.AnalysisType;
+import it.cusc.acAnalyzer.model.enums.CacheEviction;
+import it.cusc.acAnalyzer.repository.AnalysisResultRepository;
+import it.cusc.acAnalyzer.service.LapAnalysisService.LapAnalysisResult;
+import it.cusc.acAnalyzer.service.TyreAnalysisService.TyreAnalysisResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Cache dei risultati di analisi delle sessioni chiuse, i cui dati non
+ * cambiano più: chiave (sessionId, tipo di analisi), dimensione limitata
+ * con eviction LRU o LFU e, se configurato, copia su MongoDB. Un risultato
+ * vale finché la sessione non viene cancellata; le analisi gomme anche
+ * finché non cambia il fingerprint di TyreProperties.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class AnalysisResultCache {
+    private final TelemetryProperties telemetryProperties;
+    private final TyreProperties tyreProperties;
+    private final AnalysisResultRepository analysisResultRepository;
+
+    // Accesso solo sotto il lock dell'istanza
+    private final Map<Key, Entry> entries = new HashMap<>();
+    private long clock;
+
+    private record Key(String sessionId, AnalysisType type) {
+    }
+
+    private static class Entry {
+        final Object result;
+        final String fingerprint;
+        long lastAccess;
+        long hits;
+
+        Entry(Object result, String fingerprint) {
+            this.result = result;
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    public LapAnalysisResult laps(String sessionId, Supplier<LapAnalysisResult> compute) {
+        return get(new Key(sessionId, AnalysisType.LAPS), compute);
+    }
+
+    public TyreAnalysisResult tyres(String sessionId, Supplier<TyreAnalysisResult> compute) {
+        return get(new Key(sessionId, AnalysisType.TYRES), compute);
+    }
+
+    /**
+     * Chiamato alla cancellazione di una sessione
+     */
+    public void invalidate(String sessionId) {
+        synchronized (this) {
+            entries.keySet().removeIf(key -> key.sessionId().equals(sessionId));
+        }
+        try {
+            analysisResultRepository.deleteBySessionId(sessionId);
+        } catch (Exception e) {
+            log.warn("Error deleting persisted analysis results of session {}", sessionId, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(Key key, Supplier<T> compute) {
+        TelemetryProperties.AnalysisCache config = telemetryProperties.getAnalysisCache();
+        if (!config.isEnabled()) {
+            return compute.get();
+        }
+
+        String fingerprint = fingerprint(key.type());
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.fingerprint.equals(fingerprint)) {
+                entry.lastAccess = ++clock;
+                entry.hits++;
+                return (T) entry.result;
+            }
+        }
+
+        // Calcolo fuori dal lock: due richieste concorrenti possono calcolare lo stesso risultato
+        T result = config.isPersistent()
+                ? load(key, fingerprint).map(persisted -> (T) persisted).orElse(null)
+                : null;
+        if (result == null) {
+            result = compute.get();
+            if (config.isPersistent()) {
+                save(key, fingerprint, result);
+            }
+        }
+
+        synchronized (this) {
+            if (!entries.containsKey(key) && entries.size() >= config.getMaxEntries()) {
+                evict(config.getEviction());
+            }
+            Entry entry = new Entry(result, fingerprint);
+            entry.lastAccess = ++clock;
+            entries.put(key, entry);
+        }
+        return result;
+    }
+
+    private void evict(CacheEviction eviction) {
+        Key victim = null;
+        Entry victimEntry = null;
+        for (Map.Entry<Key, Entry> candidate : entries.entrySet()) {
+            Entry entry = candidate.getValue();
+            if (victimEntry == null || isColder(entry, victimEntry, eviction)) {
+                victim = candidate.getKey();
+                victimEntry = entry;
+            }
+        }
+        if (victim != null) {
+            entries.remove(victim);
+        }
+    }
+
+    private static boolean isColder(Entry entry, Entry other, CacheEviction eviction) {
+        if (eviction == CacheEviction.LFU && entry.hits != other.hits) {
+            return entry.hits < other.hits;
+        }
+        // A parità di letture (o in LRU) vale l'accesso meno recente
+        return entry.lastAccess < other.lastAccess;
+    }
+
+    /**
+     * Le soglie ottimali di temperatura e pressione entrano nei risultati gomme
+     */
+    private String fingerprint(AnalysisType type) {
+        return type == AnalysisType.TYRES ? Integer.toHexString(tyreProperties.hashCode()) : "";
+    }
+
+    private Optional<Object> load(Key key, String fingerprint) {
+        try {
+            return analysisResultRepository.findById(id(key))
+                    .filter(persisted -> fingerprint.equals(persisted.getFingerprint()))
+                    .map(persisted -> key.type() == AnalysisType.LAPS ? persisted.getLaps() : persisted.getTyres());
+        } catch (Exception e) {
+            log.warn("Error loading persisted {} analysis of session {}", key.type(), key.sessionId(), e);
+            return Optional.empty();
+        }
+    }
+
+    private void save(Key key, String fingerprint, Object result) {
+        try {
+            AnalysisResult.AnalysisResultBuilder document = AnalysisResult.builder()
+                    .id(id(key))
+                    .sessionId(key.sessionId())
+                    .type(key.type())
+                    .fingerprint(fingerprint)
+                    .computedAt(Instant.now());
+            if (result instanceof LapAnalysisResult laps) {
+                document.laps(laps);
+            } else if (result instanceof TyreAnalysisResult tyres) {
+                document.tyres(tyres);
+            }
+            analysisResultRepository.save(document.build());
+        } catch (Exception e) {
+            log.warn("Error persisting {} analysis of session {}", key.type(), key.sessionId(), e);
+        }
+    }
+
+    private static String id(Key key) {
+        return key.sessionId() + ":" + key.type();
+    }
+}
@@ -1,13 +1,20 @@
 package it.cusc.acAnalyzer.service;
 
 import it.cusc.acAnalyzer.model.*;
+import it.cusc.acAnalyzer.model.projection.FuelSample;
+import it.cusc.acAnalyzer.model.projection.SessionAggregate;
+import it.cusc.acAnalyzer.model.projection.SpeedSample;
+import it.cusc.acAnalyzer.model.projection.TyreSample;
 import it.cusc.acAnalyzer.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import java.time.Instant;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
@@ -16,11 +23,34 @@ public class AnalysisService {
     private final PhysicsRepository physicsRepository;
     private final GraphicsRepository graphicsRepository;
     private final StaticInfoRepository staticInfoRepository;
+    private final PhysicsRollupRepository physicsRollupRepository;
+    private final RollupQueryPlanner rollupQueryPlanner;
+    private final AnalysisResultCache analysisResultCache;
+    private final LapIndexRepository lapIndexRepository;
+    private final PhysicsIndexes physicsIndexes;
 
     public List<Physics> getLapData(String sessionId, Instant lapStart, Instant lapEnd) {
         return physicsRepository.findLapData(sessionId, lapStart, lapEnd);
     }
 
+    /**
+     * Giri della sessione dall'indice scritto durante l'ingest
+     */
+    public List<LapIndex> getLapIndex(String sessionId) {
+        physicsIndexes.ensureLapIndex();
+        return lapIndexRepository.findBySessionIdOrderByLapAsc(sessionId);
+    }
+
+    /**
+     * Frame physics di un giro: l'indice fornisce gli estremi, la lettura è
+     * un range sull'indice sessionId + timestamp
+     */
+    public Optional<List<Physics>> getLap(String sessionId, int lap) {
+        physicsIndexes.ensureLapIndex();
+        return lapIndexRepository.findBySessionIdAndLap(sessionId, lap)
+                .map(index -> physicsRepository.findLapData(sessionId, index.getStart(), index.getEnd()));
+    }
+
     public List<Physics> getHighSpeedMoments(String sessionId, float minSpeed) {
         return physicsRepository.findHighSpeedMoments(sessionId, minSpeed);
     }
@@ -34,67 +64,149 @@ public class AnalysisService {
     }
 
     public List<StaticInfo> findSessionsByTrack(String track) {
-        return staticInfoRepository.findByTrack(track);
+        return StaticInfoRepository.oneBySession(staticInfoRepository.findByTrack(track));
     }
 
     public List<StaticInfo> findSessionsByCarModel(String carModel) {
-        return staticInfoRepository.findByCarModel(carModel);
+        return StaticInfoRepository.oneBySession(staticInfoRepository.findByCarModel(carModel));
     }
 
     public List<StaticInfo> findSessionsByPlayer(String playerName) {
-        return staticInfoRepository.findByPlayerName(playerName);
+        return StaticInfoRepository.oneBySession(staticInfoRepository.findByPlayerName(playerName));
     }
 
     public void deleteSession(String sessionId) {
         physicsRepository.deleteBySessionId(sessionId);
+        physicsRollupRepository.deleteBySessionId(sessionId);
+        lapIndexRepository.deleteBySessionId(sessionId);
         graphicsRepository.deleteBySessionId(sessionId);
         staticInfoRepository.deleteBySessionId(sessionId);
+        analysisResultCache.invalidate(sessionId);
         log.info("Deleted session: {}", sessionId);
     }
 
     // Metodi di analisi avanzata
 
     public double calculateAverageSpeed(String sessionId) {
-        List<Physics> physicsData = physicsRepository.findBySessionId(sessionId);
-        return physicsData.stream()
-                .mapToDouble(Physics::getSpeedKmh)
-                .average()
-                .orElse(0.0);
+        Optional<ChannelStats> speed = rollupQueryPlanner.sessionStats(sessionId, "speedKmh");
+        if (speed.isPresent()) {
+            return speed.get().getMean();
+        }
+        Optional<SessionAggregate> aggregate = physicsRepository.aggregateSession(sessionId);
+        if (aggregate.isPresent()) {
+            return aggregate.get().averageSpeed();
+        }
+
+        // Sessioni a bucket: i canali compressi si leggono solo lato client
+        try (Stream<SpeedSample> physicsData = physicsRepository.streamSpeedSamplesBySessionId(sessionId)) {
+            return physicsData
+                    .mapToDouble(SpeedSample::speedKmh)
+                    .average()
+                    .orElse(0.0);
+        }
     }
 
     public float findMaxSpeed(String sessionId) {
-        List<Physics> physicsData = physicsRepository.findBySessionId(sessionId);
-        return (float) physicsData.stream()
-                .mapToDouble(Physics::getSpeedKmh)
-                .max()
-                .orElse(0.0);
+        Optional<ChannelStats> speed = rollupQueryPlanner.sessionStats(sessionId, "speedKmh");
+        if (speed.isPresent()) {
+            return (float) speed.get().getMax();
+        }
+        Optional<SessionAggregate> aggregate = physicsRepository.aggregateSession(sessionId);
+        if (aggregate.isPresent()) {
+            return aggregate.get().maxSpeed();
+        }
+
+        try (Stream<SpeedSample> physicsData = physicsRepository.streamSpeedSamplesBySessionId(sessionId)) {
+            return (float) physicsData
+                    .mapToDouble(SpeedSample::speedKmh)
+                    .max()
+                    .orElse(0.0);
+        }
     }
 
     public double calculateFuelConsumption(String sessionId) {
-        List<Physics> physicsData = physicsRepository.findBySessionId(sessionId);
-        if (physicsData.size() < 2) return 0.0;
+        Optional<ChannelStats> fuel = rollupQueryPlanner.sessionStats(sessionId, "fuel");
+        if (fuel.isPresent()) {
+            return (float) fuel.get().getFirst() - (float) fuel.get().getLast();
+        }
+        Optional<SessionAggregate> aggregate = physicsRepository.aggregateSession(sessionId);
+        if (aggregate.isPresent()) {
+            if (aggregate.get().count() < 2) return 0.0;
+            return aggregate.get().firstFuel() - aggregate.get().lastFuel();
+        }
+
+        Endpoints<FuelSample> physicsData;
+        try (Stream<FuelSample> samples = physicsRepository.streamFuelSamplesBySessionId(sessionId)) {
+            physicsData = Endpoints.of(samples);
+        }
+        if (physicsData.count() < 2) return 0.0;
 
-        Physics first = physicsData.get(0);
-        Physics last = physicsData.get(physicsData.size() - 1);
-        return first.getFuel() - last.getFuel();
+        FuelSample first = physicsData.first();
+        FuelSample last = physicsData.last();
+        return first.fuel() - last.fuel();
     }
 
     public double calculateTyreWear(String sessionId) {
-        List<Physics> physicsData = physicsRepository.findBySessionId(sessionId);
-        if (physicsData.size() < 2) return 0.0;
+        List<String> wearChannels = PhysicsRollupWriter.channelNames("tyreWear");
+        Optional<Map<String, ChannelStats>> wear = rollupQueryPlanner.sessionStats(sessionId, wearChannels);
+        if (wear.isPresent()) {
+            double initialWear = 0;
+            double finalWear = 0;
+            for (String channel : wearChannels) {
+                initialWear += (float) wear.get().get(channel).getFirst();
+                finalWear += (float) wear.get().get(channel).getLast();
+            }
+            return (initialWear - finalWear) / 4.0;
+        }
+        Optional<SessionAggregate> aggregate = physicsRepository.aggregateSession(sessionId);
+        if (aggregate.isPresent()) {
+            if (aggregate.get().count() < 2) return 0.0;
+            double initialWear = 0;
+            double finalWear = 0;
+            for (int i = 0; i < 4; i++) {
+                initialWear += aggregate.get().firstTyreWear()[i];
+                finalWear += aggregate.get().lastTyreWear()[i];
+            }
+            return (initialWear - finalWear) / 4.0;
+        }
 
-        Physics first = physicsData.get(0);
-        Physics last = physicsData.get(physicsData.size() - 1);
+        Endpoints<TyreSample> physicsData;
+        try (Stream<TyreSample> samples = physicsRepository.streamTyreSamplesBySessionId(sessionId)) {
+            physicsData = Endpoints.of(samples);
+        }
+        if (physicsData.count() < 2) return 0.0;
+
+        TyreSample first = physicsData.first();
+        TyreSample last = physicsData.last();
 
         // Media dell'usura di tutti e 4 i pneumatici
         double initialWear = 0;
         double finalWear = 0;
 
         for (int i = 0; i < 4; i++) {
-            initialWear += first.getTyreWear()[i];
-            finalWear += last.getTyreWear()[i];
+            initialWear += first.tyreWear()[i];
+            finalWear += last.tyreWear()[i];
         }
 
         return (initialWear - finalWear) / 4.0;
     }
+
+    /**
+     * Primo e ultimo elemento di uno stream, letto in una passata senza trattenerlo
+     */
+    private record Endpoints<T>(T first, T last, long count) {
+        static <T> Endpoints<T> of(Stream<T> stream) {
+            Iterator<T> iterator = stream.iterator();
+            if (!iterator.hasNext()) return new Endpoints<>(null, null, 0);
+
+            T first = iterator.next();
+            T last = first;
+            long count = 1;
+            while (iterator.hasNext()) {
+                last = iterator.next();
+                count++;
+            }
+            return new Endpoints<>(first, last, count);
+        }
+    }
 }
@@ -1,17 +1,22 @@
 package it.cusc.acAnalyzer.service;
 
-import it.cusc.acAnalyzer.model.Graphics;
+import it.cusc.acAnalyzer.analysis.LapAnalyzer;
+import it.cusc.acAnalyzer.analysis.LiveSession;
 import it.cusc.acAnalyzer.model.StaticInfo;
+import it.cusc.acAnalyzer.model.projection.LapSample;
 import it.cusc.acAnalyzer.repository.GraphicsRepository;
 import it.cusc.acAnalyzer.repository.StaticInfoRepository;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
@@ -19,9 +24,13 @@ import java.util.stream.Collectors;
 public class LapAnalysisService {
     private final GraphicsRepository graphicsRepository;
     private final StaticInfoRepository staticInfoRepository;
+    private final LiveAnalysisService liveAnalysisService;
+    private final AnalysisResultCache analysisResultCache;
 
     @Data
     @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
     public static class LapAnalysisResult {
         private String sessionId;
         private String track;
@@ -35,6 +44,8 @@ public class LapAnalysisService {
 
     @Data
     @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
     public static class LapData {
         private int lapNumber;
         private String lapTime;      // formato "1:23.456"
@@ -46,6 +57,8 @@ public class LapAnalysisService {
 
     @Data
     @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
     public static class BestTimes {
         private String bestLapTime;
         private int bestLapTimeMs;
@@ -60,7 +73,8 @@ public class LapAnalysisService {
      * Trova tutte le sessioni disponibili per un dato tracciato e auto
      */
     public List<SessionInfo> findSessions(String track, String carModel) {
-        List<StaticInfo> sessions = staticInfoRepository.findByTrackAndCarModel(track, carModel);
+        List<StaticInfo> sessions = StaticInfoRepository.oneBySession(
+                staticInfoRepository.findByTrackAndCarModel(track, carModel));
 
         return sessions.stream()
                 .map(session -> SessionInfo.builder()
@@ -74,154 +88,49 @@ public class LapAnalysisService {
     }
 
     /**
-     * Analizza una specifica sessione
+     * Analizza una specifica sessione: quella in registrazione dallo stato
+     * live, le sessioni chiuse con una passata sul cursore graphics
      */
     public LapAnalysisResult analyzeSession(String sessionId) {
-        StaticInfo sessionInfo = staticInfoRepository.findBySessionId(sessionId)
-                .orElseThrow(() -> new RuntimeException("Session not found"));
+        Optional<LiveSession> live = liveAnalysisService.find(sessionId);
+        if (live.isPresent()) {
+            StaticInfo sessionInfo = Optional.ofNullable(live.get().getStaticInfo())
+                    .orElseGet(() -> findSessionInfo(sessionId));
+            return live.get().readLaps(laps -> toResult(sessionInfo, laps));
+        }
 
-        List<Graphics> laps = graphicsRepository.findBySessionId(sessionId);
+        // Sessione chiusa: i dati non cambiano più, il risultato si può riusare
+        return analysisResultCache.laps(sessionId, () -> analyzeStoredSession(sessionId));
+    }
 
-        // Organizziamo i giri
-        List<LapData> lapDataList = analyzeLaps(laps);
+    private LapAnalysisResult analyzeStoredSession(String sessionId) {
+        StaticInfo sessionInfo = findSessionInfo(sessionId);
 
-        // Calcoliamo i best times
-        BestTimes bestTimes = calculateBestTimes(lapDataList);
+        LapAnalyzer laps = new LapAnalyzer();
+        try (Stream<LapSample> samples = graphicsRepository.streamLapSamplesBySessionIdOrderByTimestampAsc(sessionId)) {
+            samples.forEach(laps::add);
+        }
+        return toResult(sessionInfo, laps);
+    }
 
-        // Calcoliamo la consistenza
-        double consistency = calculateConsistency(lapDataList);
+    private StaticInfo findSessionInfo(String sessionId) {
+        return staticInfoRepository.findSession(sessionId)
+                .orElseThrow(() -> new RuntimeException("Session not found"));
+    }
 
+    private LapAnalysisResult toResult(StaticInfo sessionInfo, LapAnalyzer laps) {
         return LapAnalysisResult.builder()
-                .sessionId(sessionId)
+                .sessionId(sessionInfo.getSessionId())
                 .track(sessionInfo.getTrack())
                 .carModel(sessionInfo.getCarModel())
                 .playerName(sessionInfo.getPlayerName())
-                .laps(lapDataList)
-                .bestTimes(bestTimes)
-                .consistency(consistency)
+                .laps(laps.laps())
+                .bestTimes(laps.bestTimes())
+                .consistency(laps.consistency())
                 .sessionDate(sessionInfo.getTimestamp().toString())
                 .build();
     }
 
-    private List<LapData> analyzeLaps(List<Graphics> laps) {
-        List<LapData> lapDataList = new ArrayList<>();
-
-        for (int i = 0; i < laps.size() - 1; i++) {
-            Graphics current = laps.get(i);
-            Graphics next = laps.get(i + 1);
-
-            if (next.getCompletedLaps() > current.getCompletedLaps()) {
-                String[] sectors = new String[3];
-                int[] sectorTimesMs = new int[3];
-
-                // Recupera i tempi dei settori
-                for (int s = 0; s < 3; s++) {
-                    if (s == current.getCurrentSectorIndex() - 1) {
-                        sectorTimesMs[s] = current.getLastSectorTime();
-                        sectors[s] = formatTime(sectorTimesMs[s]);
-                    }
-                }
-
-                LapData lapData = LapData.builder()
-                        .lapNumber(next.getCompletedLaps())
-                        .lapTime(next.getLastTime())
-                        .lapTimeMs(next.getLastTimeMs())
-                        .sectors(sectors)
-                        .sectorTimesMs(sectorTimesMs)
-                        .valid(isLapValid(next))
-                        .build();
-
-                lapDataList.add(lapData);
-            }
-        }
-
-        return lapDataList;
-    }
-
-    private BestTimes calculateBestTimes(List<LapData> laps) {
-        // Troviamo il miglior giro valido
-        LapData bestLap = laps.stream()
-                .filter(LapData::isValid)
-                .min(Comparator.comparingInt(LapData::getLapTimeMs))
-                .orElse(null);
-
-        if (bestLap == null) {
-            return null;
-        }
-
-        // Troviamo i migliori settori
-        int[] bestSectorsMs = new int[3];
-        String[] bestSectors = new String[3];
-
-        for (int sector = 0; sector < 3; sector++) {
-            final int s = sector;
-            bestSectorsMs[s] = laps.stream()
-                    .filter(LapData::isValid)
-                    .mapToInt(lap -> lap.getSectorTimesMs()[s])
-                    .min()
-                    .orElse(0);
-            bestSectors[s] = formatTime(bestSectorsMs[s]);
-        }
-
-        // Calcoliamo il tempo teorico
-        int theoreticalBestMs = Arrays.stream(bestSectorsMs).sum();
-        String theoreticalBest = formatTime(theoreticalBestMs);
-
-        // Calcoliamo il potenziale miglioramento
-        String potentialGain = formatTime(bestLap.getLapTimeMs() - theoreticalBestMs);
-
-        return BestTimes.builder()
-                .bestLapTime(bestLap.getLapTime())
-                .bestLapTimeMs(bestLap.getLapTimeMs())
-                .bestSectors(bestSectors)
-                .bestSectorsMs(bestSectorsMs)
-                .theoreticalBest(theoreticalBest)
-                .theoreticalBestMs(theoreticalBestMs)
-                .potentialGain(potentialGain)
-                .build();
-    }
-
-    private double calculateConsistency(List<LapData> laps) {
-        List<Integer> validTimes = laps.stream()
-                .filter(LapData::isValid)
-                .map(LapData::getLapTimeMs)
-                .collect(Collectors.toList());
-
-        if (validTimes.isEmpty()) {
-            return 0.0;
-        }
-
-        double mean = validTimes.stream()
-                .mapToInt(Integer::intValue)
-                .average()
-                .orElse(0.0);
-
-        double variance = validTimes.stream()
-                .mapToDouble(time -> {
-                    double diff = time - mean;
-                    return diff * diff;
-                })
-                .average()
-                .orElse(0.0);
-
-        // Ritorna percentuale di consistenza (100% = perfettamente consistente)
-        return 100.0 * (1.0 - Math.sqrt(variance) / mean);
-    }
-
-    private boolean isLapValid(Graphics lap) {
-        return lap.getLastTimeMs() > 0 &&
-                lap.getLastTime() != null &&
-                !lap.getLastTime().isEmpty();
-    }
-
-    private String formatTime(int timeMs) {
-        if (timeMs <= 0) return "--:--:---";
-        int minutes = timeMs / (60 * 1000);
-        int seconds = (timeMs % (60 * 1000)) / 1000;
-        int millis = timeMs % 1000;
-        return String.format("%d:%02d.%03d", minutes, seconds, millis);
-    }
-
     @Data
     @Builder
     public static class SessionInfo {
@@ -0,0 +1,177 @@
+package it.cusc.acAnalyzer.service;
+
+import it.cusc.acAnalyzer.analysis.LapAnalyzer;
+import it.cusc.acAnalyzer.config.TelemetryProperties;
+import it.cusc.acAnalyzer.model.LapIndex;
+import it.cusc.acAnalyzer.model.Physics;
+import it.cusc.acAnalyzer.model.StageStats;
+import it.cusc.acAnalyzer.model.projection.LapSample;
+import it.cusc.acAnalyzer.pipeline.BackgroundWriter;
+import it.cusc.acAnalyzer.pipeline.StageHandler;
+import it.cusc.acAnalyzer.repository.PhysicsIndexes;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Scrive l'indice dei giri durante l'ingest. Il thread del poller segnala i
+ * passaggi sul traguardo (con tempi e settori del giro concluso) insieme al
+ * packetId dell'ultimo frame physics letto prima del passaggio; lo stage li
+ * applica in ordine di packetId, così ogni frame finisce nel giro in cui è
+ * stato letto anche se la pipeline lo consegna in ritardo. Lo stage tiene
+ * solo i confini dei giri: i documenti li scrive un BackgroundWriter.
+ */
+public class LapIndexWriter implements StageHandler<Physics> {
+    private static final int BATCH_SIZE = 16;
+
+    private final MongoTemplate mongoTemplate;
+    private final PhysicsIndexes physicsIndexes;
+    private final BackgroundWriter<LapIndex> writer;
+
+    // Dal thread graphics allo stage
+    private final Queue<LapBoundary> boundaries = new ConcurrentLinkedQueue<>();
+    private volatile int firstLap = 1;
+
+    // Stato del thread graphics
+    private LapSample previous;
+    private final int[] sectorTimesMs = new int[3];
+
+    // Stato dello stage
+    private OpenLap current;
+    private int nextLap;
+
+    private record LapBoundary(int lastPacketId, int lap, int lapTimeMs, String lapTime,
+                               int[] sectorTimesMs, boolean valid) {
+    }
+
+    public LapIndexWriter(MongoTemplate mongoTemplate, PhysicsIndexes physicsIndexes,
+                          TelemetryProperties.DerivedWrites writes) {
+        this.mongoTemplate = mongoTemplate;
+        this.physicsIndexes = physicsIndexes;
+        this.writer = new BackgroundWriter<>("laps", writes, BATCH_SIZE, this::write);
+    }
+
+    /**
+     * Chiamato per ogni update graphics, nell'ordine di lettura e sullo stesso
+     * thread dei frame physics: lastPacketId è l'ultimo frame physics letto
+     */
+    public void onLapSample(LapSample sample, int lastPacketId) {
+        if (previous == null) {
+            firstLap = sample.completedLaps() + 1;
+        } else {
+            // Il cambio di settore porta il tempo del settore appena concluso
+            int sector = previous.currentSectorIndex();
+            if (sample.currentSectorIndex() != sector && sector >= 0 && sector < 3) {
+                sectorTimesMs[sector] = sample.lastSectorTime();
+            }
+            if (sample.completedLaps() > previous.completedLaps()) {
+                boundaries.add(new LapBoundary(lastPacketId, sample.completedLaps(),
+                        sample.lastTimeMs(), sample.lastTime(), sectorTimesMs.clone(),
+                        LapAnalyzer.isLapValid(sample)));
+                Arrays.fill(sectorTimesMs, 0);
+            }
+        }
+        previous = sample;
+    }
+
+    @Override
+    public boolean handle(Physics physics) {
+        LapBoundary boundary;
+        // I frame letti fino al passaggio restano nel giro che si chiude
+        while ((boundary = boundaries.peek()) != null && physics.getPacketId() > boundary.lastPacketId()) {
+            boundaries.poll();
+            close(boundary);
+        }
+
+        if (current == null) {
+            current = new OpenLap(physics, nextLap > 0 ? nextLap : firstLap);
+        }
+        current.add(physics);
+        return true;
+    }
+
+    @Override
+    public void onStart() {
+        writer.start();
+    }
+
+    @Override
+    public void onStop() {
+        LapBoundary boundary;
+        while ((boundary = boundaries.poll()) != null) {
+            close(boundary);
+        }
+        // Giro interrotto dallo stop: indicizzato, ma senza tempo e non valido
+        if (current != null) {
+            writer.offer(current.toIndex(current.lap, null, false));
+            current = null;
+        }
+        writer.stop();
+    }
+
+    public StageStats getWriterStats() {
+        return writer.getStats();
+    }
+
+    private void close(LapBoundary boundary) {
+        if (current != null) {
+            writer.offer(current.toIndex(boundary.lap(), boundary, true));
+            current = null;
+        }
+        nextLap = boundary.lap() + 1;
+    }
+
+    /** Sul thread del BackgroundWriter: save per id, quindi riscrivere un giro è idempotente */
+    private void write(List<LapIndex> batch) {
+        physicsIndexes.ensureLapIndex();
+        for (LapIndex lap : batch) {
+            mongoTemplate.save(lap);
+        }
+    }
+
+    /** Giro in corso lato physics */
+    private static class OpenLap {
+        private final String sessionId;
+        private final int lap;
+        private final Instant start;
+        private final String firstPhysicsId;
+        private Instant end;
+        private String lastPhysicsId;
+        private int frames;
+
+        OpenLap(Physics first, int lap) {
+            this.sessionId = first.getSessionId();
+            this.lap = lap;
+            this.start = first.getTimestamp();
+            this.firstPhysicsId = first.getId();
+        }
+
+        void add(Physics physics) {
+            end = physics.getTimestamp();
+            lastPhysicsId = physics.getId();
+            frames++;
+        }
+
+        LapIndex toIndex(int lap, LapBoundary boundary, boolean complete) {
+            return LapIndex.builder()
+                    .id(sessionId + ":" + lap)
+                    .sessionId(sessionId)
+                    .lap(lap)
+                    .start(start)
+                    .end(end)
+                    .firstPhysicsId(firstPhysicsId)
+                    .lastPhysicsId(lastPhysicsId)
+                    .frames(frames)
+                    .lapTimeMs(boundary != null ? boundary.lapTimeMs() : 0)
+                    .lapTime(boundary != null ? boundary.lapTime() : null)
+                    .sectorTimesMs(boundary != null ? boundary.sectorTimesMs() : new int[3])
+                    .valid(boundary != null && boundary.valid())
+                    .complete(complete)
+                    .build();
+        }
+    }
+}
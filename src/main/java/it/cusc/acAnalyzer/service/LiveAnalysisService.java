@@ -0,0 +1,47 @@
+package it.cusc.acAnalyzer.service;
+
+import it.cusc.acAnalyzer.analysis.LiveSession;
+import it.cusc.acAnalyzer.analysis.TyreAnalyzer;
+import it.cusc.acAnalyzer.config.TyreProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * Registro della sessione live: aperta da TelemetryService all'avvio e
+ * chiusa allo stop, dopo che il journal è stato replicato su MongoDB.
+ * Le sessioni chiuse si analizzano dai dati persistiti.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class LiveAnalysisService {
+    private final TyreProperties tyreProperties;
+
+    private volatile LiveSession current;
+
+    public LiveSession open(String sessionId) {
+        LiveSession session = new LiveSession(sessionId, new TyreAnalyzer(tyreProperties));
+        current = session;
+        log.debug("Opened live analysis for session {}", sessionId);
+        return session;
+    }
+
+    public void close(String sessionId) {
+        LiveSession session = current;
+        if (session != null && session.getSessionId().equals(sessionId)) {
+            current = null;
+            log.debug("Closed live analysis for session {}", sessionId);
+        }
+    }
+
+    public Optional<LiveSession> find(String sessionId) {
+        LiveSession session = current;
+        if (session != null && session.getSessionId().equals(sessionId)) {
+            return Optional.of(session);
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,147 @@
+package it.cusc.acAnalyzer.service;
+
+import it.cusc.acAnalyzer.config.TelemetryProperties;
+import it.cusc.acAnalyzer.model.BatchWriterStats;
+import it.cusc.acAnalyzer.model.Physics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind dei frame physics: accumula i documenti e li inserisce con
+ * un'unica bulk insert quando si raggiunge la dimensione del batch o il
+ * tempo massimo di attesa. Gira sul thread dello stage persist.
+ */
+@Slf4j
+public class PhysicsBatchWriter implements PhysicsWriter {
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final int batchSize;
+    private final long maxDelayNanos;
+
+    private List<Physics> pending;
+    private long firstPendingAt;
+    private boolean failedSinceFlush;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong documents = new AtomicLong();
+    private final AtomicLong failedDocuments = new AtomicLong();
+    private volatile int pendingCount;
+    private volatile long lastFlushMillis;
+
+    public PhysicsBatchWriter(MongoTemplate mongoTemplate, TelemetryProperties.Batch config) {
+        this.mongoTemplate = mongoTemplate;
+        this.batchSize = config.getSize();
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(config.getMaxDelayMillis());
+        this.pending = new ArrayList<>(batchSize);
+    }
+
+    @Override
+    public boolean handle(Physics physics) {
+        if (pending.isEmpty()) {
+            firstPendingAt = System.nanoTime();
+        }
+        pending.add(physics);
+        pendingCount = pending.size();
+
+        if (pending.size() >= batchSize) {
+            flush();
+        } else {
+            flushIfExpired();
+        }
+        return true;
+    }
+
+    @Override
+    public void onIdle() {
+        flushIfExpired();
+    }
+
+    @Override
+    public void onStop() {
+        flush();
+    }
+
+    private void flushIfExpired() {
+        if (!pending.isEmpty() && System.nanoTime() - firstPendingAt >= maxDelayNanos) {
+            flush();
+        }
+    }
+
+    @Override
+    public int pending() {
+        return pendingCount;
+    }
+
+    @Override
+    public boolean checkFailed() {
+        boolean failed = failedSinceFlush;
+        failedSinceFlush = false;
+        return failed;
+    }
+
+    @Override
+    public void discard() {
+        pending = new ArrayList<>(batchSize);
+        pendingCount = 0;
+    }
+
+    @Override
+    public void flush() {
+        if (pending.isEmpty()) return;
+
+        List<Physics> batch = pending;
+        pending = new ArrayList<>(batchSize);
+        pendingCount = 0;
+
+        long start = System.nanoTime();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Physics.class)
+                    .insert(batch)
+                    .execute();
+            batches.incrementAndGet();
+            documents.addAndGet(batch.size());
+        } catch (BulkOperationException e) {
+            if (onlyDuplicateKeys(e)) {
+                // Frame già scritti da un replay precedente del journal: gli id sono stabili
+                batches.incrementAndGet();
+                documents.addAndGet(batch.size() - e.getErrors().size());
+            } else {
+                fail(batch.size(), e);
+            }
+        } catch (Exception e) {
+            fail(batch.size(), e);
+        } finally {
+            lastFlushMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+    }
+
+    private void fail(int count, Exception e) {
+        failedSinceFlush = true;
+        failedDocuments.addAndGet(count);
+        log.error("Error writing batch of {} physics documents", count, e);
+    }
+
+    private static boolean onlyDuplicateKeys(BulkOperationException e) {
+        return !e.getErrors().isEmpty()
+                && e.getErrors().stream().allMatch(error -> error.getCode() == DUPLICATE_KEY);
+    }
+
+    @Override
+    public BatchWriterStats getStats() {
+        return BatchWriterStats.builder()
+                .batches(batches.get())
+                .documents(documents.get())
+                .failedDocuments(failedDocuments.get())
+                .pending(pendingCount)
+                .lastFlushMillis(lastFlushMillis)
+                .build();
+    }
+}
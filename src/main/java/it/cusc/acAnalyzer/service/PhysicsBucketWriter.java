@@ -0,0 +1,165 @@
+package it.cusc.acAnalyzer.service;
+
+import it.cusc.acAnalyzer.config.TelemetryProperties;
+import it.cusc.acAnalyzer.core.codec.GorillaColumns;
+import it.cusc.acAnalyzer.core.layout.ColumnBuffer;
+import it.cusc.acAnalyzer.core.layout.PageLayouts;
+import it.cusc.acAnalyzer.model.BatchWriterStats;
+import it.cusc.acAnalyzer.model.Physics;
+import it.cusc.acAnalyzer.model.PhysicsBucket;
+import it.cusc.acAnalyzer.model.enums.ChannelEncoding;
+import it.cusc.acAnalyzer.repository.PhysicsIndexes;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writer colonnare dei frame physics: raccoglie i frame di una finestra
+ * temporale in un {@link PhysicsBucket} e lo scrive alla chiusura della
+ * finestra. Gira sul thread dello stage persist.
+ */
+@Slf4j
+public class PhysicsBucketWriter implements PhysicsWriter {
+    private final MongoTemplate mongoTemplate;
+    private final PhysicsIndexes physicsIndexes;
+    private final long bucketMillis;
+    private final ChannelEncoding encoding;
+    private final ColumnBuffer<Physics> columns;
+
+    private String sessionId;
+    private String firstFrameId;
+    private long windowStart = -1;
+    private long[] timestamps;
+    private boolean failedSinceFlush;
+
+    private final AtomicLong buckets = new AtomicLong();
+    private final AtomicLong documents = new AtomicLong();
+    private final AtomicLong failedDocuments = new AtomicLong();
+    private volatile int pendingCount;
+    private volatile long lastFlushMillis;
+
+    public PhysicsBucketWriter(MongoTemplate mongoTemplate, PhysicsIndexes physicsIndexes,
+                               TelemetryProperties.Storage config) {
+        this.mongoTemplate = mongoTemplate;
+        this.physicsIndexes = physicsIndexes;
+        this.bucketMillis = config.getBucketMillis();
+        this.encoding = config.getEncoding();
+        int expectedRows = (int) Math.max(16, bucketMillis / 5);
+        this.columns = new ColumnBuffer<>(PageLayouts.PHYSICS, expectedRows);
+        this.timestamps = new long[expectedRows];
+    }
+
+    @Override
+    public boolean handle(Physics physics) {
+        long timestamp = physics.getTimestamp().toEpochMilli();
+        long window = timestamp - Math.floorMod(timestamp, bucketMillis);
+        if (window != windowStart || !Objects.equals(physics.getSessionId(), sessionId)) {
+            flush();
+            windowStart = window;
+            sessionId = physics.getSessionId();
+        }
+        if (columns.isEmpty()) {
+            firstFrameId = physics.getId();
+        }
+
+        int row = columns.size();
+        if (row == timestamps.length) {
+            timestamps = Arrays.copyOf(timestamps, row * 2);
+        }
+        timestamps[row] = timestamp;
+        columns.append(physics);
+        pendingCount = columns.size();
+        return true;
+    }
+
+    @Override
+    public void onIdle() {
+        // Chiude la finestra anche se non arrivano più frame (gioco in pausa)
+        if (!columns.isEmpty() && System.currentTimeMillis() >= windowStart + 2 * bucketMillis) {
+            flush();
+        }
+    }
+
+    @Override
+    public void onStop() {
+        flush();
+    }
+
+    @Override
+    public int pending() {
+        return pendingCount;
+    }
+
+    @Override
+    public boolean checkFailed() {
+        boolean failed = failedSinceFlush;
+        failedSinceFlush = false;
+        return failed;
+    }
+
+    @Override
+    public void discard() {
+        columns.clear();
+        pendingCount = 0;
+    }
+
+    @Override
+    public void flush() {
+        if (columns.isEmpty()) return;
+
+        int count = columns.size();
+        PhysicsBucket.PhysicsBucketBuilder builder = PhysicsBucket.builder()
+                // Id del primo frame: un replay del journal riscrive lo stesso bucket
+                .id(firstFrameId)
+                .sessionId(sessionId)
+                .start(Instant.ofEpochMilli(timestamps[0]))
+                .end(Instant.ofEpochMilli(timestamps[count - 1]))
+                .count(count)
+                .encoding(encoding);
+        if (encoding == ChannelEncoding.GORILLA) {
+            builder.packedTimestamps(GorillaColumns.encodeTimestamps(timestamps, count))
+                    .packedChannels(GorillaColumns.encode(PageLayouts.PHYSICS,
+                            columns.intColumns(), columns.floatColumns()));
+        } else {
+            builder.timestamps(Arrays.copyOf(timestamps, count))
+                    .intChannels(columns.intColumns())
+                    .floatChannels(columns.floatColumns());
+        }
+        PhysicsBucket bucket = builder.build();
+        columns.clear();
+        pendingCount = 0;
+
+        long start = System.nanoTime();
+        try {
+            physicsIndexes.ensureBucketIndex();
+            mongoTemplate.insert(bucket);
+            buckets.incrementAndGet();
+            documents.addAndGet(count);
+        } catch (DuplicateKeyException e) {
+            log.debug("Physics bucket {} already written", bucket.getId());
+        } catch (Exception e) {
+            failedSinceFlush = true;
+            failedDocuments.addAndGet(count);
+            log.error("Error writing physics bucket of {} frames", count, e);
+        } finally {
+            lastFlushMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public BatchWriterStats getStats() {
+        return BatchWriterStats.builder()
+                .batches(buckets.get())
+                .documents(documents.get())
+                .failedDocuments(failedDocuments.get())
+                .pending(pendingCount)
+                .lastFlushMillis(lastFlushMillis)
+                .build();
+    }
+}
@@ -0,0 +1,234 @@
+package it.cusc.acAnalyzer.service;
+
+import it.cusc.acAnalyzer.config.TelemetryProperties;
+import it.cusc.acAnalyzer.core.layout.FieldType;
+import it.cusc.acAnalyzer.core.layout.PageField;
+import it.cusc.acAnalyzer.core.layout.PageLayouts;
+import it.cusc.acAnalyzer.model.ChannelStats;
+import it.cusc.acAnalyzer.model.Physics;
+import it.cusc.acAnalyzer.model.PhysicsRollup;
+import it.cusc.acAnalyzer.model.StageStats;
+import it.cusc.acAnalyzer.model.enums.RollupTier;
+import it.cusc.acAnalyzer.pipeline.BackgroundWriter;
+import it.cusc.acAnalyzer.pipeline.StageHandler;
+import it.cusc.acAnalyzer.repository.PhysicsIndexes;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Mantiene i rollup physics in modo incrementale durante l'ingest: una
+ * finestra aperta per ogni tier, chiusa e accodata quando cambia finestra
+ * (o giro). I rollup chiusi passano a un BackgroundWriter, così lo stage
+ * non aspetta mai MongoDB: se il database non risponde si riprova con attesa
+ * crescente e, a coda piena, si perdono i rollup più vecchi.
+ */
+public class PhysicsRollupWriter implements StageHandler<Physics> {
+    private static final int DUPLICATE_KEY = 11000;
+    private static final int BATCH_SIZE = 100;
+
+    private final MongoTemplate mongoTemplate;
+    private final PhysicsIndexes physicsIndexes;
+    private final BackgroundWriter<PhysicsRollup> writer;
+    private final List<String> channelNames = new ArrayList<>();
+    private final List<ToDoubleFunction<Physics>> channels = new ArrayList<>();
+    private final Window[] windows;
+    private final double[] values;
+
+    // Cambi di giro dal thread del poller, applicati in ordine di packetId
+    private final Queue<LapChange> lapChanges = new ConcurrentLinkedQueue<>();
+    private int lastSignalledLap = Integer.MIN_VALUE;
+
+    private int lap;
+
+    private record LapChange(int lastPacketId, int lap) {
+    }
+
+    public PhysicsRollupWriter(MongoTemplate mongoTemplate, PhysicsIndexes physicsIndexes,
+                               TelemetryProperties.Rollup config, TelemetryProperties.DerivedWrites writes) {
+        this.mongoTemplate = mongoTemplate;
+        this.physicsIndexes = physicsIndexes;
+        this.writer = new BackgroundWriter<>("rollups", writes, BATCH_SIZE, this::write);
+        for (String name : config.getChannels()) {
+            addChannel(PageLayouts.PHYSICS.field(name));
+        }
+        this.values = new double[channels.size()];
+        RollupTier[] tiers = RollupTier.values();
+        this.windows = new Window[tiers.length];
+        for (int i = 0; i < tiers.length; i++) {
+            windows[i] = new Window(tiers[i], channels.size());
+        }
+    }
+
+    /** Nomi dei canali di un campo physics come compaiono nei rollup */
+    public static List<String> channelNames(String field) {
+        PageField<Physics> pageField = PageLayouts.PHYSICS.field(field);
+        if (pageField.getType() != FieldType.FLOAT_ARRAY) {
+            return List.of(field);
+        }
+        List<String> names = new ArrayList<>(pageField.getLength());
+        for (int i = 0; i < pageField.getLength(); i++) {
+            names.add(field + "_" + i);
+        }
+        return names;
+    }
+
+    private void addChannel(PageField<Physics> field) {
+        switch (field.getType()) {
+            case INT -> channels.add(p -> field.getIntGetter().applyAsInt(p));
+            case FLOAT -> channels.add(p -> field.getFloatGetter().get(p));
+            case FLOAT_ARRAY -> {
+                for (int i = 0; i < field.getLength(); i++) {
+                    int index = i;
+                    channels.add(p -> field.getFloats(p)[index]);
+                }
+            }
+            default -> throw new IllegalArgumentException("Field " + field.getName() + " cannot be rolled up");
+        }
+        channelNames.addAll(channelNames(field.getName()));
+    }
+
+    /**
+     * Giro corrente dagli update graphics, sul thread del poller: lastPacketId
+     * è l'ultimo frame physics letto, che appartiene ancora al giro precedente
+     */
+    public void onLap(int lap, int lastPacketId) {
+        if (lap != lastSignalledLap) {
+            lastSignalledLap = lap;
+            lapChanges.add(new LapChange(lastPacketId, lap));
+        }
+    }
+
+    @Override
+    public boolean handle(Physics physics) {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = channels.get(i).applyAsDouble(physics);
+        }
+        LapChange change;
+        while ((change = lapChanges.peek()) != null && physics.getPacketId() > change.lastPacketId()) {
+            lapChanges.poll();
+            lap = change.lap();
+        }
+        long timestamp = physics.getTimestamp().toEpochMilli();
+        int currentLap = lap;
+        for (Window window : windows) {
+            long key = window.tier == RollupTier.LAP
+                    ? currentLap
+                    : timestamp - Math.floorMod(timestamp, window.tier.getWindowMillis());
+            if (window.count > 0 && (key != window.key || !window.sessionId.equals(physics.getSessionId()))) {
+                close(window);
+            }
+            window.add(key, physics.getSessionId(), currentLap, timestamp, values);
+        }
+        return true;
+    }
+
+    @Override
+    public void onStart() {
+        writer.start();
+    }
+
+    @Override
+    public void onStop() {
+        for (Window window : windows) {
+            if (window.count > 0) {
+                close(window);
+            }
+        }
+        writer.stop();
+    }
+
+    public StageStats getWriterStats() {
+        return writer.getStats();
+    }
+
+    private void close(Window window) {
+        writer.offer(window.toRollup(channelNames));
+        window.count = 0;
+    }
+
+    /** Sul thread del BackgroundWriter: un'eccezione fa riprovare l'intero blocco */
+    private void write(List<PhysicsRollup> batch) {
+        physicsIndexes.ensureRollupIndex();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PhysicsRollup.class)
+                    .insert(batch)
+                    .execute();
+        } catch (BulkOperationException e) {
+            // Rollup già scritti da un tentativo precedente: l'id è deterministico
+            if (e.getErrors().stream().anyMatch(error -> error.getCode() != DUPLICATE_KEY)) {
+                throw e;
+            }
+        }
+    }
+
+    /** Finestra aperta di un tier */
+    private static class Window {
+        private final RollupTier tier;
+        private final double[] min;
+        private final double[] max;
+        private final double[] sum;
+        private final double[] first;
+        private final double[] last;
+        private long key;
+        private String sessionId;
+        private int lap;
+        private long start;
+        private long end;
+        private int count;
+
+        Window(RollupTier tier, int channels) {
+            this.tier = tier;
+            this.min = new double[channels];
+            this.max = new double[channels];
+            this.sum = new double[channels];
+            this.first = new double[channels];
+            this.last = new double[channels];
+        }
+
+        void add(long key, String sessionId, int lap, long timestamp, double[] values) {
+            if (count == 0) {
+                this.key = key;
+                this.sessionId = sessionId;
+                this.lap = lap;
+                this.start = timestamp;
+                System.arraycopy(values, 0, min, 0, values.length);
+                System.arraycopy(values, 0, max, 0, values.length);
+                System.arraycopy(values, 0, first, 0, values.length);
+                Arrays.fill(sum, 0);
+            }
+            for (int i = 0; i < values.length; i++) {
+                double value = values[i];
+                if (value < min[i]) min[i] = value;
+                if (value > max[i]) max[i] = value;
+                sum[i] += value;
+            }
+            System.arraycopy(values, 0, last, 0, values.length);
+            end = timestamp;
+            count++;
+        }
+
+        PhysicsRollup toRollup(List<String> channelNames) {
+            Map<String, ChannelStats> stats = new LinkedHashMap<>();
+            for (int i = 0; i < channelNames.size(); i++) {
+                stats.put(channelNames.get(i), new ChannelStats(min[i], max[i], sum[i] / count, first[i], last[i]));
+            }
+            long windowStart = tier == RollupTier.LAP ? start : key;
+            return PhysicsRollup.builder()
+                    .id(sessionId + ":" + tier + ":" + (tier == RollupTier.LAP ? "lap" + key : key))
+                    .sessionId(sessionId)
+                    .tier(tier)
+                    .lap(lap)
+                    .start(Instant.ofEpochMilli(windowStart))
+                    .end(Instant.ofEpochMilli(end))
+                    .count(count)
+                    .channels(stats)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package it.cusc.acAnalyzer.service;
+
+import it.cusc.acAnalyzer.model.BatchWriterStats;
+import it.cusc.acAnalyzer.model.Physics;
+import it.cusc.acAnalyzer.pipeline.StageHandler;
+
+/**
+ * Handler dello stage persist: scrive i frame physics su MongoDB
+ */
+public interface PhysicsWriter extends StageHandler<Physics> {
+    /**
+     * Scrive subito i frame in attesa
+     */
+    void flush();
+
+    /**
+     * Frame ricevuti ma non ancora scritti
+     */
+    int pending();
+
+    /**
+     * True se una scrittura è fallita dall'ultima chiamata; azzera l'indicatore
+     */
+    boolean checkFailed();
+
+    /**
+     * Scarta i frame in attesa senza scriverli (replay del journal da rifare)
+     */
+    void discard();
+
+    BatchWriterStats getStats();
+}
@@ -0,0 +1,102 @@
+package it.cusc.acAnalyzer.service;
+
+import it.cusc.acAnalyzer.model.ChannelStats;
+import it.cusc.acAnalyzer.model.PhysicsRollup;
+import it.cusc.acAnalyzer.model.enums.RollupTier;
+import it.cusc.acAnalyzer.repository.PhysicsIndexes;
+import it.cusc.acAnalyzer.repository.PhysicsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Sceglie il tier di rollup più grossolano che risponde esattamente a una
+ * statistica di sessione: un tier è utilizzabile solo se i suoi rollup
+ * coprono tutti i frame physics salvati. Altrimenti (sessione in corso,
+ * rollup mancanti) il chiamante ricade sui dati grezzi.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class RollupQueryPlanner {
+    private static final List<RollupTier> COARSEST_FIRST =
+            List.of(RollupTier.LAP, RollupTier.SECOND, RollupTier.MILLIS_100);
+
+    private final MongoTemplate mongoTemplate;
+    private final PhysicsRepository physicsRepository;
+    private final PhysicsIndexes physicsIndexes;
+
+    /** Trova il tier da usare per la sessione, se ce n'è uno completo */
+    public Optional<RollupTier> planSession(String sessionId) {
+        physicsIndexes.ensureRollupIndex();
+        Map<RollupTier, Long> framesByTier = new EnumMap<>(RollupTier.class);
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("sessionId").is(sessionId)),
+                Aggregation.group("tier").sum("count").as("frames"));
+        for (Document row : mongoTemplate.aggregate(aggregation, PhysicsRollup.class, Document.class)) {
+            framesByTier.put(RollupTier.valueOf(row.getString("_id")), ((Number) row.get("frames")).longValue());
+        }
+        if (framesByTier.isEmpty()) return Optional.empty();
+
+        long frames = physicsRepository.countBySessionId(sessionId);
+        for (RollupTier tier : COARSEST_FIRST) {
+            if (frames > 0 && framesByTier.getOrDefault(tier, 0L) == frames) {
+                log.debug("Session {} stats from {} rollups", sessionId, tier);
+                return Optional.of(tier);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Statistiche di sessione dei canali richiesti, combinando i rollup del
+     * tier scelto; vuoto se nessun tier copre la sessione
+     */
+    public Optional<Map<String, ChannelStats>> sessionStats(String sessionId, Collection<String> channels) {
+        Optional<RollupTier> tier = planSession(sessionId);
+        if (tier.isEmpty()) return Optional.empty();
+
+        Query query = Query.query(Criteria.where("sessionId").is(sessionId).and("tier").is(tier.get()))
+                .with(Sort.by("start"));
+        query.fields().include("count");
+        channels.forEach(channel -> query.fields().include("channels." + channel));
+        List<PhysicsRollup> rollups = mongoTemplate.find(query, PhysicsRollup.class);
+
+        Map<String, ChannelStats> result = new LinkedHashMap<>();
+        for (String channel : channels) {
+            ChannelStats merged = null;
+            long count = 0;
+            double sum = 0;
+            for (PhysicsRollup rollup : rollups) {
+                ChannelStats stats = rollup.getChannels() != null ? rollup.getChannels().get(channel) : null;
+                if (stats == null) return Optional.empty();
+
+                if (merged == null) {
+                    merged = new ChannelStats(stats.getMin(), stats.getMax(), 0, stats.getFirst(), stats.getLast());
+                } else {
+                    merged.setMin(Math.min(merged.getMin(), stats.getMin()));
+                    merged.setMax(Math.max(merged.getMax(), stats.getMax()));
+                    merged.setLast(stats.getLast());
+                }
+                sum += stats.getMean() * rollup.getCount();
+                count += rollup.getCount();
+            }
+            if (merged == null) return Optional.empty();
+            merged.setMean(sum / count);
+            result.put(channel, merged);
+        }
+        return Optional.of(result);
+    }
+
+    public Optional<ChannelStats> sessionStats(String sessionId, String channel) {
+        return sessionStats(sessionId, List.of(channel)).map(stats -> stats.get(channel));
+    }
+}
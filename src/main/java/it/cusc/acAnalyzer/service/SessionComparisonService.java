@@ -0,0 +1,332 @@
+package it.cusc.acAnalyzer.service;
+
+import it.cusc.acAnalyzer.analysis.LapAnalyzer;
+import it.cusc.acAnalyzer.config.TelemetryProperties;
+import it.cusc.acAnalyzer.model.StaticInfo;
+import it.cusc.acAnalyzer.repository.StaticInfoRepository;
+import it.cusc.acAnalyzer.service.LapAnalysisService.BestTimes;
+import it.cusc.acAnalyzer.service.LapAnalysisService.LapAnalysisResult;
+import it.cusc.acAnalyzer.service.LapAnalysisService.LapData;
+import it.cusc.acAnalyzer.service.TyreAnalysisService.TyreAnalysisResult;
+import jakarta.annotation.PreDestroy;
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Analisi di tutte le sessioni di una combinazione pista/auto: le sessioni
+ * sono distribuite su un pool di thread limitato e un semaforo condiviso
+ * limita le analisi contemporanee verso MongoDB. I risultati si possono
+ * raccogliere, ricevere man mano che sono pronti oppure fondere in un unico
+ * riepilogo.
+ */
+@Service
+@Slf4j
+public class SessionComparisonService {
+    private final LapAnalysisService lapAnalysisService;
+    private final TyreAnalysisService tyreAnalysisService;
+    private final StaticInfoRepository staticInfoRepository;
+    private final ExecutorService executor;
+    private final Semaphore queryPermits;
+
+    public SessionComparisonService(LapAnalysisService lapAnalysisService,
+                                    TyreAnalysisService tyreAnalysisService,
+                                    StaticInfoRepository staticInfoRepository,
+                                    TelemetryProperties telemetryProperties) {
+        this.lapAnalysisService = lapAnalysisService;
+        this.tyreAnalysisService = tyreAnalysisService;
+        this.staticInfoRepository = staticInfoRepository;
+
+        TelemetryProperties.Comparison config = telemetryProperties.getComparison();
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(config.getParallelism(), runnable -> {
+            Thread thread = new Thread(runnable, "AC-Comparison-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.queryPermits = new Semaphore(config.getMaxConcurrentQueries(), true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Data
+    @Builder
+    public static class TyreComparison {
+        private String track;
+        private String carModel;
+        private int sessions;
+        private long samples;
+        // Medie pesate sul numero di campioni di ogni sessione
+        private double[] avgInnerTemp;
+        private double[] avgMiddleTemp;
+        private double[] avgOuterTemp;
+        private double[] maxInnerTemp;
+        private double[] maxMiddleTemp;
+        private double[] maxOuterTemp;
+        private double[] timeInOptimalTempRange;
+        private double[] avgPressure;
+        private double[] maxPressure;
+        private double[] minPressure;
+        private double[] timeInOptimalPressureRange;
+        private double[] avgWearRate;      // Media dei tassi di usura per giro delle sessioni
+        private int totalStints;
+    }
+
+    @Data
+    @Builder
+    public static class LapComparison {
+        private String track;
+        private String carModel;
+        private int sessions;
+        private int laps;
+        private int validLaps;
+        private String bestLapTime;
+        private int bestLapTimeMs;
+        private String bestLapSessionId;
+        private String[] bestSectors;
+        private int[] bestSectorsMs;
+        private String theoreticalBest;
+        private int theoreticalBestMs;
+        private double consistency;        // su tutti i giri validi delle sessioni
+    }
+
+    public List<TyreAnalysisResult> analyzeTyres(String track, String carModel) {
+        return analyzeAll(findSessionIds(track, carModel), tyreAnalysisService::analyzeSession);
+    }
+
+    public List<LapAnalysisResult> analyzeLaps(String track, String carModel) {
+        return analyzeAll(findSessionIds(track, carModel), lapAnalysisService::analyzeSession);
+    }
+
+    /**
+     * Consegna ogni risultato appena pronto, dal thread che l'ha calcolato
+     */
+    public CompletableFuture<Void> streamTyres(String track, String carModel,
+                                               Consumer<? super TyreAnalysisResult> onResult) {
+        return stream(findSessionIds(track, carModel), tyreAnalysisService::analyzeSession, onResult);
+    }
+
+    public CompletableFuture<Void> streamLaps(String track, String carModel,
+                                              Consumer<? super LapAnalysisResult> onResult) {
+        return stream(findSessionIds(track, carModel), lapAnalysisService::analyzeSession, onResult);
+    }
+
+    public TyreComparison compareTyres(String track, String carModel) {
+        return mergeTyres(track, carModel, analyzeTyres(track, carModel));
+    }
+
+    public LapComparison compareLaps(String track, String carModel) {
+        return mergeLaps(track, carModel, analyzeLaps(track, carModel));
+    }
+
+    private List<String> findSessionIds(String track, String carModel) {
+        return staticInfoRepository.findByTrackAndCarModel(track, carModel).stream()
+                .map(StaticInfo::getSessionId)
+                .distinct()
+                .toList();
+    }
+
+    /**
+     * Risultati nell'ordine delle sessioni; una sessione che fallisce viene saltata
+     */
+    private <R> List<R> analyzeAll(List<String> sessionIds, Function<String, R> analysis) {
+        List<CompletableFuture<R>> futures = sessionIds.stream()
+                .map(sessionId -> submit(sessionId, analysis))
+                .toList();
+
+        List<R> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<R> future : futures) {
+            R result = future.join();
+            if (result != null) {
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
+    private <R> CompletableFuture<Void> stream(List<String> sessionIds, Function<String, R> analysis,
+                                               Consumer<? super R> onResult) {
+        CompletableFuture<?>[] futures = sessionIds.stream()
+                .map(sessionId -> submit(sessionId, analysis).thenAccept(result -> {
+                    if (result != null) {
+                        onResult.accept(result);
+                    }
+                }))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(futures);
+    }
+
+    private <R> CompletableFuture<R> submit(String sessionId, Function<String, R> analysis) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                queryPermits.acquire();
+                try {
+                    return analysis.apply(sessionId);
+                } finally {
+                    queryPermits.release();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (RuntimeException e) {
+                log.warn("Error analyzing session {}", sessionId, e);
+                return null;
+            }
+        }, executor);
+    }
+
+    private TyreComparison mergeTyres(String track, String carModel, List<TyreAnalysisResult> results) {
+        long samples = 0;
+        int stints = 0;
+        double[] avgInner = new double[4];
+        double[] avgMiddle = new double[4];
+        double[] avgOuter = new double[4];
+        double[] optimalTemp = new double[4];
+        double[] avgPressure = new double[4];
+        double[] optimalPressure = new double[4];
+        double[] maxInner = filled(Double.NEGATIVE_INFINITY);
+        double[] maxMiddle = filled(Double.NEGATIVE_INFINITY);
+        double[] maxOuter = filled(Double.NEGATIVE_INFINITY);
+        double[] maxPressure = filled(Double.NEGATIVE_INFINITY);
+        double[] minPressure = filled(Double.POSITIVE_INFINITY);
+        double[] wearRate = new double[4];
+        int[] wearSessions = new int[4];
+
+        for (TyreAnalysisResult result : results) {
+            if (result.getSamples() == 0) continue;
+
+            double weight = result.getSamples();
+            samples += result.getSamples();
+            stints += result.getStints().size();
+            TyreAnalysisService.TyreTemperatures temps = result.getTemperatures();
+            TyreAnalysisService.TyrePressures pressures = result.getPressures();
+
+            for (int wheel = 0; wheel < 4; wheel++) {
+                avgInner[wheel] += temps.getAvgInnerTemp()[wheel] * weight;
+                avgMiddle[wheel] += temps.getAvgMiddleTemp()[wheel] * weight;
+                avgOuter[wheel] += temps.getAvgOuterTemp()[wheel] * weight;
+                optimalTemp[wheel] += temps.getTimeInOptimalRange()[wheel] * weight;
+                maxInner[wheel] = Math.max(maxInner[wheel], temps.getMaxInnerTemp()[wheel]);
+                maxMiddle[wheel] = Math.max(maxMiddle[wheel], temps.getMaxMiddleTemp()[wheel]);
+                maxOuter[wheel] = Math.max(maxOuter[wheel], temps.getMaxOuterTemp()[wheel]);
+
+                avgPressure[wheel] += pressures.getAvgPressure()[wheel] * weight;
+                optimalPressure[wheel] += pressures.getTimeInOptimalRange()[wheel] * weight;
+                maxPressure[wheel] = Math.max(maxPressure[wheel], pressures.getMaxPressure()[wheel]);
+                minPressure[wheel] = Math.min(minPressure[wheel], pressures.getMinPressure()[wheel]);
+
+                // Sessioni senza giri completati hanno un tasso di usura non finito
+                if (result.getWear() != null && Double.isFinite(result.getWear().getWearRate()[wheel])) {
+                    wearRate[wheel] += result.getWear().getWearRate()[wheel];
+                    wearSessions[wheel]++;
+                }
+            }
+        }
+
+        for (int wheel = 0; wheel < 4; wheel++) {
+            if (wearSessions[wheel] > 0) {
+                wearRate[wheel] /= wearSessions[wheel];
+            }
+        }
+
+        return TyreComparison.builder()
+                .track(track)
+                .carModel(carModel)
+                .sessions(results.size())
+                .samples(samples)
+                .avgInnerTemp(divide(avgInner, samples))
+                .avgMiddleTemp(divide(avgMiddle, samples))
+                .avgOuterTemp(divide(avgOuter, samples))
+                .maxInnerTemp(orZero(maxInner))
+                .maxMiddleTemp(orZero(maxMiddle))
+                .maxOuterTemp(orZero(maxOuter))
+                .timeInOptimalTempRange(divide(optimalTemp, samples))
+                .avgPressure(divide(avgPressure, samples))
+                .maxPressure(orZero(maxPressure))
+                .minPressure(orZero(minPressure))
+                .timeInOptimalPressureRange(divide(optimalPressure, samples))
+                .avgWearRate(wearRate)
+                .totalStints(stints)
+                .build();
+    }
+
+    /**
+     * I giri di tutte le sessioni passano per un solo LapAnalyzer: miglior
+     * giro, migliori settori e consistenza sono quelli dell'analisi di sessione
+     */
+    private LapComparison mergeLaps(String track, String carModel, List<LapAnalysisResult> results) {
+        LapAnalyzer merged = new LapAnalyzer();
+        String bestLapSessionId = null;
+        int laps = 0;
+
+        for (LapAnalysisResult result : results) {
+            laps += result.getLaps().size();
+            for (LapData lap : result.getLaps()) {
+                merged.addLap(lap);
+                if (merged.bestLap() == lap) {
+                    bestLapSessionId = result.getSessionId();
+                }
+            }
+        }
+
+        LapComparison.LapComparisonBuilder comparison = LapComparison.builder()
+                .track(track)
+                .carModel(carModel)
+                .sessions(results.size())
+                .laps(laps)
+                .validLaps(merged.validLaps());
+        BestTimes best = merged.bestTimes();
+        // Nessun giro valido in nessuna sessione
+        if (best == null) {
+            return comparison.build();
+        }
+
+        return comparison
+                .bestLapTime(best.getBestLapTime())
+                .bestLapTimeMs(best.getBestLapTimeMs())
+                .bestLapSessionId(bestLapSessionId)
+                .bestSectors(best.getBestSectors())
+                .bestSectorsMs(best.getBestSectorsMs())
+                .theoreticalBest(best.getTheoreticalBest())
+                .theoreticalBestMs(best.getTheoreticalBestMs())
+                .consistency(merged.consistency())
+                .build();
+    }
+
+    private static double[] divide(double[] sums, long count) {
+        double[] result = new double[4];
+        for (int i = 0; i < 4; i++) {
+            result[i] = count > 0 ? sums[i] / count : 0.0;
+        }
+        return result;
+    }
+
+    private static double[] orZero(double[] extremes) {
+        double[] result = new double[4];
+        for (int i = 0; i < 4; i++) {
+            result[i] = Double.isFinite(extremes[i]) ? extremes[i] : 0.0;
+        }
+        return result;
+    }
+
+    private static double[] filled(double value) {
+        double[] values = new double[4];
+        Arrays.fill(values, value);
+        return values;
+    }
+}
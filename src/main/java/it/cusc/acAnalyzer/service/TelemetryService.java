@@ -1,36 +1,102 @@
 package it.cusc.acAnalyzer.service;
 
+import it.cusc.acAnalyzer.analysis.LiveSession;
+import it.cusc.acAnalyzer.config.TelemetryProperties;
 import it.cusc.acAnalyzer.core.AssettoCorsa;
 import it.cusc.acAnalyzer.core.GraphicsListener;
 import it.cusc.acAnalyzer.core.PhysicsListener;
 import it.cusc.acAnalyzer.core.StaticInfoListener;
+import it.cusc.acAnalyzer.journal.JournalDrainer;
+import it.cusc.acAnalyzer.journal.TelemetryJournal;
+import it.cusc.acAnalyzer.live.LivePublisher;
+import it.cusc.acAnalyzer.live.SlowConsumerGuard;
 import it.cusc.acAnalyzer.model.*;
+import it.cusc.acAnalyzer.model.enums.GraphicsEvent;
+import it.cusc.acAnalyzer.model.projection.LapSample;
+import it.cusc.acAnalyzer.model.projection.TyreSample;
+import it.cusc.acAnalyzer.pipeline.StageHandler;
+import it.cusc.acAnalyzer.pipeline.StagedPipeline;
 import it.cusc.acAnalyzer.repository.*;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+
+import java.io.IOException;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class TelemetryService implements PhysicsListener, GraphicsListener, StaticInfoListener {
-    private final PhysicsRepository physicsRepository;
     private final GraphicsRepository graphicsRepository;
     private final StaticInfoRepository staticInfoRepository;
     private final SimpMessagingTemplate messagingTemplate;
+    private final TelemetryProperties telemetryProperties;
+    private final MongoTemplate mongoTemplate;
+    private final PhysicsIndexes physicsIndexes;
+    private final LiveAnalysisService liveAnalysisService;
+    private final LivePublisher livePublisher;
+    private final SlowConsumerGuard slowConsumerGuard;
 
     private AssettoCorsa assettoCorsa;
+    private StagedPipeline<Physics> physicsPipeline;
+    private StagedPipeline<Graphics> graphicsPipeline;
+    // Ultimo frame physics letto: i passaggi sul traguardo si ordinano su questo
+    private int lastPhysicsPacketId = -1;
+    private PhysicsWriter physicsWriter;
+    private TelemetryJournal journal;
+    private JournalDrainer journalDrainer;
+    private PhysicsRollupWriter rollupWriter;
+    private LapIndexWriter lapIndexWriter;
+    private LiveSession liveSession;
+    // Array del campione gomme live, riscritti a ogni frame dal thread del poller
     private String currentSessionId;
     private StaticInfo currentStaticInfo;
     private boolean isConnected = false;
 
+    /**
+     * Crash recovery: replica su MongoDB i segmenti del journal rimasti
+     * da un'esecuzione precedente
+     */
+    @PostConstruct
+    public void recoverJournal() {
+        TelemetryProperties.Journal config = telemetryProperties.getJournal();
+        try {
+            if (config.isEnabled() && JournalDrainer.hasPendingSegments(config)) {
+                log.info("Recovering telemetry journal from {}", config.getDirectory());
+                startJournalDrainer();
+            }
+        } catch (IOException e) {
+            log.error("Error recovering telemetry journal", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stopTelemetry();
+        stopJournalDrainer();
+    }
+
     public void startTelemetry() {
         if (!isConnected) {
             currentSessionId = UUID.randomUUID().toString();
-            assettoCorsa = new AssettoCorsa();
+            lastPhysicsPacketId = -1;
+            liveSession = liveAnalysisService.open(currentSessionId);
+            physicsPipeline = buildPhysicsPipeline(currentSessionId, createPersistHandler());
+            physicsPipeline.start();
+            graphicsPipeline = buildGraphicsPipeline();
+            graphicsPipeline.start();
+            assettoCorsa = new AssettoCorsa(telemetryProperties);
 
             // Registra i listener
             assettoCorsa.addPhysicsListener(this);
@@ -48,42 +114,156 @@ public class TelemetryService implements PhysicsListener, GraphicsListener, Stat
     public void stopTelemetry() {
         if (isConnected && assettoCorsa != null) {
             assettoCorsa.stop();
+            // Lo stop svuota le code e forza il flush finale del batch writer
+            physicsPipeline.stop();
+            graphicsPipeline.stop();
+            // Il drainer replica quanto resta nel journal prima di fermarsi
+            stopJournalDrainer();
+            journal = null;
+            // Da qui in poi la sessione si analizza dai dati su MongoDB
+            liveAnalysisService.close(currentSessionId);
+            liveSession = null;
             isConnected = false;
             log.info("Stopped AC telemetry session: {}", currentSessionId);
         }
     }
 
-    @Override
-    public void onPhysicsUpdate(Physics physics) {
-        try {
-            // Aggiungi metadati
-            physics.setSessionId(currentSessionId);
-            physics.setTimestamp(Instant.now());
+    /**
+     * Pipeline physics: enrich -> persist -> laps -> rollup -> publish, ogni stage sul proprio thread
+     */
+    private StagedPipeline<Physics> buildPhysicsPipeline(String sessionId, StageHandler<Physics> persist) {
+        TelemetryProperties.Pipeline config = telemetryProperties.getPipeline();
+        StagedPipeline.Builder<Physics> builder = StagedPipeline.<Physics>builder()
+                .stage("enrich", config.getEnrich(), physics -> {
+                    // Aggiungi metadati (il timestamp è già quello di lettura)
+                    physics.setId(new ObjectId().toHexString());
+                    physics.setSessionId(sessionId);
+                    return true;
+                })
+                .stage("persist", config.getPersist(), persist);
 
-            // Salva su MongoDB
-            physicsRepository.save(physics);
+        lapIndexWriter = new LapIndexWriter(mongoTemplate, physicsIndexes, telemetryProperties.getDerivedWrites());
+        builder.stage("laps", config.getLaps(), lapIndexWriter);
 
-            // Invia update via WebSocket
-            messagingTemplate.convertAndSend("/topic/physics", physics);
+        rollupWriter = null;
+        if (telemetryProperties.getRollup().isEnabled()) {
+            rollupWriter = new PhysicsRollupWriter(mongoTemplate, physicsIndexes,
+                    telemetryProperties.getRollup(), telemetryProperties.getDerivedWrites());
+            builder.stage("rollup", config.getRollup(), rollupWriter);
+        }
 
-        } catch (Exception e) {
-            log.error("Error processing physics update", e);
+        return builder
+                .stage("publish", config.getPublish(), physics -> {
+                    // Invia update via WebSocket: il fan-out a frequenza ridotta gira sul thread live
+                    livePublisher.publishPhysics(physics);
+                    return true;
+                })
+                .build();
+    }
+
+    /**
+     * Frame graphics emessi dal poller solo quando cambia un campo chiave:
+     * pubblicati subito, salvati se non sono un semplice heartbeat
+     */
+    private StagedPipeline<Graphics> buildGraphicsPipeline() {
+        return StagedPipeline.<Graphics>builder()
+                .stage("graphics", telemetryProperties.getPipeline().getGraphics(), graphics -> {
+                    // Invia update via WebSocket, completi e delta
+                    livePublisher.publishGraphics(graphics);
+                    Set<GraphicsEvent> events = graphics.getEvents();
+                    if (events.contains(GraphicsEvent.LAP) || events.contains(GraphicsEvent.SECTOR)) {
+                        messagingTemplate.convertAndSend("/topic/laps", graphics);
+                    }
+
+                    // Salva su MongoDB
+                    if (!events.equals(EnumSet.of(GraphicsEvent.HEARTBEAT))) {
+                        graphicsRepository.save(graphics);
+                    }
+                    return true;
+                })
+                .build();
+    }
+
+    /**
+     * Con il journal attivo lo stage persist scrive solo su file; se il
+     * journal non si apre si torna alla scrittura diretta su MongoDB
+     */
+    private StageHandler<Physics> createPersistHandler() {
+        TelemetryProperties.Journal config = telemetryProperties.getJournal();
+        if (config.isEnabled()) {
+            try {
+                TelemetryJournal opened = new TelemetryJournal(config);
+                opened.open();
+                startJournalDrainer();
+                journal = opened;
+                return journal;
+            } catch (IOException e) {
+                log.error("Error opening telemetry journal, writing physics directly to MongoDB", e);
+            }
+        }
+        stopJournalDrainer();
+        physicsWriter = createPhysicsWriter();
+        return physicsWriter;
+    }
+
+    private void startJournalDrainer() throws IOException {
+        if (journalDrainer != null) return;
+        physicsWriter = createPhysicsWriter();
+        journalDrainer = new JournalDrainer(telemetryProperties.getJournal(), physicsWriter);
+        journalDrainer.start();
+    }
+
+    private void stopJournalDrainer() {
+        if (journalDrainer != null) {
+            journalDrainer.stop();
+            journalDrainer = null;
         }
     }
 
+    private PhysicsWriter createPhysicsWriter() {
+        return switch (telemetryProperties.getStorage().getMode()) {
+            case DOCUMENT -> new PhysicsBatchWriter(mongoTemplate, telemetryProperties.getBatch());
+            case BUCKET -> new PhysicsBucketWriter(mongoTemplate, physicsIndexes, telemetryProperties.getStorage());
+        };
+    }
+
+    @Override
+    public void onPhysicsUpdate(Physics physics) {
+        // Chiamato dal thread del poller: solo accodamento, niente I/O. Il
+        // timestamp si prende qui, sullo stesso orologio dei frame graphics,
+        // e non include l'attesa nelle code della pipeline
+        physics.setTimestamp(Instant.now());
+        lastPhysicsPacketId = physics.getPacketId();
+        // Analisi gomme live sullo stesso frame consistente che viene salvato,
+        // così live e sessione salvata danno gli stessi risultati
+        LiveSession live = liveSession;
+        if (live != null) {
+            live.addTyreSample(TyreSample.from(physics));
+        }
+        physicsPipeline.submit(physics);
+    }
+
     @Override
     public void onGraphicsUpdate(Graphics graphics) {
+        // Chiamato dal thread del poller: solo stato in memoria, l'I/O è nello stage graphics
         try {
             // Aggiungi metadati
             graphics.setSessionId(currentSessionId);
             graphics.setTimestamp(Instant.now());
 
-            // Salva su MongoDB
-            graphicsRepository.save(graphics);
+            // Il giro corrente delimita i rollup per giro
+            if (rollupWriter != null) {
+                rollupWriter.onLap(graphics.getCompletedLaps(), lastPhysicsPacketId);
+            }
 
-            // Invia update via WebSocket
-            messagingTemplate.convertAndSend("/topic/graphics", graphics);
+            // Passaggi sul traguardo e settori per l'indice dei giri e l'analisi live
+            LapSample lapSample = LapSample.from(graphics);
+            lapIndexWriter.onLapSample(lapSample, lastPhysicsPacketId);
+            if (liveSession != null) {
+                liveSession.addLapSample(lapSample);
+            }
 
+            graphicsPipeline.submit(graphics);
         } catch (Exception e) {
             log.error("Error processing graphics update", e);
         }
@@ -92,12 +272,21 @@ public class TelemetryService implements PhysicsListener, GraphicsListener, Stat
     @Override
     public void onStaticInfoUpdate(StaticInfo staticInfo) {
         try {
-            // Aggiungi metadati
+            // Arriva solo quando la pagina cambia: il record della sessione
+            // viene sovrascritto, mantenendo l'istante di inizio
+            Instant now = Instant.now();
+            StaticInfo previous = this.currentStaticInfo;
+            staticInfo.setId(currentSessionId);
             staticInfo.setSessionId(currentSessionId);
-            staticInfo.setTimestamp(Instant.now());
+            staticInfo.setTimestamp(previous != null && currentSessionId.equals(previous.getSessionId())
+                    ? previous.getTimestamp() : now);
+            staticInfo.setUpdatedAt(now);
 
             // Aggiorna il riferimento corrente
             this.currentStaticInfo = staticInfo;
+            if (liveSession != null) {
+                liveSession.setStaticInfo(staticInfo);
+            }
 
             // Salva su MongoDB
             staticInfoRepository.save(staticInfo);
@@ -117,4 +306,39 @@ public class TelemetryService implements PhysicsListener, GraphicsListener, Stat
     public String getCurrentSessionId() {
         return currentSessionId;
     }
+
+    public TelemetryStats getStats() {
+        return TelemetryStats.builder()
+                .sessionId(currentSessionId)
+                .poller(assettoCorsa != null ? assettoCorsa.getPollerStats() : null)
+                .physicsReads(assettoCorsa != null ? assettoCorsa.getPhysicsReadStats() : null)
+                .graphicsReads(assettoCorsa != null ? assettoCorsa.getGraphicsReadStats() : null)
+                .pipeline(physicsPipeline != null ? physicsPipeline.getStats() : null)
+                .batchWriter(physicsWriter != null ? physicsWriter.getStats() : null)
+                .journal(getJournalStats())
+                .derivedWrites(getDerivedWriteStats())
+                .liveClients(slowConsumerGuard.getStats())
+                .build();
+    }
+
+    private List<StageStats> getDerivedWriteStats() {
+        List<StageStats> stats = new ArrayList<>();
+        if (lapIndexWriter != null) {
+            stats.add(lapIndexWriter.getWriterStats());
+        }
+        if (rollupWriter != null) {
+            stats.add(rollupWriter.getWriterStats());
+        }
+        return stats;
+    }
+
+    private JournalStats getJournalStats() {
+        if (journalDrainer == null) return null;
+        JournalStats.JournalStatsBuilder stats = journalDrainer.getStats().toBuilder();
+        if (journal != null) {
+            stats.appendedRecords(journal.getAppendedRecords())
+                    .appendedBytes(journal.getAppendedBytes());
+        }
+        return stats.build();
+    }
 }
\ No newline at end of file
@@ -1,18 +1,23 @@
 package it.cusc.acAnalyzer.service;
 
+import it.cusc.acAnalyzer.analysis.LiveSession;
+import it.cusc.acAnalyzer.analysis.TyreAnalyzer;
 import it.cusc.acAnalyzer.config.TyreProperties;
-import it.cusc.acAnalyzer.model.Physics;
+import it.cusc.acAnalyzer.model.projection.TyreAggregate;
+import it.cusc.acAnalyzer.model.projection.TyreSample;
 import it.cusc.acAnalyzer.model.StaticInfo;
 import it.cusc.acAnalyzer.repository.PhysicsRepository;
 import it.cusc.acAnalyzer.repository.StaticInfoRepository;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
@@ -21,15 +26,20 @@ public class TyreAnalysisService {
     private final PhysicsRepository physicsRepository;
     private final StaticInfoRepository staticInfoRepository;
     private final TyreProperties tyreProperties;
+    private final LiveAnalysisService liveAnalysisService;
+    private final AnalysisResultCache analysisResultCache;
 
     @Data
     @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
     public static class TyreAnalysisResult {
         private String sessionId;
         private String track;
         private String carModel;
         private String playerName;
         private String sessionDate;
+        private long samples;              // Campioni physics analizzati
         private TyreTemperatures temperatures;
         private TyrePressures pressures;
         private TyreWear wear;
@@ -38,6 +48,8 @@ public class TyreAnalysisService {
 
     @Data
     @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
     public static class TyreTemperatures {
         private double[] avgInnerTemp;    // Media temperatura interna per ogni ruota
         private double[] avgMiddleTemp;    // Media temperatura centrale per ogni ruota
@@ -52,6 +64,8 @@ public class TyreAnalysisService {
 
     @Data
     @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
     public static class TyrePressures {
         private double[] avgPressure;      // Pressione media per ogni ruota
         private double[] maxPressure;      // Pressione massima per ogni ruota
@@ -63,6 +77,8 @@ public class TyreAnalysisService {
 
     @Data
     @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
     public static class TyreWear {
         private double[] totalWear;        // Usura totale per ogni ruota
         private double[] wearRate;         // Tasso di usura per giro
@@ -71,6 +87,8 @@ public class TyreAnalysisService {
 
     @Data
     @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
     public static class TyreStintData {
         private int stintNumber;
         private int startLap;
@@ -90,172 +108,116 @@ public class TyreAnalysisService {
         return staticInfoRepository.findDistinctCarModelsByTrack(track);
     }
 
-    public List<TyreAnalysisResult> analyzeTrackCarCombination(String track, String carModel) {
-        List<StaticInfo> sessions = staticInfoRepository.findByTrackAndCarModel(track, carModel);
-        return sessions.stream()
-                .map(session -> analyzeSession(session.getSessionId()))
-                .collect(Collectors.toList());
+    /**
+     * La sessione in registrazione si legge dallo stato live, le sessioni
+     * chiuse da MongoDB, passando dalla cache dei risultati
+     */
+    public TyreAnalysisResult analyzeSession(String sessionId) {
+        Optional<LiveSession> live = liveAnalysisService.find(sessionId);
+        if (live.isPresent()) {
+            StaticInfo sessionInfo = Optional.ofNullable(live.get().getStaticInfo())
+                    .orElseGet(() -> findSessionInfo(sessionId));
+            return toResult(sessionInfo, live.get().tyreAggregate());
+        }
+
+        // Sessione chiusa: il risultato resta valido finché non cambiano le TyreProperties
+        return analysisResultCache.tyres(sessionId,
+                () -> toResult(findSessionInfo(sessionId), aggregateTyres(sessionId)));
     }
 
-    public TyreAnalysisResult analyzeSession(String sessionId) {
-        StaticInfo sessionInfo = staticInfoRepository.findBySessionId(sessionId)
+    private StaticInfo findSessionInfo(String sessionId) {
+        return staticInfoRepository.findSession(sessionId)
                 .orElseThrow(() -> new RuntimeException("Session not found"));
-        List<Physics> physicsData = physicsRepository.findBySessionId(sessionId);
-
-        TyreTemperatures temperatures = analyzeTemperatures(physicsData);
-        TyrePressures pressures = analyzePressures(physicsData);
-        TyreWear wear = analyzeWear(physicsData);
-        List<TyreStintData> stints = analyzeStints(physicsData);
+    }
 
+    private TyreAnalysisResult toResult(StaticInfo sessionInfo, TyreAggregate aggregate) {
         return TyreAnalysisResult.builder()
-                .sessionId(sessionId)
+                .sessionId(sessionInfo.getSessionId())
                 .track(sessionInfo.getTrack())
                 .carModel(sessionInfo.getCarModel())
                 .playerName(sessionInfo.getPlayerName())
                 .sessionDate(sessionInfo.getTimestamp().toString())
-                .temperatures(temperatures)
-                .pressures(pressures)
-                .wear(wear)
-                .stints(stints)
+                .samples(aggregate.count())
+                .temperatures(analyzeTemperatures(aggregate))
+                .pressures(analyzePressures(aggregate))
+                .wear(analyzeWear(aggregate))
+                .stints(analyzeStints(aggregate))
                 .build();
     }
 
-    private TyreTemperatures analyzeTemperatures(List<Physics> physicsData) {
-        double[] avgInner = new double[4];
-        double[] avgMiddle = new double[4];
-        double[] avgOuter = new double[4];
-        double[] maxInner = new double[4];
-        double[] maxMiddle = new double[4];
-        double[] maxOuter = new double[4];
-        double[] timeInOptimal = new double[4];
+    /**
+     * Metriche calcolate da MongoDB (documenti singoli) oppure, per le sessioni
+     * a bucket, in una sola passata sul cursore
+     */
+    private TyreAggregate aggregateTyres(String sessionId) {
+        List<TyreProperties.Range> pressureRanges = Arrays.stream(TyreProperties.TyrePosition.values())
+                .map(position -> tyreProperties.getTyrePressureByPosition(position).getOptimal())
+                .toList();
+        Optional<TyreAggregate> aggregate = physicsRepository.aggregateTyres(
+                sessionId, tyreProperties.getTemp().getOptimal(), pressureRanges);
+        if (aggregate.isPresent()) {
+            return aggregate.get();
+        }
 
+        TyreAnalyzer analyzer = new TyreAnalyzer(tyreProperties);
+        try (Stream<TyreSample> physicsData = physicsRepository.streamTyreSamplesBySessionId(sessionId)) {
+            physicsData.forEach(analyzer::add);
+        }
+        return analyzer.toAggregate();
+    }
+
+    private TyreTemperatures analyzeTemperatures(TyreAggregate aggregate) {
         // Ottieni i range dalle properties
         double optimalMin = tyreProperties.getTemp().getOptimal().getMin();
         double optimalMax = tyreProperties.getTemp().getOptimal().getMax();
 
-        for (int i = 0; i < 4; i++) {
-            final int wheel = i;
-            TyreProperties.TyrePosition position = TyreProperties.TyrePosition.values()[i];
-        // Calcola le medie
-            avgInner[i] = physicsData.stream()
-                    .mapToDouble(p -> p.getTyreTempI()[wheel])
-                    .average()
-                    .orElse(0.0);
-
-            avgMiddle[i] = physicsData.stream()
-                    .mapToDouble(p -> p.getTyreTempM()[wheel])
-                    .average()
-                    .orElse(0.0);
-
-            avgOuter[i] = physicsData.stream()
-                    .mapToDouble(p -> p.getTyreTempO()[wheel])
-                    .average()
-                    .orElse(0.0);
-
-            // Calcola i massimi
-            maxInner[i] = physicsData.stream()
-                    .mapToDouble(p -> p.getTyreTempI()[wheel])
-                    .max()
-                    .orElse(0.0);
-
-            maxMiddle[i] = physicsData.stream()
-                    .mapToDouble(p -> p.getTyreTempM()[wheel])
-                    .max()
-                    .orElse(0.0);
-
-            maxOuter[i] = physicsData.stream()
-                    .mapToDouble(p -> p.getTyreTempO()[wheel])
-                    .max()
-                    .orElse(0.0);
-
-            // Calcola il tempo nel range ottimale (assumiamo 80-100°C come range ottimale)
-            double optimalCount = physicsData.stream()
-                    .filter(p -> {
-                        double avgTemp = (p.getTyreTempI()[wheel] +
-                                p.getTyreTempM()[wheel] +
-                                p.getTyreTempO()[wheel]) / 3;
-                        return tyreProperties.isTemperatureOptimal(avgTemp);
-                    })
-                    .count();
-            timeInOptimal[i] = (optimalCount / physicsData.size()) * 100;        }
-
-
         return TyreTemperatures.builder()
-                .avgInnerTemp(avgInner)
-                .avgMiddleTemp(avgMiddle)
-                .avgOuterTemp(avgOuter)
-                .maxInnerTemp(maxInner)
-                .maxMiddleTemp(maxMiddle)
-                .maxOuterTemp(maxOuter)
+                .avgInnerTemp(aggregate.avgInnerTemp())
+                .avgMiddleTemp(aggregate.avgMiddleTemp())
+                .avgOuterTemp(aggregate.avgOuterTemp())
+                .maxInnerTemp(aggregate.maxInnerTemp())
+                .maxMiddleTemp(aggregate.maxMiddleTemp())
+                .maxOuterTemp(aggregate.maxOuterTemp())
                 .optimalRangeMin(new double[]{optimalMin, optimalMin, optimalMin, optimalMin})
                 .optimalRangeMax(new double[]{optimalMax, optimalMax, optimalMax, optimalMax})
-                .timeInOptimalRange(timeInOptimal)
+                .timeInOptimalRange(percentage(aggregate.tempOptimalCount(), aggregate.count()))
                 .build();
     }
 
-    private TyrePressures analyzePressures(List<Physics> physicsData) {
-        double[] avgPressure = new double[4];
-        double[] maxPressure = new double[4];
-        double[] minPressure = new double[4];
-        double[] timeInOptimal = new double[4];
+    private TyrePressures analyzePressures(TyreAggregate aggregate) {
         double[] optimalRangeMin = new double[4];
         double[] optimalRangeMax = new double[4];
 
         for (int i = 0; i < 4; i++) {
-            final int wheel = i;
             TyreProperties.TyrePosition position = TyreProperties.TyrePosition.values()[i];
-            avgPressure[i] = physicsData.stream()
-                    .mapToDouble(p -> p.getWheelsPressure()[wheel])
-                    .average()
-                    .orElse(0.0);
-
-            maxPressure[i] = physicsData.stream()
-                    .mapToDouble(p -> p.getWheelsPressure()[wheel])
-                    .max()
-                    .orElse(0.0);
-
-            minPressure[i] = physicsData.stream()
-                    .mapToDouble(p -> p.getWheelsPressure()[wheel])
-                    .min()
-                    .orElse(0.0);
-
-            // Calcola il tempo nel range ottimale (assumiamo 27-28 PSI come range ottimale)
             TyreProperties.TyrePressure tyrePressure = tyreProperties.getTyrePressureByPosition(position);
             optimalRangeMin[i] = tyrePressure.getOptimal().getMin();
             optimalRangeMax[i] = tyrePressure.getOptimal().getMax();
-
-            // Calcola il tempo nel range ottimale usando i valori configurati
-            double optimalCount = physicsData.stream()
-                    .filter(p -> tyreProperties.isPressureOptimal(p.getWheelsPressure()[wheel], position))
-                    .count();
-            timeInOptimal[i] = (optimalCount / physicsData.size()) * 100;
         }
 
         return TyrePressures.builder()
-                .avgPressure(avgPressure)
-                .maxPressure(maxPressure)
-                .minPressure(minPressure)
+                .avgPressure(aggregate.avgPressure())
+                .maxPressure(aggregate.maxPressure())
+                .minPressure(aggregate.minPressure())
                 .optimalRangeMin(optimalRangeMin)
                 .optimalRangeMax(optimalRangeMax)
-                .timeInOptimalRange(timeInOptimal)
+                .timeInOptimalRange(percentage(aggregate.pressureOptimalCount(), aggregate.count()))
                 .build();
     }
 
-    private TyreWear analyzeWear(List<Physics> physicsData) {
-        if (physicsData.isEmpty()) {
+    private TyreWear analyzeWear(TyreAggregate aggregate) {
+        if (aggregate.count() == 0) {
             return null;
         }
 
-        Physics first = physicsData.get(0);
-        Physics last = physicsData.get(physicsData.size() - 1);
-        int totalLaps = last.getNumberOfTyresOut() - first.getNumberOfTyresOut();
+        int totalLaps = aggregate.lastTyresOut() - aggregate.firstTyresOut();
 
         double[] totalWear = new double[4];
         double[] wearRate = new double[4];
         double[] estimatedLife = new double[4];
 
         for (int i = 0; i < 4; i++) {
-            totalWear[i] = first.getTyreWear()[i] - last.getTyreWear()[i];
+            totalWear[i] = aggregate.firstWear()[i] - aggregate.lastWear()[i];
             wearRate[i] = totalWear[i] / totalLaps;
             estimatedLife[i] = 100.0 / wearRate[i]; // Assumendo che 100 sia il valore massimo di usura
         }
@@ -267,70 +229,60 @@ public class TyreAnalysisService {
                 .build();
     }
 
-    private List<TyreStintData> analyzeStints(List<Physics> physicsData) {
+    /**
+     * Il campione di ingresso ai box chiude lo stint corrente e apre il
+     * successivo: conta in entrambi, come ultimo del primo e primo del secondo
+     */
+    private List<TyreStintData> analyzeStints(TyreAggregate aggregate) {
         List<TyreStintData> stints = new ArrayList<>();
-        int currentStint = 1;
-        int startIndex = 0;
-
-        // Identifica i pit stop basandoti sul pitLimiterOn o su cambi significativi nell'usura
-        for (int i = 1; i < physicsData.size(); i++) {
-            Physics current = physicsData.get(i);
-            Physics previous = physicsData.get(i - 1);
-
-            if (current.getPitLimiterOn() == 1 && previous.getPitLimiterOn() == 0) {
-                // Fine dello stint
-                stints.add(createStintData(currentStint, startIndex, i, physicsData));
-                startIndex = i;
-                currentStint++;
+        List<TyreAggregate.Stint> groups = aggregate.stints();
+
+        for (int i = 0; i < groups.size(); i++) {
+            TyreAggregate.Stint stint = groups.get(i);
+            TyreAggregate.Stint next = i + 1 < groups.size() ? groups.get(i + 1) : null;
+            long count = stint.count() + (next != null ? 1 : 0);
+            // L'ultimo stint conta solo se ha almeno due campioni
+            if (next == null && count < 2) {
+                break;
             }
-        }
 
-        // Aggiungi l'ultimo stint
-        if (startIndex < physicsData.size() - 1) {
-            stints.add(createStintData(currentStint, startIndex, physicsData.size() - 1, physicsData));
+            double[] avgTemps = new double[4];
+            double[] avgPress = new double[4];
+
+            // Converti float[] a double[] per startWear e endWear
+            double[] startWearDouble = new double[4];
+            double[] endWearDouble = new double[4];
+
+            for (int wheel = 0; wheel < 4; wheel++) {
+                double sumTemp = stint.sumTreadTemp()[wheel] + (next != null ? next.firstTreadTemp()[wheel] : 0);
+                double sumPressure = stint.sumPressure()[wheel] + (next != null ? next.firstPressure()[wheel] : 0);
+                avgTemps[wheel] = sumTemp / count;
+                avgPress[wheel] = sumPressure / count;
+                startWearDouble[wheel] = stint.firstWear()[wheel];
+                endWearDouble[wheel] = next != null ? next.firstWear()[wheel] : stint.lastWear()[wheel];
+            }
+            int endLap = next != null ? next.firstTyresOut() : stint.lastTyresOut();
+
+            stints.add(TyreStintData.builder()
+                    .stintNumber(i + 1)
+                    .startLap(stint.firstTyresOut())
+                    .endLap(endLap)
+                    .laps(endLap - stint.firstTyresOut())
+                    .startWear(startWearDouble)
+                    .endWear(endWearDouble)
+                    .avgTemperatures(avgTemps)
+                    .avgPressures(avgPress)
+                    .build());
         }
 
         return stints;
     }
 
-    private TyreStintData createStintData(int stintNumber, int startIndex, int endIndex, List<Physics> physicsData) {
-        Physics start = physicsData.get(startIndex);
-        Physics end = physicsData.get(endIndex);
-        List<Physics> stintData = physicsData.subList(startIndex, endIndex + 1);
-
-        double[] avgTemps = new double[4];
-        double[] avgPress = new double[4];
-
-        // Converti float[] a double[] per startWear e endWear
-        double[] startWearDouble = new double[4];
-        double[] endWearDouble = new double[4];
-
-        for (int wheel = 0; wheel < 4; wheel++) {
-            final int w = wheel;
-            avgTemps[wheel] = stintData.stream()
-                    .mapToDouble(p -> (p.getTyreTempI()[w] + p.getTyreTempM()[w] + p.getTyreTempO()[w]) / 3)
-                    .average()
-                    .orElse(0.0);
-
-            avgPress[wheel] = stintData.stream()
-                    .mapToDouble(p -> p.getWheelsPressure()[w])
-                    .average()
-                    .orElse(0.0);
-
-            // Converti i valori di wear da float a double
-            startWearDouble[wheel] = start.getTyreWear()[wheel];
-            endWearDouble[wheel] = end.getTyreWear()[wheel];
+    private static double[] percentage(long[] optimalCounts, long count) {
+        double[] result = new double[4];
+        for (int i = 0; i < 4; i++) {
+            result[i] = ((double) optimalCounts[i] / count) * 100;
         }
-
-        return TyreStintData.builder()
-                .stintNumber(stintNumber)
-                .startLap(start.getNumberOfTyresOut())
-                .endLap(end.getNumberOfTyresOut())
-                .laps(end.getNumberOfTyresOut() - start.getNumberOfTyresOut())
-                .startWear(startWearDouble)  // Ora usiamo l'array di double
-                .endWear(endWearDouble)      // Ora usiamo l'array di double
-                .avgTemperatures(avgTemps)
-                .avgPressures(avgPress)
-                .build();
+        return result;
     }
-}
\ No newline at end of file
+}
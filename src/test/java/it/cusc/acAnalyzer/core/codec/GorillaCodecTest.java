@@ -0,0 +1,92 @@
+package it.cusc.acAnalyzer.core.codec;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GorillaCodecTest {
+
+    @Test
+    void floatEdgeValuesRoundTripBitForBit() {
+        float[] values = {
+                0f, -0f, 0f, -0f,
+                Float.NaN, Float.intBitsToFloat(0x7fc00001), Float.intBitsToFloat(0xffc00000), Float.NaN,
+                Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.MAX_VALUE, -Float.MAX_VALUE,
+                Float.MIN_VALUE, -Float.MIN_VALUE, Float.MIN_NORMAL, 1f,
+                // Run di valori uguali: un solo bit per valore
+                42.5f, 42.5f, 42.5f, 42.5f, 42.5f, 42.5f,
+                // XOR con tutti i 32 bit significativi
+                Float.intBitsToFloat(0x80000001), Float.intBitsToFloat(0x00000000), Float.intBitsToFloat(0xffffffff),
+                -1f, 1f
+        };
+
+        assertFloatsRoundTrip(values, 1);
+    }
+
+    @Test
+    void floatArrayChannelKeepsOneStatePerWheel() {
+        Random random = new Random(7);
+        float[] values = new float[4 * 500];
+        for (int row = 0; row < 500; row++) {
+            values[row * 4] = 80f + random.nextFloat();          // varia a ogni riga
+            values[row * 4 + 1] = 27.5f;                          // costante
+            values[row * 4 + 2] = row % 50 == 0 ? Float.NaN : -0f;
+            values[row * 4 + 3] = random.nextFloat() * 1e30f;     // salti ampi
+        }
+
+        assertFloatsRoundTrip(values, 4);
+    }
+
+    @Test
+    void longEdgeValuesRoundTrip() {
+        long[] values = {
+                Long.MIN_VALUE, Long.MAX_VALUE, 0, -1, 1, Long.MAX_VALUE, Long.MIN_VALUE,
+                // Run uguali e passo costante: delta-of-delta nullo
+                5, 5, 5, 5, 10, 15, 20, 25,
+                // Un delta per ogni classe di prefisso
+                25 + 63, 25 + 63 + 255, 25 + 63 + 255 + 2047, 25 + 63 + 255 + 2047 + 1_000_000,
+                Integer.MAX_VALUE, Integer.MIN_VALUE, 0
+        };
+
+        GorillaCodec.LongEncoder encoder = new GorillaCodec.LongEncoder(1, values.length);
+        for (long value : values) {
+            encoder.write(value);
+        }
+        GorillaCodec.LongDecoder decoder = new GorillaCodec.LongDecoder(encoder.toByteArray(), 1);
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(values[i], decoder.next(), "value " + i);
+        }
+    }
+
+    @Test
+    void timestampsWithJitterRoundTrip() {
+        Random random = new Random(11);
+        long[] timestamps = new long[2000];
+        long time = 1_700_000_000_000L;
+        for (int i = 0; i < timestamps.length; i++) {
+            // Periodo di ~3 ms con jitter e qualche pausa lunga
+            time += i % 400 == 399 ? 60_000 : 2 + random.nextInt(3);
+            timestamps[i] = time;
+        }
+
+        GorillaCodec.LongDecoder decoder =
+                GorillaColumns.timestamps(GorillaColumns.encodeTimestamps(timestamps, timestamps.length));
+        for (int i = 0; i < timestamps.length; i++) {
+            assertEquals(timestamps[i], decoder.next(), "timestamp " + i);
+        }
+    }
+
+    private static void assertFloatsRoundTrip(float[] values, int stride) {
+        GorillaCodec.FloatEncoder encoder = new GorillaCodec.FloatEncoder(stride, values.length);
+        for (float value : values) {
+            encoder.write(value);
+        }
+        GorillaCodec.FloatDecoder decoder = new GorillaCodec.FloatDecoder(encoder.toByteArray(), stride);
+        for (int i = 0; i < values.length; i++) {
+            // Confronto sui bit: distingue -0 da 0 e conserva il payload dei NaN
+            assertEquals(Float.floatToRawIntBits(values[i]), Float.floatToRawIntBits(decoder.next()), "value " + i);
+        }
+    }
+}
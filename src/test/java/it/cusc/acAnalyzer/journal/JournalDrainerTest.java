@@ -0,0 +1,209 @@
+package it.cusc.acAnalyzer.journal;
+
+import it.cusc.acAnalyzer.config.TelemetryProperties;
+import it.cusc.acAnalyzer.core.layout.PageLayouts;
+import it.cusc.acAnalyzer.model.BatchWriterStats;
+import it.cusc.acAnalyzer.model.Physics;
+import it.cusc.acAnalyzer.service.PhysicsWriter;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JournalDrainerTest {
+    private static final String SESSION = "session-1";
+    private static final int RECORD_SIZE = JournalFiles.HEADER_SIZE + JournalFiles.PAGE_OFFSET
+            + PageLayouts.PHYSICS.size() + Short.BYTES + SESSION.getBytes(StandardCharsets.UTF_8).length;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void tornRecordSkipsToTheNextSegmentWrittenAfterRestart() throws Exception {
+        List<Physics> beforeCrash = append(3);
+        // Crash a metà del terzo record: payload scritto solo in parte, CRC non valido
+        corrupt(0, 2 * RECORD_SIZE + JournalFiles.HEADER_SIZE + JournalFiles.PAGE_OFFSET + 8);
+        List<Physics> afterRestart = append(2);
+
+        RecordingWriter writer = new RecordingWriter();
+        JournalDrainer drainer = new JournalDrainer(config(), writer);
+        drainer.start();
+        awaitTrue(() -> writer.written().size() == 4);
+        drainer.stop();
+
+        assertEquals(ids(List.of(beforeCrash.get(0), beforeCrash.get(1), afterRestart.get(0), afterRestart.get(1))),
+                ids(writer.written()));
+        // Checkpoint alla fine del secondo segmento, il primo non serve più
+        assertEquals(new JournalFiles.Position(1, 2 * RECORD_SIZE), JournalFiles.readCheckpoint(directory));
+        assertFalse(Files.exists(JournalFiles.segmentPath(directory, 0)));
+    }
+
+    @Test
+    void recordsAreDecodedWithTheirMetadata() throws Exception {
+        Physics original = append(1).get(0);
+
+        RecordingWriter writer = new RecordingWriter();
+        JournalDrainer drainer = new JournalDrainer(config(), writer);
+        drainer.start();
+        awaitTrue(() -> writer.written().size() == 1);
+        drainer.stop();
+
+        Physics replayed = writer.written().get(0);
+        assertEquals(original.getId(), replayed.getId());
+        assertEquals(SESSION, replayed.getSessionId());
+        assertEquals(original.getTimestamp(), replayed.getTimestamp());
+        assertEquals(original.getPacketId(), replayed.getPacketId());
+        assertEquals(original.getSpeedKmh(), replayed.getSpeedKmh());
+    }
+
+    @Test
+    void failedWriteIsReplayedFromTheCheckpointAndRestartResumesAfterIt() throws Exception {
+        List<Physics> first = append(5);
+
+        RecordingWriter writer = new RecordingWriter();
+        writer.failNextFlush = true;
+        JournalDrainer drainer = new JournalDrainer(config(), writer);
+        drainer.start();
+        awaitTrue(() -> writer.written().size() == 5);
+        drainer.stop();
+
+        // Il batch fallito è riletto dal journal: nessun frame perso o doppio
+        assertEquals(ids(first), ids(writer.written()));
+        assertEquals(1, drainer.getStats().getReplayFailures());
+        JournalFiles.Position checkpoint = JournalFiles.readCheckpoint(directory);
+        assertNotNull(checkpoint);
+        assertEquals(new JournalFiles.Position(0, 5 * RECORD_SIZE), checkpoint);
+
+        // Nuova sessione: il drainer riparte dal checkpoint e replica solo i record nuovi
+        List<Physics> second = append(2);
+        RecordingWriter restarted = new RecordingWriter();
+        JournalDrainer recovery = new JournalDrainer(config(), restarted);
+        recovery.start();
+        awaitTrue(() -> restarted.written().size() == 2);
+        recovery.stop();
+
+        assertEquals(ids(second), ids(restarted.written()));
+    }
+
+    private List<Physics> append(int count) throws IOException {
+        TelemetryJournal journal = new TelemetryJournal(config());
+        journal.open();
+        List<Physics> frames = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Physics physics = new Physics();
+            physics.setId(new ObjectId().toHexString());
+            physics.setSessionId(SESSION);
+            physics.setTimestamp(Instant.ofEpochMilli(1_700_000_000_000L + frames.size() * 3L));
+            physics.setPacketId(i + 1);
+            physics.setSpeedKmh(100 + i);
+            journal.handle(physics);
+            frames.add(physics);
+        }
+        journal.close();
+        return frames;
+    }
+
+    private void corrupt(long segment, int position) throws IOException {
+        try (FileChannel channel = FileChannel.open(JournalFiles.segmentPath(directory, segment),
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer value = ByteBuffer.allocate(1);
+            channel.read(value, position);
+            value.put(0, (byte) ~value.get(0)).rewind();
+            channel.write(value, position);
+        }
+    }
+
+    private TelemetryProperties.Journal config() {
+        TelemetryProperties.Journal config = new TelemetryProperties.Journal();
+        config.setDirectory(directory.toString());
+        config.setSegmentSizeMb(1);
+        config.setRetryDelayMillis(10);
+        config.setDrainTimeoutMillis(5_000);
+        return config;
+    }
+
+    private static List<String> ids(List<Physics> frames) {
+        return frames.stream().map(Physics::getId).toList();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out waiting for the drainer");
+            Thread.sleep(5);
+        }
+    }
+
+    /** Writer che bufferizza fino all'idle, come il batch writer, e può fallire un flush */
+    private static class RecordingWriter implements PhysicsWriter {
+        private final List<Physics> pending = new ArrayList<>();
+        private final List<Physics> written = new ArrayList<>();
+        private volatile boolean failNextFlush;
+        private boolean failed;
+
+        @Override
+        public synchronized boolean handle(Physics physics) {
+            pending.add(physics);
+            return true;
+        }
+
+        @Override
+        public void onIdle() {
+            flush();
+        }
+
+        @Override
+        public synchronized void flush() {
+            if (pending.isEmpty()) return;
+            if (failNextFlush) {
+                failNextFlush = false;
+                failed = true;
+                return;
+            }
+            written.addAll(pending);
+            pending.clear();
+        }
+
+        @Override
+        public synchronized int pending() {
+            return pending.size();
+        }
+
+        @Override
+        public synchronized boolean checkFailed() {
+            boolean result = failed;
+            failed = false;
+            return result;
+        }
+
+        @Override
+        public synchronized void discard() {
+            pending.clear();
+        }
+
+        @Override
+        public BatchWriterStats getStats() {
+            return null;
+        }
+
+        synchronized List<Physics> written() {
+            return new ArrayList<>(written);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package it.cusc.acAnalyzer.pipeline;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpscRingBufferTest {
+
+    @Test
+    void capacityIsRoundedUpToAPowerOfTwo() {
+        assertEquals(2, new SpscRingBuffer<Integer>(1).capacity());
+        assertEquals(8, new SpscRingBuffer<Integer>(8).capacity());
+        assertEquals(16, new SpscRingBuffer<Integer>(9).capacity());
+    }
+
+    @Test
+    void keepsFifoOrderAcrossManyWraparounds() {
+        SpscRingBuffer<Integer> ring = new SpscRingBuffer<>(4);
+        int next = 0;
+        int expected = 0;
+        // Riempimenti parziali di lunghezza variabile: head e tail fanno molti giri
+        for (int round = 0; round < 1000; round++) {
+            int batch = 1 + round % ring.capacity();
+            for (int i = 0; i < batch; i++) {
+                assertTrue(ring.offer(next++));
+            }
+            assertEquals(batch, ring.size());
+            for (int i = 0; i < batch; i++) {
+                assertEquals(expected++, ring.poll());
+            }
+            assertTrue(ring.isEmpty());
+        }
+        assertNull(ring.poll());
+    }
+
+    @Test
+    void offerFailsWhenFullAndDropOldestMakesRoomForTheNewest() {
+        SpscRingBuffer<Integer> ring = new SpscRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i));
+        }
+        assertFalse(ring.offer(4));
+        assertEquals(4, ring.size());
+
+        assertTrue(ring.dropOldest());
+        assertTrue(ring.offer(4));
+        assertTrue(ring.dropOldest());
+        assertTrue(ring.offer(5));
+
+        for (int expected = 2; expected <= 5; expected++) {
+            assertEquals(expected, ring.poll());
+        }
+        assertFalse(ring.dropOldest());
+        assertNull(ring.poll());
+    }
+
+    @Test
+    void dropOldestRacingTheConsumerNeverDuplicatesOrReorders() throws InterruptedException {
+        SpscRingBuffer<Long> ring = new SpscRingBuffer<>(8);
+        long total = 500_000;
+        AtomicLong consumed = new AtomicLong();
+        AtomicLong outOfOrder = new AtomicLong();
+
+        Thread consumer = new Thread(() -> {
+            long last = -1;
+            while (last < total - 1) {
+                Long value = ring.poll();
+                if (value == null) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                if (value <= last) {
+                    outOfOrder.incrementAndGet();
+                }
+                last = value;
+                consumed.incrementAndGet();
+            }
+        });
+        consumer.setDaemon(true);
+        consumer.start();
+
+        // Policy DROP_OLDEST del producer: se pieno scarta il più vecchio e riprova
+        long dropped = 0;
+        for (long value = 0; value < total; value++) {
+            while (!ring.offer(value)) {
+                if (ring.dropOldest()) {
+                    dropped++;
+                }
+            }
+        }
+        consumer.join(10_000);
+
+        assertFalse(consumer.isAlive());
+        assertEquals(0, outOfOrder.get());
+        // Ogni elemento è consumato o scartato, mai entrambi
+        assertEquals(total, consumed.get() + dropped);
+    }
+}
@@ -0,0 +1,108 @@
+package it.cusc.acAnalyzer.service;
+
+import it.cusc.acAnalyzer.config.TelemetryProperties;
+import it.cusc.acAnalyzer.model.LapIndex;
+import it.cusc.acAnalyzer.model.Physics;
+import it.cusc.acAnalyzer.model.projection.LapSample;
+import it.cusc.acAnalyzer.repository.PhysicsIndexes;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class LapIndexWriterTest {
+    private static final Instant START = Instant.parse("2024-01-01T10:00:00Z");
+
+    @Test
+    void framesReadBeforeTheLineStayInTheClosingLapEvenWhenDelivered() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        PhysicsIndexes physicsIndexes = mock(PhysicsIndexes.class);
+        LapIndexWriter writer = new LapIndexWriter(mongoTemplate, physicsIndexes,
+                new TelemetryProperties.DerivedWrites());
+        writer.onStart();
+
+        // Lato poller: giro 0 in corso, settori, poi il passaggio dopo il frame 20
+        writer.onLapSample(sample(0, 0, 0, 0), 0);
+        writer.onLapSample(sample(0, 1, 30_000, 0), 8);
+        writer.onLapSample(sample(0, 2, 25_000, 0), 15);
+        writer.onLapSample(sample(1, 0, 20_000, 75_000), 20);
+
+        // Lato stage: i frame arrivano dopo il passaggio, con timestamp successivi
+        for (int packetId = 1; packetId <= 30; packetId++) {
+            writer.handle(physics(packetId, START.plusSeconds(100 + packetId)));
+        }
+        // Lo stop svuota il BackgroundWriter prima di ritornare
+        writer.onStop();
+
+        List<LapIndex> laps = savedLaps(mongoTemplate);
+        assertEquals(2, laps.size());
+        // L'indice unico sessionId + giro si crea prima di scrivere
+        verify(physicsIndexes, atLeastOnce()).ensureLapIndex();
+
+        LapIndex first = laps.get(0);
+        assertEquals(1, first.getLap());
+        assertEquals(20, first.getFrames());
+        assertEquals("p1", first.getFirstPhysicsId());
+        assertEquals("p20", first.getLastPhysicsId());
+        assertEquals(75_000, first.getLapTimeMs());
+        assertArrayEquals(new int[]{30_000, 25_000, 20_000}, first.getSectorTimesMs());
+        assertTrue(first.isComplete());
+
+        LapIndex partial = laps.get(1);
+        assertEquals(2, partial.getLap());
+        assertEquals(10, partial.getFrames());
+        assertEquals("p21", partial.getFirstPhysicsId());
+        assertFalse(partial.isComplete());
+    }
+
+    @Test
+    void boundaryQueuedBeforeAnyFrameClosesNothing() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        PhysicsIndexes physicsIndexes = mock(PhysicsIndexes.class);
+        LapIndexWriter writer = new LapIndexWriter(mongoTemplate, physicsIndexes,
+                new TelemetryProperties.DerivedWrites());
+        writer.onStart();
+
+        writer.onLapSample(sample(2, 0, 0, 0), -1);
+        writer.onLapSample(sample(3, 0, 20_000, 80_000), -1);
+        for (int packetId = 1; packetId <= 5; packetId++) {
+            writer.handle(physics(packetId, START.plusSeconds(packetId)));
+        }
+        writer.onStop();
+
+        List<LapIndex> laps = savedLaps(mongoTemplate);
+        assertEquals(1, laps.size());
+        assertEquals(4, laps.get(0).getLap());
+        assertEquals(5, laps.get(0).getFrames());
+    }
+
+    private static List<LapIndex> savedLaps(MongoTemplate mongoTemplate) {
+        ArgumentCaptor<LapIndex> saved = ArgumentCaptor.forClass(LapIndex.class);
+        verify(mongoTemplate, atLeastOnce()).save(saved.capture());
+        return saved.getAllValues();
+    }
+
+    private static LapSample sample(int completedLaps, int sector, int lastSectorTime, int lastTimeMs) {
+        String lastTime = lastTimeMs > 0 ? "1:15.000" : "";
+        return new LapSample(START, completedLaps, sector, lastSectorTime, lastTime, lastTimeMs);
+    }
+
+    private static Physics physics(int packetId, Instant timestamp) {
+        Physics physics = new Physics();
+        physics.setId("p" + packetId);
+        physics.setSessionId("session");
+        physics.setPacketId(packetId);
+        physics.setTimestamp(timestamp);
+        return physics;
+    }
+}